@@ -0,0 +1,47 @@
+package shapes_3d.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ray_tracer.parsing.Camera;
+import shapes_3d.renderer.CameraOrbit;
+
+import java.util.concurrent.TimeUnit;
+
+/** Calcul d'orbite sphérique de {@link CameraOrbit#orbit}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CameraOrbitBenchmark {
+
+    private Camera camera;
+
+    @Setup
+    public void setup() {
+        camera = new Camera(0, 1, 6, 0, 0, 0, 0, 1, 0, 45);
+    }
+
+    @Benchmark
+    public Camera orbitStep() {
+        return CameraOrbit.orbit(camera, Math.toRadians(1.5), Math.toRadians(0.5), 0.998);
+    }
+
+    /** Une seconde d'orbite continue à 60 images par seconde. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Camera orbitSecondAt60Hz() {
+        Camera cam = camera;
+        for (int i = 0; i < 60; i++) cam = CameraOrbit.orbit(cam, Math.toRadians(1.5), 0, 1);
+        return cam;
+    }
+}
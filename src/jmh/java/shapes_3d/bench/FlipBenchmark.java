@@ -0,0 +1,65 @@
+package shapes_3d.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shapes_3d.renderer.ImageExporter;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retournement vertical avant export : ancienne boucle getRGB/setRGB par
+ * pixel contre les copies de lignes de {@link ImageExporter#flipVertically}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FlipBenchmark {
+
+    @Param({"1920x1080", "3840x2160"})
+    public String size;
+
+    @Param({"INT_RGB", "INT_ARGB_PRE"})
+    public String imageType;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setup() {
+        String[] wh = size.split("x");
+        int type = "INT_ARGB_PRE".equals(imageType) ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB;
+        image = new BufferedImage(Integer.parseInt(wh[0]), Integer.parseInt(wh[1]), type);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) image.setRGB(x, y, 0xFF000000 | (x * 31 + y * 17));
+        }
+    }
+
+    /** Retournement d'avant (SaveManager.saveImage). */
+    @Benchmark
+    public BufferedImage perPixel() {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        BufferedImage flipped = new BufferedImage(w, h, image.getType());
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) flipped.setRGB(x, h - 1 - y, image.getRGB(x, y));
+        }
+        return flipped;
+    }
+
+    @Benchmark
+    public BufferedImage rowCopy() {
+        return ImageExporter.flipVertically(image, -1);
+    }
+}
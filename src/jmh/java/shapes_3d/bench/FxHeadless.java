@@ -0,0 +1,51 @@
+package shapes_3d.bench;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Démarre JavaFX sans affichage (Monocle headless, rendu logiciel) pour les
+ * benchmarks qui manipulent des composants de l'interface.
+ */
+public final class FxHeadless {
+
+    private static boolean started;
+
+    private FxHeadless() {}
+
+    public static synchronized void start() throws InterruptedException {
+        if (started) return;
+        setIfAbsent("glass.platform", "Monocle");
+        setIfAbsent("monocle.platform", "Headless");
+        setIfAbsent("prism.order", "sw");
+        setIfAbsent("java.awt.headless", "true");
+        CountDownLatch ready = new CountDownLatch(1);
+        try {
+            Platform.startup(ready::countDown);
+        } catch (IllegalStateException alreadyStarted) {
+            ready.countDown();
+        }
+        ready.await();
+        started = true;
+    }
+
+    /** Exécute {@code action} sur le thread FX et attend son résultat. */
+    public static <T> T call(Callable<T> action) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        return result.get();
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) System.setProperty(key, value);
+    }
+}
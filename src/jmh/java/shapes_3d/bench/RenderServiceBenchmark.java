@@ -0,0 +1,99 @@
+package shapes_3d.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendu complet via {@link RenderService} sur les scènes fournies dans
+ * {@code src/jmh/resources/scenes}, à plusieurs résolutions et nombres de threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenderServiceBenchmark {
+
+    @Param({"spheres", "triangles"})
+    public String scene;
+
+    @Param({"320x240", "800x600", "1920x1080"})
+    public String resolution;
+
+    /** 0 = tous les cœurs. */
+    @Param({"1", "4", "0"})
+    public int threads;
+
+    @Param({"1"})
+    public int samplesPerPixel;
+
+    private RenderService service;
+    private Scene parsed;
+    private RenderOptions opts;
+    private int width;
+    private int height;
+
+    @Setup
+    public void setup() throws Exception {
+        Path file = extract("/scenes/" + scene + ".scene");
+        try {
+            parsed = SceneLoader.parseFileUncached(file).getScene();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        String[] wh = resolution.split("x");
+        width = Integer.parseInt(wh[0]);
+        height = Integer.parseInt(wh[1]);
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        service = new RenderService(n);
+        opts = new RenderOptions();
+        opts.samplesPerPixel = samplesPerPixel;
+        opts.maxDepth = 5;
+        opts.tileSize = 64;
+        opts.threadCount = n;
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public BufferedImage render() throws Exception {
+        return service.renderAndWait(parsed, parsed.getCamera(), width, height, opts);
+    }
+
+    private static Path extract(String resource) throws IOException {
+        try (InputStream in = RenderServiceBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) throw new IOException("missing resource " + resource);
+            Path tmp = Files.createTempFile("bench", ".scene");
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            return tmp;
+        }
+    }
+}
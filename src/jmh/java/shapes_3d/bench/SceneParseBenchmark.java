@@ -0,0 +1,155 @@
+package shapes_3d.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import shapes_3d.parsing.ParsedScene;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.parsing.SceneParseException;
+import shapes_3d.parsing.SceneParseService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Analyses concurrentes de scènes, avec vérification : chaque analyse doit
+ * rendre exactement les warnings (ou l'erreur) obtenus en analysant la même
+ * scène seule. Une fuite de warnings entre analyses fait échouer le benchmark.
+ * <p>
+ * Les variantes diffèrent par leurs numéros de ligne, leurs lumières et leurs
+ * directives invalides, pour que les diagnostics de deux variantes ne se
+ * ressemblent pas. Pour comparer avec l'analyse sous verrou global :
+ * {@code -jvmArgsAppend -Dshapes3d.parserLock=true}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SceneParseBenchmark {
+
+    @Param({"spheres", "triangles"})
+    public String scene;
+
+    @Param({"32"})
+    public int variants;
+
+    private Path dir;
+    private final List<Path> files = new ArrayList<>();
+    private final List<String> expected = new ArrayList<>();
+    private SceneParseService service;
+
+    @Setup
+    public void setup() throws Exception {
+        String base = resource("/scenes/" + scene + ".scene");
+        dir = Files.createTempDirectory("parse-bench");
+        for (int i = 0; i < variants; i++) {
+            Path f = dir.resolve("v" + i + ".scene");
+            Files.writeString(f, variant(base, i), StandardCharsets.UTF_8);
+            files.add(f);
+        }
+        // reference: every variant parsed alone, one after the other
+        for (Path f : files) expected.add(outcome(f));
+        service = new SceneParseService(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        service.shutdown();
+        try (Stream<Path> s = Files.walk(dir)) {
+            for (Path p : s.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    /** Huit threads analysent des variantes tirées au hasard. */
+    @Benchmark
+    @Threads(8)
+    public String concurrentParse() {
+        int i = ThreadLocalRandom.current().nextInt(files.size());
+        String got = outcome(files.get(i));
+        check(i, got);
+        return got;
+    }
+
+    /** Toutes les variantes soumises d'un coup au service. */
+    @Benchmark
+    public int batch() {
+        List<CompletableFuture<ParsedScene>> futures = service.submitAll(files);
+        for (int i = 0; i < futures.size(); i++) {
+            String got;
+            try {
+                got = describe(futures.get(i).join());
+            } catch (CompletionException e) {
+                got = describe(e.getCause());
+            }
+            check(i, got);
+        }
+        return futures.size();
+    }
+
+    private void check(int i, String got) {
+        if (!Objects.equals(expected.get(i), got)) {
+            throw new IllegalStateException("diagnostics mélangés pour " + files.get(i).getFileName()
+                    + "\n  attendu : " + expected.get(i) + "\n  obtenu  : " + got);
+        }
+    }
+
+    private static String outcome(Path f) {
+        try {
+            return describe(SceneLoader.parseFileUncached(f));
+        } catch (Exception e) {
+            return describe(e);
+        }
+    }
+
+    private static String describe(ParsedScene p) {
+        return "OK " + p.getWarnings();
+    }
+
+    private static String describe(Throwable t) {
+        if (t instanceof SceneParseException spe) {
+            return "ERREUR " + spe.getMessage() + " " + spe.getDiagnostics().getWarnings();
+        }
+        return "ERREUR " + t;
+    }
+
+    // shifts line numbers, adds lights and, for some variants, a bad directive
+    private static String variant(String base, int i) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < i; k++) sb.append("# variante ").append(i).append('\n');
+        sb.append(base).append('\n');
+        for (int k = 0; k < i % 4; k++) sb.append("point ").append(k).append(" 6 3 0.5 0.5 0.5\n");
+        if (i % 5 == 0) sb.append("directive_inconnue_").append(i).append(' ').append(i).append('\n');
+        return sb.toString();
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream in = SceneParseBenchmark.class.getResourceAsStream(name)) {
+            if (in == null) throw new IOException("missing resource " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
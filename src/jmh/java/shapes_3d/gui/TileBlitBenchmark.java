@@ -0,0 +1,130 @@
+package shapes_3d.gui;
+
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shapes_3d.bench.FxHeadless;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût par tuile du chemin suivi par une tuile rendue (4K, tuiles de 64 px),
+ * jusqu'au {@link javafx.scene.image.WritableImage} dans les deux cas :
+ * avant, boucle pixel par pixel {@code getRGB} / {@code setArgb} ; après,
+ * copie groupée dans un tampon ARGB ({@link TileCompositor#copyArgb}) puis
+ * un seul {@code setPixels} du rectangle de la tuile, comme le compositeur
+ * à chaque pulse. {@code postTile} mesure le côté thread de rendu de
+ * {@link TileCompositor#postTile} (copie plus pyramide de réductions), sans
+ * envoi. Chaque opération passe à la tuile suivante de la grille, comme un
+ * rendu, pour ne pas mesurer une tuile restée en cache. Même démarrage
+ * Monocle headless pour tous les cas ; appartient au paquet du compositeur
+ * pour appeler sa copie sans l'exposer.
+ * Avec {@code -prof gc}, {@code bulk} et {@code postTile} doivent allouer
+ * 0 octet par opération.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TileBlitBenchmark {
+
+    private static final int CANVAS_WIDTH = 3840;
+    private static final int CANVAS_HEIGHT = 2160;
+
+    @Param({"64"})
+    public int tileSize;
+
+    @Param({"INT_RGB", "INT_ARGB"})
+    public String tileType;
+
+    private TileCompositor compositor;
+    private WritableImage baselineCanvas;
+    private WritableImage bulkCanvas;
+    private int[] backBuffer;
+    private BufferedImage tile;
+    private int columns;
+    private int tiles;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        FxHeadless.start();
+        // not started: no pulse uploads, only the render-thread side is measured
+        compositor = FxHeadless.call(() -> {
+            TileCompositor c = new TileCompositor(new ImageView());
+            c.attach(CANVAS_WIDTH, CANVAS_HEIGHT);
+            return c;
+        });
+        baselineCanvas = new WritableImage(CANVAS_WIDTH, CANVAS_HEIGHT);
+        bulkCanvas = new WritableImage(CANVAS_WIDTH, CANVAS_HEIGHT);
+        backBuffer = new int[CANVAS_WIDTH * CANVAS_HEIGHT];
+        int type = "INT_ARGB".equals(tileType) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        tile = new BufferedImage(tileSize, tileSize, type);
+        Random rnd = new Random(42);
+        for (int j = 0; j < tileSize; j++) {
+            for (int i = 0; i < tileSize; i++) tile.setRGB(i, j, 0xFF000000 | rnd.nextInt(0x1000000));
+        }
+        columns = (CANVAS_WIDTH + tileSize - 1) / tileSize;
+        tiles = columns * ((CANVAS_HEIGHT + tileSize - 1) / tileSize);
+    }
+
+    // index of the next tile in render order; edge tiles are clipped as in a real render
+    private int nextTile() {
+        int t = next;
+        next = t + 1 == tiles ? 0 : t + 1;
+        return t;
+    }
+
+    /** Copie d'avant : getRGB / setArgb pour chaque pixel. */
+    @Benchmark
+    public void perPixel() {
+        int t = nextTile();
+        int x = t % columns * tileSize;
+        int y = t / columns * tileSize;
+        int w = Math.min(tileSize, CANVAS_WIDTH - x);
+        int h = Math.min(tileSize, CANVAS_HEIGHT - y);
+        PixelWriter pw = baselineCanvas.getPixelWriter();
+        for (int j = 0; j < h; j++) {
+            for (int i = 0; i < w; i++) {
+                pw.setArgb(x + i, y + j, tile.getRGB(i, j));
+            }
+        }
+    }
+
+    /** Copie d'après : copie groupée vers un tampon ARGB, puis envoi du rectangle de la tuile. */
+    @Benchmark
+    public void bulk() {
+        int t = nextTile();
+        int x = t % columns * tileSize;
+        int y = t / columns * tileSize;
+        int w = Math.min(tileSize, CANVAS_WIDTH - x);
+        int h = Math.min(tileSize, CANVAS_HEIGHT - y);
+        int offset = y * CANVAS_WIDTH + x;
+        TileCompositor.copyArgb(tile, w, h, backBuffer, offset, CANVAS_WIDTH);
+        bulkCanvas.getPixelWriter().setPixels(x, y, w, h, PixelFormat.getIntArgbInstance(),
+                backBuffer, offset, CANVAS_WIDTH);
+    }
+
+    /** Côté thread de rendu : copie dans le tampon arrière du compositeur et mise à jour de sa pyramide. */
+    @Benchmark
+    public void postTile() {
+        int t = nextTile();
+        compositor.postTile(tile, t % columns * tileSize, t / columns * tileSize);
+    }
+}
@@ -1,7 +1,52 @@
 package shapes_3d;
 
+import shapes_3d.cli.BatchRenderer;
+import shapes_3d.cli.CliArgs;
+import shapes_3d.cli.RenderServer;
+import shapes_3d.cli.SequenceRenderer;
+import shapes_3d.distributed.Coordinator;
+import shapes_3d.distributed.RenderWorker;
+
+/**
+ * Point d'entrée en ligne de commande (sans JavaFX).
+ * L'interface graphique se lance via {@link shapes_3d.gui.FXMain}.
+ */
 public class Main {
+
     public static void main(String[] args) {
-        System.out.println("Hello world!");
+        if (args.length == 0 || "--help".equals(args[0]) || "-h".equals(args[0])) {
+            printUsage();
+            System.exit(args.length == 0 ? 2 : 0);
+        }
+        int code;
+        try {
+            switch (args[0]) {
+                case "batch" -> code = BatchRenderer.run(CliArgs.parse(args, 1));
+                case "server" -> code = RenderServer.run(CliArgs.parse(args, 1));
+                case "sequence" -> code = SequenceRenderer.run(CliArgs.parse(args, 1));
+                case "worker" -> code = RenderWorker.run(CliArgs.parse(args, 1));
+                case "distribute" -> code = Coordinator.run(CliArgs.parse(args, 1));
+                default -> {
+                    System.err.println("Mode inconnu : " + args[0]);
+                    printUsage();
+                    code = 2;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            code = 2;
+        }
+        // the renderer's worker threads are not daemons
+        System.exit(code);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage : java -cp <classpath> shapes_3d.Main <mode> [options]");
+        System.err.println("Modes :");
+        BatchRenderer.printUsage(System.err);
+        RenderServer.printUsage(System.err);
+        SequenceRenderer.printUsage(System.err);
+        Coordinator.printUsage(System.err);
+        RenderWorker.printUsage(System.err);
     }
-}
\ No newline at end of file
+}
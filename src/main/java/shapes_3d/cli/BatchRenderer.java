@@ -0,0 +1,390 @@
+package shapes_3d.cli;
+
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.parsing.ParsedScene;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.parsing.SceneParseService;
+import shapes_3d.renderer.ImageExporter;
+import shapes_3d.renderer.RenderService;
+import shapes_3d.renderer.TileStreamWriter;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Rendu en lot, sans interface graphique : rend un ensemble de fichiers
+ * {@code .scene} en parallèle et écrit une image PNG par scène.
+ * <p>
+ * Deux niveaux de parallélisme : {@code --jobs} scènes rendues simultanément,
+ * chacune découpée sur {@code --threads} threads. Beaucoup de petites scènes
+ * saturent mieux la machine avec beaucoup de jobs et peu de threads par scène.
+ * Les scènes sont analysées sur un {@link SceneParseService}, jusqu'à
+ * {@code --jobs} scènes en avance : l'analyse des suivantes recouvre le rendu
+ * des scènes en cours.
+ */
+public final class BatchRenderer {
+
+    private final List<Path> scenes;
+    // one PNG per scene, same order
+    private final List<Path> outputs;
+    private final Path outDir;
+    private final int jobs;
+    private final int threadsPerScene;
+    private final RenderOptions baseOptions;
+    private final int pngLevel;
+    // scenes with at least this many pixels are streamed to disk (-1: never)
+    private final long streamAbovePixels;
+    private final PrintStream out;
+
+    public BatchRenderer(List<Path> scenes, Path outDir, int jobs, int threadsPerScene,
+                         RenderOptions baseOptions, int pngLevel, PrintStream out) {
+        this(scenes, outDir, jobs, threadsPerScene, baseOptions, pngLevel, -1, out);
+    }
+
+    /**
+     * @param streamAbovePixels à partir de ce nombre de pixels, l'image est
+     *                          écrite au fil des tuiles ({@link TileStreamWriter}) ;
+     *                          -1 pour toujours passer par une image en mémoire
+     */
+    public BatchRenderer(List<Path> scenes, Path outDir, int jobs, int threadsPerScene,
+                         RenderOptions baseOptions, int pngLevel, long streamAbovePixels, PrintStream out) {
+        this(scenes, null, outDir, jobs, threadsPerScene, baseOptions, pngLevel, streamAbovePixels, out);
+    }
+
+    /**
+     * @param relativeNames pour chaque scène, son chemin relatif à l'entrée
+     *                      qui l'a trouvée, reproduit sous {@code outDir} ;
+     *                      null pour n'utiliser que le nom du fichier
+     */
+    BatchRenderer(List<Path> scenes, List<Path> relativeNames, Path outDir, int jobs, int threadsPerScene,
+                  RenderOptions baseOptions, int pngLevel, long streamAbovePixels, PrintStream out) {
+        this.scenes = scenes;
+        this.outDir = outDir;
+        this.outputs = new ArrayList<>(scenes.size());
+        for (int i = 0; i < scenes.size(); i++) {
+            Path scene = scenes.get(i);
+            outputs.add(outputFor(scene, relativeNames != null ? relativeNames.get(i) : scene.getFileName()));
+        }
+        this.jobs = Math.max(1, jobs);
+        this.threadsPerScene = Math.max(1, threadsPerScene);
+        this.baseOptions = baseOptions;
+        this.pngLevel = pngLevel;
+        this.streamAbovePixels = streamAbovePixels;
+        this.out = out;
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage : batch <dossier|glob|fichier.scene>... [options]");
+        out.println("  --out <dossier>      dossier de sortie (défaut : à côté de chaque scène) ; les");
+        out.println("                       sous-dossiers parcourus par un glob y sont reproduits");
+        out.println("  --jobs <n>           scènes rendues en parallèle");
+        out.println("  --threads <n>        threads de rendu par scène");
+        out.println("  --spp <n>            échantillons par pixel (défaut 10)");
+        out.println("  --max-depth <n>      profondeur de récursion (défaut 5)");
+        out.println("  --tile <n>           taille des tuiles (défaut 64)");
+        out.println("  --png-level <0-9>    compression PNG (défaut " + ImageExporter.DEFAULT_PNG_COMPRESSION + ")");
+        out.println("  --stream-above <Mpx> écrit au fil des tuiles les images d'au moins <Mpx> mégapixels");
+        out.println("                       (PNG uniquement, mémoire indépendante de la taille ; 0 : toutes)");
+    }
+
+    /**
+     * Point d'entrée du mode batch.
+     * @return code de sortie du processus
+     */
+    public static int run(CliArgs args) {
+        if (args.positional().isEmpty()) {
+            printUsage(System.err);
+            return 2;
+        }
+        List<Path> scenes = new ArrayList<>();
+        List<Path> relativeNames = new ArrayList<>();
+        try {
+            for (String input : args.positional()) {
+                Path root = rootOf(input);
+                for (Path scene : collectScenes(input)) {
+                    scenes.add(scene);
+                    relativeNames.add(root != null ? root.relativize(scene) : scene.getFileName());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Impossible de lister les scènes : " + e.getMessage());
+            return 2;
+        }
+        if (scenes.isEmpty()) {
+            System.err.println("Aucun fichier .scene trouvé.");
+            return 2;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int jobs = args.getInt("jobs", Math.min(scenes.size(), cores));
+        int threads = args.getInt("threads", Math.max(1, cores / Math.max(1, jobs)));
+
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = args.getInt("spp", 10);
+        opts.maxDepth = args.getInt("max-depth", 5);
+        opts.tileSize = args.getInt("tile", 64);
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+
+        String outArg = args.get("out", null);
+        Path outDir = outArg == null ? null : Paths.get(outArg);
+
+        int pngLevel = args.getInt("png-level", ImageExporter.DEFAULT_PNG_COMPRESSION);
+
+        long streamAbove = args.has("stream-above")
+                ? (long) (args.getDouble("stream-above", 0) * 1_000_000) : -1;
+
+        return new BatchRenderer(scenes, relativeNames, outDir, jobs, threads, opts, pngLevel, streamAbove,
+                System.out).renderAll();
+    }
+
+    /**
+     * Rend toutes les scènes puis affiche le débit obtenu. Rien n'est rendu
+     * si deux scènes devaient écrire la même image.
+     * @return 0 si toutes les scènes ont été rendues, 1 sinon
+     */
+    public int renderAll() {
+        Map<Path, Path> writers = new HashMap<>();
+        boolean conflicts = false;
+        for (int i = 0; i < scenes.size(); i++) {
+            Path dest = outputs.get(i).toAbsolutePath().normalize();
+            Path other = writers.putIfAbsent(dest, scenes.get(i));
+            if (other != null) {
+                out.println("Sortie en conflit : " + other + " et " + scenes.get(i) + " -> " + outputs.get(i));
+                conflicts = true;
+            }
+        }
+        if (conflicts) return 1;
+        if (outDir != null) {
+            try {
+                Files.createDirectories(outDir);
+            } catch (IOException e) {
+                out.println("Impossible de créer " + outDir + " : " + e.getMessage());
+                return 1;
+            }
+        }
+        out.printf(Locale.US, "%d scène(s), %d en parallèle, %d thread(s) par scène%n",
+                scenes.size(), jobs, threadsPerScene);
+
+        RenderService service = new RenderService(jobs * threadsPerScene);
+        ExecutorService sceneExec = Executors.newFixedThreadPool(jobs);
+        SceneParseService parser = new SceneParseService(jobs);
+        Prefetch prefetch = new Prefetch(parser, scenes);
+        AtomicLong pixels = new AtomicLong();
+        int failures = 0;
+        long start = System.nanoTime();
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < scenes.size(); i++) {
+                int index = i;
+                results.add(sceneExec.submit(() -> {
+                    CompletableFuture<ParsedScene> parse = prefetch.take(index);
+                    // scenes further down the list are parsed while this one renders
+                    prefetch.start(index + jobs);
+                    return renderOne(service, scenes.get(index), outputs.get(index), parse, pixels);
+                }));
+            }
+            for (Future<Boolean> r : results) {
+                try {
+                    if (!r.get()) failures++;
+                } catch (Exception e) {
+                    failures++;
+                }
+            }
+        } finally {
+            sceneExec.shutdownNow();
+            parser.shutdown();
+            service.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int done = scenes.size() - failures;
+        out.printf(Locale.US, "Terminé : %d/%d scène(s) en %.2f s — %.2f scènes/s, %.2f Mpixel/s%n",
+                done, scenes.size(), seconds,
+                done / Math.max(seconds, 1e-9),
+                pixels.get() / 1e6 / Math.max(seconds, 1e-9));
+        out.println(SceneLoader.isIsolatedParsing() ? "Analyse des scènes : isolée, en parallèle"
+                : "Analyse des scènes : une à la fois (verrou global)");
+        out.println(service.getMetrics().summary());
+        return failures == 0 ? 0 : 1;
+    }
+
+    private boolean renderOne(RenderService service, Path scenePath, Path dest,
+                              CompletableFuture<ParsedScene> parse, AtomicLong pixels) {
+        long t0 = System.nanoTime();
+        try {
+            ParsedScene parsed;
+            try {
+                parsed = parse.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            }
+            Scene scene = parsed.getScene();
+            int w = scene.getWidth();
+            int h = scene.getHeight();
+            RenderOptions opts = RenderService.copyOptions(baseOptions);
+            opts.threadCount = threadsPerScene;
+
+            Path dir = dest.getParent();
+            if (dir != null) Files.createDirectories(dir);
+            if (streamAbovePixels >= 0 && (long) w * h >= streamAbovePixels) {
+                renderStreamed(service, scene, w, h, opts, dest);
+            } else {
+                BufferedImage img = service.renderAndWait(scene, scene.getCamera(), w, h, opts);
+                ImageExporter.export(img, dest, pngLevel, null);
+            }
+            pixels.addAndGet((long) w * h);
+            int warnings = parsed.getWarnings().size();
+            out.printf(Locale.US, "OK     %s -> %s (%dx%d, %d ms%s)%n", scenePath, dest, w, h,
+                    (System.nanoTime() - t0) / 1_000_000, warnings > 0 ? ", " + warnings + " warning(s)" : "");
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            String msg = e.getMessage();
+            if (msg == null || msg.isEmpty()) msg = e.toString();
+            out.printf("ECHEC  %s : %s%n", scenePath, msg);
+            return false;
+        }
+    }
+
+    private void renderStreamed(RenderService service, Scene scene, int w, int h, RenderOptions opts, Path dest)
+            throws Exception {
+        TileStreamWriter sink = new TileStreamWriter(dest, w, h, pngLevel, 0, null, null);
+        CompletableFuture<Path> job = service.renderToFile(scene, scene.getCamera(), w, h, opts, sink);
+        try {
+            job.get();
+        } catch (InterruptedException e) {
+            job.cancel(false);
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * Analyses lancées à la demande, chacune une seule fois. Une analyse
+     * reprise par son rendu est oubliée ici, pour que la scène ne reste pas
+     * en mémoire jusqu'à la fin du lot.
+     */
+    private static final class Prefetch {
+        private final SceneParseService parser;
+        private final List<Path> scenes;
+        private final List<CompletableFuture<ParsedScene>> parses;
+        private final boolean[] taken;
+
+        Prefetch(SceneParseService parser, List<Path> scenes) {
+            this.parser = parser;
+            this.scenes = scenes;
+            this.parses = new ArrayList<>(Collections.nCopies(scenes.size(), null));
+            this.taken = new boolean[scenes.size()];
+        }
+
+        /** Lance l'analyse de la scène {@code i} si elle n'a pas encore commencé. */
+        synchronized void start(int i) {
+            if (i < scenes.size() && !taken[i] && parses.get(i) == null) parses.set(i, parser.submit(scenes.get(i)));
+        }
+
+        /** Analyse de la scène {@code i}, lancée au besoin, pour son rendu. */
+        synchronized CompletableFuture<ParsedScene> take(int i) {
+            start(i);
+            taken[i] = true;
+            return parses.set(i, null);
+        }
+    }
+
+    private Path outputFor(Path scenePath, Path relativeName) {
+        String name = scenePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String png = (dot > 0 ? name.substring(0, dot) : name) + ".png";
+        if (outDir == null) return scenePath.toAbsolutePath().resolveSibling(png);
+        Path parent = relativeName.getParent();
+        return (parent != null ? outDir.resolve(parent) : outDir).resolve(png);
+    }
+
+    /**
+     * Dossier dont les chemins des scènes trouvées par {@code input} sont
+     * reproduits sous {@code --out} : le dossier lui-même, la partie fixe
+     * d'un glob, ou null pour un fichier.
+     */
+    static Path rootOf(String input) {
+        if (isGlob(input)) return globBase(input.replace('\\', '/'));
+        Path p = Paths.get(input);
+        return Files.isDirectory(p) ? p : null;
+    }
+
+    /**
+     * Résout un argument en liste de fichiers : fichier, dossier (fichiers
+     * {@code .scene} directs) ou motif glob (ex. {@code scenes/**.scene}).
+     */
+    static List<Path> collectScenes(String input) throws IOException {
+        List<Path> found = new ArrayList<>();
+        if (!isGlob(input)) {
+            Path p = Paths.get(input);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> s = Files.list(p)) {
+                    s.filter(f -> Files.isRegularFile(f) && f.getFileName().toString().endsWith(".scene"))
+                            .sorted()
+                            .forEach(found::add);
+                }
+            } else if (Files.isRegularFile(p)) {
+                found.add(p);
+            } else {
+                throw new IOException("introuvable : " + input);
+            }
+            return found;
+        }
+
+        String normalized = input.replace('\\', '/');
+        Path base = globBase(normalized);
+        String pattern = normalized.lastIndexOf('/', indexOfGlobChar(normalized)) < 0
+                ? "./" + normalized : normalized;
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        if (!Files.isDirectory(base)) return found;
+        try (Stream<Path> s = Files.walk(base)) {
+            s.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .forEach(found::add);
+        }
+        return found;
+    }
+
+    // plus long préfixe du chemin sans caractère de glob
+    private static Path globBase(String normalized) {
+        int lastSep = normalized.lastIndexOf('/', indexOfGlobChar(normalized));
+        return lastSep < 0 ? Paths.get(".") : Paths.get(normalized.substring(0, Math.max(1, lastSep)));
+    }
+
+    private static boolean isGlob(String s) {
+        return indexOfGlobChar(s) >= 0;
+    }
+
+    private static int indexOfGlobChar(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,155 @@
+package shapes_3d.cli;
+
+import ray_tracer.geometry.Point;
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+import shapes_3d.renderer.CameraOrbit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trajectoires de caméra pour les séquences d'images, construites avec
+ * l'orbite sphérique de {@link CameraOrbit#orbit} : mêmes conventions
+ * d'angles que la navigation au clavier. Le roulis des caméras données
+ * (vecteur « haut » hors du plan vertical) est conservé ou interpolé.
+ */
+public final class CameraPath {
+
+    private CameraPath() {}
+
+    /**
+     * Tour complet (ou partiel) autour du point visé.
+     * Pour un tour de 360°, la dernière image précède la première d'un pas :
+     * la séquence boucle sans image en double.
+     *
+     * @param degrees   rotation totale autour de l'axe vertical
+     * @param tiltDegrees variation totale de l'angle polaire
+     * @param zoom      facteur de distance atteint à la fin de la séquence
+     */
+    public static List<Camera> turntable(Camera base, int frames, double degrees, double tiltDegrees, double zoom) {
+        if (frames <= 0) throw new IllegalArgumentException("nombre d'images invalide : " + frames);
+        if (zoom <= 0) throw new IllegalArgumentException("zoom invalide : " + zoom);
+        boolean loop = Math.abs(Math.abs(degrees) - 360) < 1e-9 && tiltDegrees == 0 && zoom == 1;
+        int steps = loop || frames == 1 ? frames : frames - 1;
+        double roll = CameraOrbit.roll(base);
+        List<Camera> poses = new ArrayList<>(frames);
+        for (int i = 0; i < frames; i++) {
+            double t = (double) i / steps;
+            poses.add(CameraOrbit.withRoll(CameraOrbit.orbit(base, Math.toRadians(degrees) * t,
+                    Math.toRadians(tiltDegrees) * t, Math.pow(zoom, t)), roll));
+        }
+        return poses;
+    }
+
+    /**
+     * Interpole {@code frames} poses le long des images clés, à vitesse
+     * constante entre deux clés consécutives. Le point visé et le champ de
+     * vision sont interpolés linéairement, la position en coordonnées
+     * sphériques autour du point visé et le roulis angulairement (plus court
+     * chemin en azimut comme en roulis).
+     */
+    public static List<Camera> keyframes(List<Camera> keys, int frames) {
+        if (keys.isEmpty()) throw new IllegalArgumentException("aucune image clé");
+        if (frames <= 0) throw new IllegalArgumentException("nombre d'images invalide : " + frames);
+        for (Camera key : keys) {
+            if (key.getLookFrom().subtraction(key.getLookAt()).norm() == 0) {
+                throw new IllegalArgumentException("image clé avec l'œil sur le point visé : " + key.getLookFrom());
+            }
+        }
+        List<Camera> poses = new ArrayList<>(frames);
+        int segments = keys.size() - 1;
+        for (int i = 0; i < frames; i++) {
+            if (segments == 0) {
+                poses.add(keys.get(0));
+                continue;
+            }
+            double u = frames == 1 ? 0 : (double) i * segments / (frames - 1);
+            int seg = Math.min((int) u, segments - 1);
+            poses.add(between(keys.get(seg), keys.get(seg + 1), u - seg));
+        }
+        return poses;
+    }
+
+    private static Camera between(Camera a, Camera b, double t) {
+        Point atA = a.getLookAt();
+        Point atB = b.getLookAt();
+        double[] sa = spherical(a.getLookFrom().subtraction(atA));
+        double[] sb = spherical(b.getLookFrom().subtraction(atB));
+
+        double dPhi = shortest(sb[2] - sa[2]);
+        double rollA = CameraOrbit.roll(a);
+        double dRoll = shortest(CameraOrbit.roll(b) - rollA);
+
+        // start pose: a's offset around the interpolated target, with the interpolated fov;
+        // its up vector is rebuilt by orbit(), then rolled
+        double ax = atA.getX() + (atB.getX() - atA.getX()) * t;
+        double ay = atA.getY() + (atB.getY() - atA.getY()) * t;
+        double az = atA.getZ() + (atB.getZ() - atA.getZ()) * t;
+        Vector offset = a.getLookFrom().subtraction(atA);
+        double fov = a.getFov() + (b.getFov() - a.getFov()) * t;
+        Camera start = new Camera(ax + offset.getX(), ay + offset.getY(), az + offset.getZ(),
+                ax, ay, az, 0, 1, 0, fov);
+        Camera pose = CameraOrbit.orbit(start, dPhi * t, (sb[1] - sa[1]) * t, Math.pow(sb[0] / sa[0], t));
+        return CameraOrbit.withRoll(pose, rollA + dRoll * t);
+    }
+
+    private static double shortest(double angle) {
+        if (angle > Math.PI) angle -= 2 * Math.PI;
+        if (angle < -Math.PI) angle += 2 * Math.PI;
+        return angle;
+    }
+
+    // {r, theta, phi} with the conventions of CameraOrbit.orbit
+    private static double[] spherical(Vector v) {
+        double r = v.norm();
+        return new double[] { r, Math.acos(v.getY() / r), Math.atan2(v.getZ(), v.getX()) };
+    }
+
+    /**
+     * Lit un fichier d'images clés : une caméra par ligne, dans le format de
+     * la directive {@code camera} des scènes (10 nombres, mot-clé facultatif).
+     * Les lignes vides et les commentaires ({@code #}) sont ignorés. L'œil
+     * doit être distinct du point visé, et le vecteur haut non nul et non
+     * parallèle à l'axe de visée.
+     */
+    public static List<Camera> readKeyframes(Path file) throws IOException {
+        List<Camera> keys = new ArrayList<>();
+        int lineNo = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            lineNo++;
+            String s = line.trim();
+            if (s.isEmpty() || s.startsWith("#")) continue;
+            if (s.startsWith("camera")) s = s.substring("camera".length()).trim();
+            String[] parts = s.split("\\s+");
+            if (parts.length != 10) {
+                throw new IOException(file + ":" + lineNo + " : 10 nombres attendus, " + parts.length + " trouvés");
+            }
+            double[] v = new double[10];
+            try {
+                for (int i = 0; i < 10; i++) v[i] = Double.parseDouble(parts[i]);
+            } catch (NumberFormatException e) {
+                throw new IOException(file + ":" + lineNo + " : nombre invalide", e);
+            }
+            double dx = v[3] - v[0];
+            double dy = v[4] - v[1];
+            double dz = v[5] - v[2];
+            if (dx == 0 && dy == 0 && dz == 0) {
+                throw new IOException(file + ":" + lineNo + " : l'œil et le point visé sont confondus");
+            }
+            // up x view direction: zero if up is null or along the view
+            double cx = v[7] * dz - v[8] * dy;
+            double cy = v[8] * dx - v[6] * dz;
+            double cz = v[6] * dy - v[7] * dx;
+            if (cx * cx + cy * cy + cz * cz < 1e-18 * (dx * dx + dy * dy + dz * dz)) {
+                throw new IOException(file + ":" + lineNo + " : vecteur haut nul ou parallèle à l'axe de visée");
+            }
+            keys.add(new Camera(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9]));
+        }
+        return keys;
+    }
+}
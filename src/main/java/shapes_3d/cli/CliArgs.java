@@ -0,0 +1,71 @@
+package shapes_3d.cli;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Analyse minimale des arguments de la ligne de commande :
+ * options de la forme {@code --nom valeur} et arguments positionnels.
+ */
+public final class CliArgs {
+
+    private final Map<String, String> options = new HashMap<>();
+    private final List<String> positional = new ArrayList<>();
+
+    private CliArgs() {}
+
+    public static CliArgs parse(String[] args, int from) {
+        CliArgs parsed = new CliArgs();
+        for (int i = from; i < args.length; i++) {
+            String a = args[i];
+            if (a.startsWith("--") && a.length() > 2) {
+                String name = a.substring(2);
+                int eq = name.indexOf('=');
+                if (eq >= 0) {
+                    parsed.options.put(name.substring(0, eq), name.substring(eq + 1));
+                } else if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                    parsed.options.put(name, args[++i]);
+                } else {
+                    parsed.options.put(name, "true");
+                }
+            } else {
+                parsed.positional.add(a);
+            }
+        }
+        return parsed;
+    }
+
+    public List<String> positional() {
+        return positional;
+    }
+
+    public boolean has(String name) {
+        return options.containsKey(name);
+    }
+
+    public String get(String name, String def) {
+        return options.getOrDefault(name, def);
+    }
+
+    public int getInt(String name, int def) {
+        String v = options.get(name);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " attend un entier : " + v);
+        }
+    }
+
+    public double getDouble(String name, double def) {
+        String v = options.get(name);
+        if (v == null) return def;
+        try {
+            return Double.parseDouble(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " attend un nombre : " + v);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package shapes_3d.cli;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.parsing.ParsedScene;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.ImageExporter;
+import shapes_3d.renderer.RenderPriority;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur HTTP local de rendu ({@code com.sun.net.httpserver}), sans interface graphique.
+ * <p>
+ * {@code POST /render} : le corps est le texte de la scène, la réponse l'image
+ * PNG. Paramètres de requête optionnels : {@code width}, {@code height},
+ * {@code spp}, {@code maxDepth}, {@code tile}, {@code pngLevel} et
+ * {@code camera=lfx,lfy,lfz,lax,lay,laz,upx,upy,upz,fov}.
+ * <p>
+ * Au plus {@code --concurrency} rendus tournent en même temps et
+ * {@code --queue} requêtes attendent leur tour ; au-delà la requête est
+ * refusée aussitôt (429). Une requête qui dépasse son délai, en attente ou
+ * en cours de rendu, est annulée (504). {@code GET /health} et
+ * {@code GET /metrics} décrivent l'état du serveur.
+ */
+public final class RenderServer {
+
+    private static final int DEFAULT_PORT = 8080;
+
+    private final HttpServer http;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final RenderService service;
+    private final SceneLoader sceneLoader = new SceneLoader(16);
+    private final int concurrency;
+    private final int queueSize;
+    // admitted requests (running + waiting); the rest get 429
+    private final Semaphore admission;
+    private final Semaphore running;
+    private final long timeoutNanos;
+    private final RenderOptions defaults;
+    private final int pngLevel;
+    private final int maxBodyBytes;
+    private final long maxPixels;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public RenderServer(InetSocketAddress address, RenderService service, int concurrency, int queueSize,
+                        long timeoutMillis, RenderOptions defaults, int pngLevel,
+                        int maxBodyBytes, long maxPixels) throws IOException {
+        this.service = service;
+        this.concurrency = Math.max(1, concurrency);
+        this.queueSize = Math.max(0, queueSize);
+        this.admission = new Semaphore(this.concurrency + this.queueSize);
+        this.running = new Semaphore(this.concurrency, true);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, timeoutMillis));
+        this.defaults = defaults;
+        this.pngLevel = pngLevel;
+        this.maxBodyBytes = maxBodyBytes;
+        this.maxPixels = maxPixels;
+
+        this.http = HttpServer.create(address, 0);
+        http.setExecutor(handlers);
+        http.createContext("/render", this::handleRender);
+        http.createContext("/health", this::handleHealth);
+        http.createContext("/metrics", this::handleMetrics);
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage : server [options]");
+        out.println("  --host <adresse>     adresse d'écoute (défaut 127.0.0.1)");
+        out.println("  --port <n>           port (défaut " + DEFAULT_PORT + ", 0 = port libre)");
+        out.println("  --concurrency <n>    rendus simultanés (défaut 2)");
+        out.println("  --queue <n>          requêtes en attente avant refus 429 (défaut 8)");
+        out.println("  --timeout-ms <n>     délai par requête, attente comprise (défaut 60000)");
+        out.println("  --threads <n>        threads de rendu (défaut : nombre de cœurs)");
+        out.println("  --spp <n>            échantillons par pixel par défaut (défaut 10)");
+        out.println("  --max-depth <n>      profondeur de récursion par défaut (défaut 5)");
+        out.println("  --tile <n>           taille des tuiles par défaut (défaut 64)");
+        out.println("  --png-level <0-9>    compression PNG par défaut (défaut " + ImageExporter.DEFAULT_PNG_COMPRESSION + ")");
+        out.println("  --max-body-kb <n>    taille maximale d'une scène (défaut 16384)");
+        out.println("  --max-pixels <n>     largeur x hauteur maximale (défaut 33177600, soit 8K)");
+    }
+
+    /**
+     * Point d'entrée du mode server : bloque jusqu'à l'arrêt du processus.
+     * @return code de sortie du processus
+     */
+    public static int run(CliArgs args) {
+        String host = args.get("host", "127.0.0.1");
+        int port = args.getInt("port", DEFAULT_PORT);
+        int threads = args.getInt("threads", Runtime.getRuntime().availableProcessors());
+
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = args.getInt("spp", 10);
+        opts.maxDepth = args.getInt("max-depth", 5);
+        opts.tileSize = args.getInt("tile", 64);
+        opts.threadCount = threads;
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+
+        RenderService service = new RenderService(threads);
+        RenderServer server;
+        try {
+            server = new RenderServer(new InetSocketAddress(host, port), service,
+                    args.getInt("concurrency", 2), args.getInt("queue", 8),
+                    args.getInt("timeout-ms", 60_000), opts,
+                    args.getInt("png-level", ImageExporter.DEFAULT_PNG_COMPRESSION),
+                    args.getInt("max-body-kb", 16 * 1024) * 1024,
+                    Long.parseLong(args.get("max-pixels", "33177600")));
+        } catch (IOException e) {
+            service.shutdown();
+            System.err.println("Impossible d'ouvrir " + host + ":" + port + " : " + e.getMessage());
+            return 1;
+        }
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            service.shutdown();
+            stopped.countDown();
+        }, "render-server-shutdown"));
+        server.start();
+        InetSocketAddress bound = server.getAddress();
+        System.out.printf(Locale.US, "Serveur de rendu à l'écoute sur http://%s:%d/ (%d rendu(s) simultané(s), file de %d)%n",
+                bound.getHostString(), bound.getPort(), server.concurrency, server.queueSize);
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return 0;
+    }
+
+    public void start() {
+        http.start();
+    }
+
+    /** Arrête d'accepter des requêtes ; les échanges en cours ont {@code delaySeconds} pour finir. */
+    public void stop(int delaySeconds) {
+        http.stop(delaySeconds);
+        handlers.shutdownNow();
+    }
+
+    /** Adresse effective (utile avec le port 0). */
+    public InetSocketAddress getAddress() {
+        return http.getAddress();
+    }
+
+    // --- handlers ---
+
+    private void handleRender(HttpExchange ex) throws IOException {
+        try (ex) {
+            if (!"POST".equalsIgnoreCase(ex.getRequestMethod())) {
+                ex.getResponseHeaders().set("Allow", "POST");
+                sendText(ex, 405, "POST attendu, avec le texte de la scène en corps de requête");
+                return;
+            }
+            if (!admission.tryAcquire()) {
+                rejected.incrementAndGet();
+                ex.getResponseHeaders().set("Retry-After", "1");
+                sendText(ex, 429, "File de rendu pleine, réessayer plus tard");
+                return;
+            }
+            try {
+                serveRender(ex, System.nanoTime() + timeoutNanos);
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    private void serveRender(HttpExchange ex, long deadline) throws IOException {
+        long t0 = System.nanoTime();
+        Map<String, String> query = parseQuery(ex.getRequestURI());
+        String text = readBody(ex.getRequestBody());
+        if (text == null) {
+            sendText(ex, 413, "Scène trop volumineuse (max " + maxBodyBytes / 1024 + " Kio)");
+            return;
+        }
+
+        ParsedScene parsed;
+        try {
+            parsed = sceneLoader.parseText(text);
+        } catch (Exception e) {
+            sendText(ex, 400, "Scène invalide : " + message(e));
+            return;
+        }
+        Scene scene = parsed.getScene();
+        Camera camera;
+        int width;
+        int height;
+        RenderOptions opts = RenderService.copyOptions(defaults);
+        int level;
+        try {
+            camera = query.containsKey("camera") ? parseCamera(query.get("camera")) : parsed.getCamera();
+            width = intParam(query, "width", scene.getWidth());
+            height = intParam(query, "height", scene.getHeight());
+            opts.samplesPerPixel = intParam(query, "spp", opts.samplesPerPixel);
+            opts.maxDepth = intParam(query, "maxDepth", opts.maxDepth);
+            opts.tileSize = intParam(query, "tile", opts.tileSize);
+            level = intParam(query, "pngLevel", pngLevel);
+            if (width <= 0 || height <= 0) throw new IllegalArgumentException("taille invalide : " + width + "x" + height);
+            if ((long) width * height > maxPixels) {
+                throw new IllegalArgumentException("image trop grande : " + width + "x" + height + " (max " + maxPixels + " pixels)");
+            }
+            if (opts.samplesPerPixel <= 0 || opts.maxDepth < 0 || opts.tileSize <= 0) {
+                throw new IllegalArgumentException("options de rendu invalides");
+            }
+        } catch (IllegalArgumentException e) {
+            sendText(ex, 400, e.getMessage());
+            return;
+        }
+
+        BufferedImage img;
+        try {
+            if (!running.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                timedOut.incrementAndGet();
+                sendText(ex, 504, "Délai dépassé en file d'attente");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendText(ex, 503, "Serveur en cours d'arrêt");
+            return;
+        }
+        try {
+            // behind the previews and refinement passes of a GUI sharing the service
+            CompletableFuture<BufferedImage> job = service.submit(scene, camera, width, height, opts,
+                    RenderPriority.BATCH, null);
+            try {
+                img = job.get(remaining(deadline), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                job.cancel(false);
+                timedOut.incrementAndGet();
+                sendText(ex, 504, "Délai de rendu dépassé");
+                return;
+            } catch (InterruptedException e) {
+                job.cancel(false);
+                Thread.currentThread().interrupt();
+                sendText(ex, 503, "Serveur en cours d'arrêt");
+                return;
+            } catch (CancellationException e) {
+                sendText(ex, 503, "Rendu annulé");
+                return;
+            } catch (ExecutionException e) {
+                failed.incrementAndGet();
+                sendText(ex, 500, "Échec du rendu : " + message(e.getCause() != null ? e.getCause() : e));
+                return;
+            }
+        } finally {
+            running.release();
+        }
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(Math.max(1024, width * height / 2));
+        ImageExporter.writePng(img, png, level);
+        completed.incrementAndGet();
+        ex.getResponseHeaders().set("Content-Type", "image/png");
+        ex.getResponseHeaders().set("X-Render-Time-Ms", Long.toString((System.nanoTime() - t0) / 1_000_000));
+        ex.getResponseHeaders().set("X-Scene-Warnings", Integer.toString(parsed.getWarnings().size()));
+        ex.sendResponseHeaders(200, png.size());
+        try (OutputStream out = ex.getResponseBody()) {
+            png.writeTo(out);
+        }
+    }
+
+    private void handleHealth(HttpExchange ex) throws IOException {
+        try (ex) {
+            int active = concurrency - running.availablePermits();
+            int admitted = concurrency + queueSize - admission.availablePermits();
+            String json = String.format(Locale.US,
+                    "{\"status\":\"ok\",\"running\":%d,\"queued\":%d,\"concurrency\":%d,\"queueSize\":%d,"
+                            + "\"completed\":%d,\"rejected\":%d,\"timedOut\":%d,\"failed\":%d}",
+                    active, Math.max(0, admitted - active), concurrency, queueSize,
+                    completed.get(), rejected.get(), timedOut.get(), failed.get());
+            send(ex, 200, "application/json", json);
+        }
+    }
+
+    private void handleMetrics(HttpExchange ex) throws IOException {
+        try (ex) {
+            sendText(ex, 200, service.getMetrics().summary());
+        }
+    }
+
+    // --- helpers ---
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /** Corps de la requête en UTF-8, ou null s'il dépasse la taille maximale. */
+    private String readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            if (buf.size() + n > maxBodyBytes) return null;
+            buf.write(chunk, 0, n);
+        }
+        return buf.toString(StandardCharsets.UTF_8);
+    }
+
+    static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int def) {
+        String v = query.get(name);
+        if (v == null) return def;
+        try {
+            return Integer.parseInt(v.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("paramètre " + name + " : entier attendu, reçu '" + v + "'");
+        }
+    }
+
+    static Camera parseCamera(String spec) {
+        String[] parts = spec.split("[,\\s]+");
+        if (parts.length != 10) {
+            throw new IllegalArgumentException("camera : 10 nombres attendus (lookFrom, lookAt, up, fov), reçu " + parts.length);
+        }
+        double[] v = new double[10];
+        for (int i = 0; i < 10; i++) {
+            try {
+                v[i] = Double.parseDouble(parts[i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("camera : nombre invalide '" + parts[i] + "'");
+            }
+        }
+        return new Camera(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9]);
+    }
+
+    private static void sendText(HttpExchange ex, int status, String body) throws IOException {
+        send(ex, status, "text/plain; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange ex, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", contentType);
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String message(Throwable e) {
+        String msg = e.getMessage();
+        return msg == null || msg.isEmpty() ? e.toString() : msg;
+    }
+}
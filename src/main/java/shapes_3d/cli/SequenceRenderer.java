@@ -0,0 +1,223 @@
+package shapes_3d.cli;
+
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.ImageExporter;
+import shapes_3d.renderer.RenderPriority;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rendu d'une séquence d'images (tour de table ou trajectoire par images
+ * clés) en fichiers numérotés {@code <prefix>0001.png}...
+ * <p>
+ * Deux étages se recouvrent : {@code --jobs} images sont rendues en même
+ * temps pendant que {@code --encoders} threads encodent les images déjà
+ * terminées. Le nombre d'images en mémoire est borné. Les images déjà
+ * présentes sur le disque sont sautées : relancer la même commande reprend
+ * une séquence interrompue.
+ */
+public final class SequenceRenderer {
+
+    private final Scene scene;
+    private final List<Camera> poses;
+    private final Path outDir;
+    private final String prefix;
+    private final int jobs;
+    private final int threadsPerFrame;
+    private final int encoders;
+    private final RenderOptions baseOptions;
+    private final int pngLevel;
+    private final PrintStream out;
+
+    public SequenceRenderer(Scene scene, List<Camera> poses, Path outDir, String prefix, int jobs,
+                            int threadsPerFrame, int encoders, RenderOptions baseOptions, int pngLevel,
+                            PrintStream out) {
+        this.scene = scene;
+        this.poses = poses;
+        this.outDir = outDir;
+        this.prefix = prefix;
+        this.jobs = Math.max(1, jobs);
+        this.threadsPerFrame = Math.max(1, threadsPerFrame);
+        this.encoders = Math.max(1, encoders);
+        this.baseOptions = baseOptions;
+        this.pngLevel = pngLevel;
+        this.out = out;
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage : sequence <fichier.scene> --frames <n> [options]");
+        out.println("  --frames <n>         nombre d'images (défaut 36)");
+        out.println("  --degrees <d>        rotation totale autour du point visé (défaut 360)");
+        out.println("  --tilt <d>           variation totale de l'élévation (défaut 0)");
+        out.println("  --zoom <f>           facteur de distance en fin de séquence (défaut 1)");
+        out.println("  --keyframes <fich>   trajectoire par images clés (une ligne camera par clé)");
+        out.println("  --out <dossier>      dossier de sortie (défaut : <scène>_frames)");
+        out.println("  --prefix <texte>     préfixe des fichiers (défaut frame_)");
+        out.println("  --jobs <n>           images rendues en parallèle");
+        out.println("  --threads <n>        threads de rendu par image");
+        out.println("  --encoders <n>       threads d'encodage PNG (défaut 2)");
+        out.println("  --spp, --max-depth, --tile, --png-level : comme en mode batch");
+    }
+
+    /**
+     * Point d'entrée du mode sequence.
+     * @return code de sortie du processus
+     */
+    public static int run(CliArgs args) {
+        if (args.positional().size() != 1) {
+            printUsage(System.err);
+            return 2;
+        }
+        Path scenePath = Paths.get(args.positional().get(0));
+        Scene scene;
+        try {
+            scene = SceneLoader.parseFileUncached(scenePath).getScene();
+        } catch (Exception e) {
+            System.err.println("Impossible de lire " + scenePath + " : " + e.getMessage());
+            return 1;
+        }
+        if (scene == null || scene.getCamera() == null) {
+            System.err.println("Scène sans caméra : " + scenePath);
+            return 1;
+        }
+
+        int frames = args.getInt("frames", 36);
+        List<Camera> poses;
+        if (args.has("keyframes")) {
+            try {
+                poses = CameraPath.keyframes(CameraPath.readKeyframes(Paths.get(args.get("keyframes", ""))), frames);
+            } catch (IOException e) {
+                System.err.println("Images clés illisibles : " + e.getMessage());
+                return 2;
+            }
+        } else {
+            poses = CameraPath.turntable(scene.getCamera(), frames, args.getDouble("degrees", 360),
+                    args.getDouble("tilt", 0), args.getDouble("zoom", 1));
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int jobs = args.getInt("jobs", Math.max(1, Math.min(frames, cores / 2)));
+        int threads = args.getInt("threads", Math.max(1, cores / jobs));
+
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = args.getInt("spp", 10);
+        opts.maxDepth = args.getInt("max-depth", 5);
+        opts.tileSize = args.getInt("tile", 64);
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+
+        String name = scenePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path defaultOut = scenePath.toAbsolutePath().resolveSibling((dot > 0 ? name.substring(0, dot) : name) + "_frames");
+        Path outDir = Paths.get(args.get("out", defaultOut.toString()));
+
+        return new SequenceRenderer(scene, poses, outDir, args.get("prefix", "frame_"), jobs, threads,
+                args.getInt("encoders", 2), opts,
+                args.getInt("png-level", ImageExporter.DEFAULT_PNG_COMPRESSION), System.out).renderAll();
+    }
+
+    /**
+     * Rend les images manquantes de la séquence.
+     * @return 0 si toutes les images sont sur le disque, 1 sinon
+     */
+    public int renderAll() {
+        try {
+            Files.createDirectories(outDir);
+        } catch (IOException e) {
+            out.println("Impossible de créer " + outDir + " : " + e.getMessage());
+            return 1;
+        }
+        int width = scene.getWidth();
+        int height = scene.getHeight();
+        int digits = Math.max(4, Integer.toString(poses.size()).length());
+        out.printf(Locale.US, "%d image(s) %dx%d vers %s, %d en parallèle, %d thread(s) par image, %d encodeur(s)%n",
+                poses.size(), width, height, outDir, jobs, threadsPerFrame, encoders);
+
+        RenderService service = new RenderService(jobs * threadsPerFrame);
+        ImageExporter exporter = new ImageExporter(encoders);
+        // renders in flight, and frames held in memory (rendering or waiting for the encoder)
+        Semaphore rendering = new Semaphore(jobs);
+        Semaphore inMemory = new Semaphore(jobs + 2 * encoders);
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        int skipped = 0;
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < poses.size(); i++) {
+                Path dest = outDir.resolve(String.format("%s%0" + digits + "d.png", prefix, i + 1));
+                if (isComplete(dest)) {
+                    skipped++;
+                    continue;
+                }
+                inMemory.acquire();
+                rendering.acquire();
+                RenderOptions opts = RenderService.copyOptions(baseOptions);
+                opts.threadCount = threadsPerFrame;
+                long t0 = System.nanoTime();
+                CompletableFuture<BufferedImage> frame = service.submit(scene, poses.get(i), width, height, opts,
+                        RenderPriority.BATCH, null);
+                pending.add(frame
+                        .whenComplete((img, err) -> rendering.release())
+                        .thenCompose(img -> exporter.exportAsync(img, dest, pngLevel, null))
+                        .whenComplete((path, err) -> {
+                            inMemory.release();
+                            if (err == null) {
+                                written.incrementAndGet();
+                                out.printf(Locale.US, "OK     %s (%d ms)%n", dest.getFileName(),
+                                        (System.nanoTime() - t0) / 1_000_000);
+                            } else {
+                                failures.incrementAndGet();
+                                Throwable cause = err.getCause() != null ? err.getCause() : err;
+                                out.printf("ECHEC  %s : %s%n", dest.getFileName(), cause);
+                            }
+                        }));
+            }
+            for (CompletableFuture<?> f : pending) {
+                try {
+                    f.join();
+                } catch (Exception ignored) {
+                    // counted in the completion handler
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (CompletableFuture<?> f : pending) f.cancel(false);
+            out.println("Interrompu : relancer la commande pour reprendre.");
+            return 1;
+        } finally {
+            service.shutdown();
+            exporter.shutdown();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int done = written.get();
+        out.printf(Locale.US, "Terminé : %d image(s) rendue(s), %d déjà présente(s), %d échec(s) en %.2f s — %.1f images/min%n",
+                done, skipped, failures.get(), seconds, done * 60.0 / Math.max(seconds, 1e-9));
+        return failures.get() == 0 ? 0 : 1;
+    }
+
+    // exports are written to a .part file and moved into place: an existing file is complete
+    private static boolean isComplete(Path dest) {
+        try {
+            return Files.isRegularFile(dest) && Files.size(dest) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
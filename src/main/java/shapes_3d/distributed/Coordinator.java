@@ -0,0 +1,477 @@
+package shapes_3d.distributed;
+
+import shapes_3d.cli.CliArgs;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.ImageExporter;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinateur d'un rendu réparti sur plusieurs processus {@link RenderWorker}.
+ * <p>
+ * Le renderer ne sait pas rendre une sous-région exacte de l'image : le
+ * travail est donc découpé en tranches d'échantillons. Chaque unité rend
+ * l'image entière avec une part des {@code spp} échantillons par pixel, et
+ * le coordinateur fait la moyenne pondérée des résultats. Il y a plus
+ * d'unités que de workers, pour que les plus rapides en prennent davantage.
+ * <p>
+ * Un découpage en régions d'écran ne ferait pas mieux : seules les fenêtres
+ * centrées se rendent exactement ({@link shapes_3d.renderer.RegionWindow}),
+ * si bien que toute unité qui touche un coin rend l'image entière, et des
+ * anneaux concentriques coûteraient la somme des aires de leurs fenêtres.
+ * La moyenne suppose que deux rendus tirent des échantillons indépendants :
+ * deux tranches identiques sont signalées.
+ * <p>
+ * Le renderer ne livre que des pixels 8 bits, encodés en gamma et bornés à
+ * [0, 1]. Les tranches sont décodées en lumière linéaire avant la moyenne,
+ * ce qui retire le biais du gamma, mais l'écrêtage reste : là où une tranche
+ * sature (hautes lumières) ou varie beaucoup, l'image fusionnée n'est
+ * qu'une approximation d'un rendu à {@code spp} échantillons, un peu plus
+ * sombre et moins saturée. L'écart diminue avec le nombre d'échantillons
+ * par tranche : par défaut, deux tranches seulement par worker. Avec moins d'unités que de
+ * workers ({@code --spp 1} par exemple), les workers en trop ne font que
+ * doubler les unités en cours.
+ * <p>
+ * Une unité est réémise si son worker meurt, se tait plus de
+ * {@code --stall-ms} (pas de signe de vie) ou dépasse {@code --unit-timeout-ms}.
+ * En fin de rendu, les workers inoccupés dupliquent les unités encore en
+ * cours ; le premier résultat l'emporte.
+ */
+public final class Coordinator {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int DEFAULT_SLICES_PER_WORKER = 2;
+    // 8-bit sRGB value -> linear light
+    private static final float[] TO_LINEAR = new float[256];
+
+    static {
+        for (int v = 0; v < 256; v++) {
+            double c = v / 255.0;
+            TO_LINEAR[v] = (float) (c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4));
+        }
+    }
+
+    private final String sceneText;
+    private final String sceneHash;
+    private final int width;
+    private final int height;
+    private final int maxDepth;
+    private final int tileSize;
+    private final List<InetSocketAddress> workers;
+    private final long stallMillis;
+    private final long unitTimeoutMillis;
+    private final PrintStream out;
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private final Deque<Unit> pending = new ArrayDeque<>();
+    private final List<Unit> issued = new ArrayList<>();
+    private int remaining;
+    private int liveWorkers;
+    private String fatal;
+
+    // linear-light sums of finished units weighted by their samples, guarded by sumR
+    private final float[] sumR;
+    private final float[] sumG;
+    private final float[] sumB;
+    private int totalSamples;
+    // first finished slice, compared with the next one of the same size; null once checked
+    private int[] firstSlice;
+    private int firstSliceSamples;
+    private boolean slicesChecked;
+
+    private static final class Unit {
+        final int id;
+        final int samples;
+        int copies;
+        int failures;
+        boolean done;
+
+        Unit(int id, int samples) {
+            this.id = id;
+            this.samples = samples;
+        }
+    }
+
+    public Coordinator(String sceneText, int width, int height, int samplesPerPixel, int maxDepth, int tileSize,
+                       int slices, List<InetSocketAddress> workers, long stallMillis, long unitTimeoutMillis,
+                       PrintStream out) {
+        this.sceneText = sceneText;
+        this.sceneHash = SceneLoader.hash(sceneText);
+        this.width = width;
+        this.height = height;
+        this.maxDepth = maxDepth;
+        this.tileSize = tileSize;
+        this.workers = workers;
+        this.stallMillis = Math.max(Protocol.HEARTBEAT_MILLIS * 3L, stallMillis);
+        this.unitTimeoutMillis = unitTimeoutMillis;
+        this.out = out;
+
+        int spp = Math.max(1, samplesPerPixel);
+        int n = Math.max(1, Math.min(slices, spp));
+        for (int i = 0; i < n; i++) {
+            pending.add(new Unit(i, spp / n + (i < spp % n ? 1 : 0)));
+        }
+        this.remaining = n;
+        this.slicesChecked = n < 2;
+        int pixels = width * height;
+        this.sumR = new float[pixels];
+        this.sumG = new float[pixels];
+        this.sumB = new float[pixels];
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage : distribute <fichier.scene> (--workers <hôte:port,...> | --spawn <n>) [options]");
+        out.println("  --workers <liste>    workers déjà lancés (mode worker)");
+        out.println("  --spawn <n>          lance n workers locaux le temps du rendu");
+        out.println("  --out <fichier>      image produite (défaut : <scène>.png)");
+        out.println("  --width, --height    taille de l'image (défaut : celle de la scène)");
+        out.println("  --spp <n>            échantillons par pixel, répartis entre les unités (défaut 10)");
+        out.println("  --slices <n>         nombre d'unités de travail, au plus --spp (défaut : 2 par worker) ;");
+        out.println("                       chaque unité rend l'image entière, --spp 1 n'est donc pas réparti ;");
+        out.println("                       la moyenne de tranches 8 bits n'approche qu'un rendu à --spp,");
+        out.println("                       d'autant mieux que chaque tranche a d'échantillons");
+        out.println("  --stall-ms <n>       silence au-delà duquel un worker est abandonné (défaut 10000)");
+        out.println("  --unit-timeout-ms <n> durée maximale d'une unité avant réémission (défaut : aucune)");
+        out.println("  --max-depth, --tile, --png-level : comme en mode batch");
+    }
+
+    /**
+     * Point d'entrée du mode distribute.
+     * @return code de sortie du processus
+     */
+    public static int run(CliArgs args) {
+        if (args.positional().size() != 1 || (!args.has("workers") && !args.has("spawn"))) {
+            printUsage(System.err);
+            return 2;
+        }
+        Path scenePath = Paths.get(args.positional().get(0));
+        String text;
+        int sceneWidth;
+        int sceneHeight;
+        try {
+            text = Files.readString(scenePath, StandardCharsets.UTF_8);
+            ray_tracer.parsing.Scene scene = SceneLoader.parseFileUncached(scenePath).getScene();
+            sceneWidth = scene.getWidth();
+            sceneHeight = scene.getHeight();
+        } catch (Exception e) {
+            System.err.println("Impossible de lire " + scenePath + " : " + e.getMessage());
+            return 1;
+        }
+
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String w : args.get("workers", "").split(",")) {
+            if (w.isBlank()) continue;
+            int colon = w.lastIndexOf(':');
+            if (colon < 0) throw new IllegalArgumentException("--workers attend hôte:port : " + w);
+            addresses.add(new InetSocketAddress(w.substring(0, colon).trim(),
+                    Integer.parseInt(w.substring(colon + 1).trim())));
+        }
+        List<Process> spawned = new ArrayList<>();
+        try {
+            int spawn = args.getInt("spawn", 0);
+            if (spawn > 0) {
+                int cores = Runtime.getRuntime().availableProcessors();
+                addresses.addAll(spawnLocalWorkers(spawn, Math.max(1, cores / spawn), spawned));
+            }
+            int spp = args.getInt("spp", 10);
+            Coordinator coordinator = new Coordinator(text,
+                    args.getInt("width", sceneWidth), args.getInt("height", sceneHeight),
+                    spp, args.getInt("max-depth", 5), args.getInt("tile", 64),
+                    args.getInt("slices", DEFAULT_SLICES_PER_WORKER * addresses.size()), addresses,
+                    args.getInt("stall-ms", 10_000), args.getInt("unit-timeout-ms", 0), System.out);
+
+            long t0 = System.nanoTime();
+            BufferedImage img = coordinator.render();
+            String name = scenePath.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            Path dest = Paths.get(args.get("out",
+                    scenePath.toAbsolutePath().resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".png").toString()));
+            dest = ImageExporter.export(img, dest,
+                    args.getInt("png-level", ImageExporter.DEFAULT_PNG_COMPRESSION), null);
+            System.out.printf(Locale.US, "Terminé : %s (%dx%d, %d spp, %d worker(s)) en %.2f s%n", dest,
+                    img.getWidth(), img.getHeight(), spp, addresses.size(), (System.nanoTime() - t0) / 1e9);
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Rendu réparti impossible : " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            for (Process p : spawned) stopProcess(p);
+        }
+    }
+
+    /**
+     * Rend l'image en répartissant les unités entre les workers.
+     * @throws IOException si aucun worker ne peut terminer le travail
+     */
+    public BufferedImage render() throws IOException, InterruptedException {
+        if (workers.isEmpty()) throw new IOException("aucun worker");
+        synchronized (lock) {
+            liveWorkers = workers.size();
+            if (remaining < workers.size()) {
+                out.printf("%d unité(s) pour %d worker(s) : les autres ne font que doubler les unités en cours"
+                        + " (augmenter --spp pour répartir davantage)%n", remaining, workers.size());
+            }
+        }
+        List<Thread> links = new ArrayList<>();
+        for (InetSocketAddress addr : workers) {
+            Thread t = new Thread(() -> runLink(addr), "coordinator-" + addr.getPort());
+            t.setDaemon(true);
+            links.add(t);
+            t.start();
+        }
+        synchronized (lock) {
+            while (remaining > 0 && fatal == null && liveWorkers > 0) lock.wait();
+            if (fatal != null) throw new IOException(fatal);
+            if (remaining > 0) throw new IOException("tous les workers ont été perdus, " + remaining + " unité(s) non rendue(s)");
+        }
+        for (Thread t : links) t.join(TimeUnit.SECONDS.toMillis(2));
+        return resolve();
+    }
+
+    // --- scheduling ---
+
+    /** Prochaine unité pour un worker libre, ou null quand tout est rendu. */
+    private Unit next() throws InterruptedException {
+        synchronized (lock) {
+            while (remaining > 0 && fatal == null) {
+                Unit u = pending.poll();
+                if (u == null) {
+                    // nothing left to hand out: duplicate a straggler still being rendered
+                    for (Unit candidate : issued) {
+                        if (!candidate.done && candidate.copies == 1) {
+                            u = candidate;
+                            break;
+                        }
+                    }
+                }
+                if (u != null) {
+                    if (u.copies == 0 && !issued.contains(u)) issued.add(u);
+                    u.copies++;
+                    return u;
+                }
+                lock.wait(200);
+            }
+            return null;
+        }
+    }
+
+    private void release(Unit u, String reason) {
+        synchronized (lock) {
+            u.copies--;
+            if (u.done || u.copies > 0) return;
+            if (++u.failures >= MAX_ATTEMPTS) {
+                fatal = "unité " + u.id + " en échec " + MAX_ATTEMPTS + " fois : " + reason;
+            } else {
+                issued.remove(u);
+                pending.addFirst(u);
+            }
+            lock.notifyAll();
+        }
+    }
+
+    private void complete(Unit u, int[] argb, String worker, long millis) {
+        synchronized (lock) {
+            u.copies--;
+            if (u.done) return;
+            u.done = true;
+        }
+        boolean identical = false;
+        synchronized (sumR) {
+            if (!slicesChecked) {
+                if (firstSlice == null) {
+                    firstSlice = argb.clone();
+                    firstSliceSamples = u.samples;
+                } else if (u.samples == firstSliceSamples) {
+                    identical = Arrays.equals(firstSlice, argb);
+                    firstSlice = null;
+                    slicesChecked = true;
+                }
+            }
+            for (int i = 0; i < argb.length; i++) {
+                int p = argb[i];
+                sumR[i] += TO_LINEAR[(p >> 16) & 0xFF] * u.samples;
+                sumG[i] += TO_LINEAR[(p >> 8) & 0xFF] * u.samples;
+                sumB[i] += TO_LINEAR[p & 0xFF] * u.samples;
+            }
+            totalSamples += u.samples;
+        }
+        synchronized (lock) {
+            remaining--;
+            lock.notifyAll();
+        }
+        out.printf(Locale.US, "OK     unité %d (%d spp) par %s en %d ms%n", u.id, u.samples, worker, millis);
+        if (identical) {
+            out.println("ATTENTION : deux unités ont rendu exactement la même image. Le renderer ne tire pas"
+                    + " ses échantillons au hasard, la moyenne n'apporte rien : relancer avec --slices 1.");
+        }
+    }
+
+    private void workerLost() {
+        synchronized (lock) {
+            liveWorkers--;
+            lock.notifyAll();
+        }
+    }
+
+    private BufferedImage resolve() {
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] dst = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        synchronized (sumR) {
+            float n = Math.max(1, totalSamples);
+            for (int i = 0; i < dst.length; i++) {
+                dst[i] = (toSrgb(sumR[i] / n) << 16) | (toSrgb(sumG[i] / n) << 8) | toSrgb(sumB[i] / n);
+            }
+        }
+        return img;
+    }
+
+    static int toSrgb(float linear) {
+        double l = Math.max(0, Math.min(1, linear));
+        double c = l <= 0.0031308 ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+        return (int) Math.round(c * 255);
+    }
+
+    // --- one connection per worker ---
+
+    private void runLink(InetSocketAddress addr) {
+        String name = addr.getHostString() + ":" + addr.getPort();
+        Unit current = null;
+        try (Socket socket = new Socket()) {
+            socket.connect(addr, 5000);
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) stallMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+            dos.writeInt(Protocol.MAGIC);
+            dos.writeInt(Protocol.VERSION);
+            dos.flush();
+            if (in.readInt() != Protocol.MAGIC || in.readInt() != Protocol.VERSION) {
+                throw new IOException("protocole incompatible");
+            }
+            int threads = in.readInt();
+            out.printf("Worker %s connecté (%d thread(s))%n", name, threads);
+
+            dos.writeByte(Protocol.SCENE);
+            dos.writeUTF(sceneHash);
+            Protocol.writeText(dos, sceneText);
+
+            while ((current = next()) != null) {
+                dos.writeByte(Protocol.RENDER);
+                dos.writeInt(current.id);
+                dos.writeUTF(sceneHash);
+                dos.writeInt(width);
+                dos.writeInt(height);
+                dos.writeInt(current.samples);
+                dos.writeInt(maxDepth);
+                dos.writeInt(tileSize);
+                dos.flush();
+                long issuedAt = System.nanoTime();
+
+                while (true) {
+                    byte op = in.readByte();
+                    if (op == Protocol.HEARTBEAT) {
+                        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - issuedAt);
+                        if (unitTimeoutMillis > 0 && elapsed > unitTimeoutMillis) {
+                            throw new SocketTimeoutException("unité " + current.id + " au-delà de " + unitTimeoutMillis + " ms");
+                        }
+                    } else if (op == Protocol.RESULT) {
+                        int id = in.readInt();
+                        int w = in.readInt();
+                        int h = in.readInt();
+                        if (id != current.id || w != width || h != height) {
+                            throw new IOException("résultat inattendu : unité " + id + ", " + w + "x" + h);
+                        }
+                        int[] argb = Protocol.readPixels(in, w * h);
+                        complete(current, argb, name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - issuedAt));
+                        current = null;
+                        break;
+                    } else if (op == Protocol.ERROR) {
+                        in.readInt();
+                        String msg = in.readUTF();
+                        out.printf("ECHEC  unité %d sur %s : %s%n", current.id, name, msg);
+                        Unit failed = current;
+                        current = null;
+                        release(failed, msg);
+                        break;
+                    } else {
+                        throw new IOException("réponse inconnue : " + op);
+                    }
+                }
+            }
+            dos.writeByte(Protocol.BYE);
+            dos.flush();
+        } catch (IOException e) {
+            String reason = e instanceof SocketTimeoutException ? "bloqué (" + e.getMessage() + ")" : e.toString();
+            out.printf("Worker %s perdu : %s%s%n", name, reason,
+                    current != null ? ", unité " + current.id + " réémise" : "");
+            if (current != null) release(current, reason);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (current != null) release(current, "interrompu");
+        } finally {
+            workerLost();
+        }
+    }
+
+    // --- local worker processes ---
+
+    private static List<InetSocketAddress> spawnLocalWorkers(int count, int threads, List<Process> spawned)
+            throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "shapes_3d.Main", "worker", "--port", "0", "--threads", Integer.toString(threads));
+            pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Process p = pb.start();
+            spawned.add(p);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null && !line.startsWith(RenderWorker.READY_PREFIX)) {
+                // ignore anything printed before the ready line
+            }
+            if (line == null) throw new IOException("le worker local " + (i + 1) + " s'est arrêté au démarrage");
+            int port = Integer.parseInt(line.substring(RenderWorker.READY_PREFIX.length()).trim());
+            addresses.add(new InetSocketAddress("127.0.0.1", port));
+        }
+        return addresses;
+    }
+
+    private static void stopProcess(Process p) {
+        p.destroy();
+        try {
+            if (!p.waitFor(2, TimeUnit.SECONDS)) p.destroyForcibly();
+        } catch (InterruptedException e) {
+            p.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package shapes_3d.distributed;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocole binaire entre coordinateur et workers, sur une connexion TCP.
+ * <pre>
+ * coordinateur → worker : MAGIC VERSION, puis SCENE, RENDER..., BYE
+ * worker → coordinateur : MAGIC VERSION threads, puis HEARTBEAT... RESULT | ERROR par RENDER
+ * </pre>
+ * Les pixels d'un résultat sont des entiers ARGB en gros-boutiste, dans
+ * l'orientation du renderer (de bas en haut).
+ */
+final class Protocol {
+
+    static final int MAGIC = 0x53334457; // "S3DW"
+    static final int VERSION = 1;
+
+    // coordinator -> worker
+    static final byte SCENE = 1;
+    static final byte RENDER = 2;
+    static final byte BYE = 3;
+
+    // worker -> coordinator
+    static final byte HEARTBEAT = 10;
+    static final byte RESULT = 11;
+    static final byte ERROR = 12;
+
+    /** Intervalle entre deux signes de vie d'un worker qui rend. */
+    static final int HEARTBEAT_MILLIS = 1000;
+
+    private Protocol() {}
+
+    static void writeBytes(DataOutputStream out, byte[] data) throws IOException {
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    static byte[] readBytes(DataInputStream in, int max) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > max) throw new IOException("message trop long : " + n + " octets");
+        byte[] data = new byte[n];
+        in.readFully(data);
+        return data;
+    }
+
+    static void writeText(DataOutputStream out, String text) throws IOException {
+        writeBytes(out, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readText(DataInputStream in, int max) throws IOException {
+        return new String(readBytes(in, max), StandardCharsets.UTF_8);
+    }
+
+    static void writePixels(DataOutputStream out, int[] argb) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(argb.length * 4).order(ByteOrder.BIG_ENDIAN);
+        buf.asIntBuffer().put(argb);
+        out.write(buf.array());
+    }
+
+    static int[] readPixels(DataInputStream in, int count) throws IOException {
+        byte[] raw = new byte[count * 4];
+        in.readFully(raw);
+        int[] argb = new int[count];
+        ByteBuffer.wrap(raw).order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(argb);
+        return argb;
+    }
+}
@@ -0,0 +1,198 @@
+package shapes_3d.distributed;
+
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.cli.CliArgs;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.RenderPriority;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Processus worker : rend les unités de travail envoyées par un
+ * {@link Coordinator} et renvoie les pixels. Chaque connexion est servie par
+ * son propre thread ; toutes partagent le même {@link RenderService}.
+ */
+public final class RenderWorker {
+
+    /** Ligne écrite sur la sortie standard au démarrage, lue par {@code --spawn}. */
+    static final String READY_PREFIX = "WORKER PORT ";
+    private static final int MAX_SCENE_BYTES = 256 << 20;
+
+    private final ServerSocket server;
+    private final RenderService service;
+    private final int threads;
+
+    public RenderWorker(String host, int port, int threads) throws IOException {
+        this.server = new ServerSocket(port, 16, InetAddress.getByName(host));
+        this.threads = Math.max(1, threads);
+        this.service = new RenderService(this.threads);
+    }
+
+    public static void printUsage(PrintStream out) {
+        out.println("Usage : worker [options]");
+        out.println("  --host <adresse>     adresse d'écoute (défaut 127.0.0.1)");
+        out.println("  --port <n>           port (défaut 9100, 0 = port libre)");
+        out.println("  --threads <n>        threads de rendu (défaut : nombre de cœurs)");
+    }
+
+    /**
+     * Point d'entrée du mode worker : sert les coordinateurs jusqu'à l'arrêt du processus.
+     * @return code de sortie du processus
+     */
+    public static int run(CliArgs args) {
+        RenderWorker worker;
+        try {
+            worker = new RenderWorker(args.get("host", "127.0.0.1"), args.getInt("port", 9100),
+                    args.getInt("threads", Runtime.getRuntime().availableProcessors()));
+        } catch (IOException e) {
+            System.err.println("Impossible d'ouvrir le port du worker : " + e.getMessage());
+            return 1;
+        }
+        System.out.println(READY_PREFIX + worker.getPort());
+        System.out.flush();
+        worker.serve();
+        return 0;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /** Accepte les connexions jusqu'à {@link #close()}. */
+    public void serve() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                break;
+            }
+            Thread t = new Thread(() -> handle(socket), "worker-conn-" + socket.getPort());
+            t.setDaemon(true);
+            t.start();
+        }
+        service.shutdown();
+    }
+
+    public void close() {
+        try { server.close(); } catch (IOException ignored) {}
+    }
+
+    private void handle(Socket socket) {
+        // scenes by content hash, private to this coordinator connection
+        Map<String, Scene> scenes = new HashMap<>();
+        SceneLoader loader = new SceneLoader(4);
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            socket.setTcpNoDelay(true);
+            if (in.readInt() != Protocol.MAGIC || in.readInt() != Protocol.VERSION) return;
+            out.writeInt(Protocol.MAGIC);
+            out.writeInt(Protocol.VERSION);
+            out.writeInt(threads);
+            out.flush();
+
+            while (true) {
+                byte op = in.readByte();
+                switch (op) {
+                    case Protocol.SCENE -> {
+                        String hash = in.readUTF();
+                        String text = Protocol.readText(in, MAX_SCENE_BYTES);
+                        try {
+                            scenes.put(hash, loader.parseText(text).getScene());
+                        } catch (Exception e) {
+                            // reported on the first RENDER that needs it
+                            scenes.put(hash, null);
+                            System.err.println("Scène invalide : " + e);
+                        }
+                    }
+                    case Protocol.RENDER -> renderUnit(in, out, scenes);
+                    case Protocol.BYE -> { return; }
+                    default -> throw new IOException("opération inconnue : " + op);
+                }
+            }
+        } catch (EOFException ignored) {
+            // coordinator went away
+        } catch (IOException e) {
+            System.err.println("Connexion interrompue : " + e.getMessage());
+        }
+    }
+
+    private void renderUnit(DataInputStream in, DataOutputStream out, Map<String, Scene> scenes) throws IOException {
+        int unitId = in.readInt();
+        String hash = in.readUTF();
+        int width = in.readInt();
+        int height = in.readInt();
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = in.readInt();
+        opts.maxDepth = in.readInt();
+        opts.tileSize = in.readInt();
+        opts.threadCount = threads;
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+
+        Scene scene = scenes.get(hash);
+        if (scene == null) {
+            sendError(out, unitId, "scène inconnue ou invalide : " + hash);
+            return;
+        }
+        CompletableFuture<BufferedImage> job = service.submit(scene, scene.getCamera(), width, height, opts,
+                RenderPriority.BATCH, null);
+        BufferedImage img;
+        try {
+            while (true) {
+                try {
+                    img = job.get(Protocol.HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    out.writeByte(Protocol.HEARTBEAT);
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            job.cancel(false);
+            throw e;
+        } catch (InterruptedException e) {
+            job.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IOException("interrompu", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            sendError(out, unitId, cause.toString());
+            return;
+        }
+
+        int[] argb = img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+        out.writeByte(Protocol.RESULT);
+        out.writeInt(unitId);
+        out.writeInt(img.getWidth());
+        out.writeInt(img.getHeight());
+        Protocol.writePixels(out, argb);
+        out.flush();
+    }
+
+    private static void sendError(DataOutputStream out, int unitId, String message) throws IOException {
+        out.writeByte(Protocol.ERROR);
+        out.writeInt(unitId);
+        out.writeUTF(message.length() > 8000 ? message.substring(0, 8000) : message);
+        out.flush();
+    }
+}
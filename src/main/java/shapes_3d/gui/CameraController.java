@@ -1,87 +1,89 @@
 package shapes_3d.gui;
 
 import javafx.scene.input.KeyCode;
-import javafx.scene.input.KeyEvent;
-import ray_tracer.parsing.Camera;
-import ray_tracer.geometry.Point;
-import ray_tracer.geometry.Vector;
+import shapes_3d.renderer.CameraOrbit;
+
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * Calcule et applique des déplacements de caméra en réponse aux touches.
+ * <p>
+ * Les touches maintenues alimentent un état de mouvement : {@link #update}
+ * fait tourner et zoomer la caméra en fonction du temps écoulé, au lieu d'un
+ * pas fixe par événement clavier (répétition automatique comprise).
  */
 public class CameraController {
 
-    /**
-     * Gère l'événement clavier et met à jour la caméra associée à la scène si nécessaire.
-     * @return true si la caméra a été modifiée
-     */
-    public boolean handleKeyPressed(KeyEvent ev, ray_tracer.parsing.Scene currentScene) {
-        if (currentScene == null) return false;
-        Camera cam = currentScene.getCamera();
-        if (cam == null) return false;
-
-        Point lookFrom = cam.getLookFrom();
-        Point lookAt = cam.getLookAt();
-        Vector v = lookFrom.subtraction(lookAt);
+    private static final double ANGLE_STEP = Math.toRadians(5);
+    private static final double ZOOM_STEP = 0.1;
 
-        double r = v.norm();
-        double theta = Math.acos(v.getY() / r);
-        double phi = Math.atan2(v.getZ(), v.getX());
+    /** Vitesse d'orbite des touches maintenues (radians par seconde). */
+    private static final double ORBIT_SPEED = Math.toRadians(90);
+    /** Durée minimale d'un appui : un appui bref déplace d'un pas discret. */
+    private static final double MIN_PRESS_SECONDS = ANGLE_STEP / ORBIT_SPEED;
+    private static final double ZOOM_IN_RATE = -Math.log(1 - ZOOM_STEP) / MIN_PRESS_SECONDS;
+    private static final double ZOOM_OUT_RATE = Math.log(1 + ZOOM_STEP) / MIN_PRESS_SECONDS;
+    /** Au-delà, l'écart entre deux images est considéré comme une pause. */
+    private static final double MAX_FRAME_SECONDS = 0.1;
 
-        double angleStep = Math.toRadians(5);
-        double zoomStep = r * 0.1;
-
-        KeyCode code = ev.getCode();
-        boolean changed = false;
-
-        if (code == KeyCode.LEFT) {
-            phi += angleStep;
-            changed = true;
-        } else if (code == KeyCode.RIGHT) {
-            phi -= angleStep;
-            changed = true;
-        } else if (code == KeyCode.UP) {
-            theta -= angleStep;
-            changed = true;
-        } else if (code == KeyCode.DOWN) {
-            theta += angleStep;
-            changed = true;
-        } else if (code == KeyCode.A) {
-            r -= zoomStep;
-            if (r < 0.1) r = 0.1;
-            changed = true;
-        } else if (code == KeyCode.R) {
-            r += zoomStep;
-            changed = true;
-        }
+    private final Set<KeyCode> held = EnumSet.noneOf(KeyCode.class);
+    // pressed since the last update: guaranteed at least one discrete step
+    private final Set<KeyCode> fresh = EnumSet.noneOf(KeyCode.class);
 
-        if (changed) {
-            double epsilon = 0.01;
-            if (theta < epsilon) theta = epsilon;
-            if (theta > Math.PI - epsilon) theta = Math.PI - epsilon;
+    public static boolean isMotionKey(KeyCode code) {
+        return code == KeyCode.LEFT || code == KeyCode.RIGHT || code == KeyCode.UP || code == KeyCode.DOWN
+                || code == KeyCode.A || code == KeyCode.R;
+    }
 
-            double x = r * Math.sin(theta) * Math.cos(phi);
-            double y = r * Math.cos(theta);
-            double z = r * Math.sin(theta) * Math.sin(phi);
+    /** Enregistre l'appui d'une touche ; les répétitions automatiques sont ignorées. */
+    public void press(KeyCode code) {
+        if (isMotionKey(code) && held.add(code)) fresh.add(code);
+    }
 
-            Vector newOffset = new Vector(x, y, z);
-            Point newLookFrom = (Point) lookAt.addition(newOffset);
+    public void release(KeyCode code) {
+        held.remove(code);
+    }
 
-            Vector forward = lookAt.subtraction(newLookFrom).normalize();
-            Vector worldUp = new Vector(0, 1, 0);
-            Vector right = forward.vectorialProduct(worldUp).normalize();
-            Vector newUp = right.vectorialProduct(forward).normalize();
+    /** Relâche tout, par exemple quand la fenêtre perd le focus. */
+    public void releaseAll() {
+        held.clear();
+    }
 
-            Camera newCam = new Camera(
-                    newLookFrom.getX(), newLookFrom.getY(), newLookFrom.getZ(),
-                    lookAt.getX(), lookAt.getY(), lookAt.getZ(),
-                    newUp.getX(), newUp.getY(), newUp.getZ(),
-                    cam.getFov()
-            );
+    public boolean isMoving() {
+        return !held.isEmpty() || !fresh.isEmpty();
+    }
 
-            currentScene.setCamera(newCam);
-            return true;
+    /**
+     * Fait avancer le mouvement de {@code dtSeconds}.
+     * @return true si la caméra de la scène a été modifiée
+     */
+    public boolean update(double dtSeconds, ray_tracer.parsing.Scene currentScene) {
+        if (!isMoving()) return false;
+        double dt = Math.min(Math.max(dtSeconds, 0), MAX_FRAME_SECONDS);
+        double dPhi = 0;
+        double dTheta = 0;
+        double logZoom = 0;
+        for (KeyCode code : EnumSet.of(KeyCode.LEFT, KeyCode.RIGHT, KeyCode.UP, KeyCode.DOWN, KeyCode.A, KeyCode.R)) {
+            boolean down = held.contains(code);
+            boolean tapped = fresh.contains(code);
+            if (!down && !tapped) continue;
+            double t = down ? dt : 0;
+            if (tapped) t = Math.max(t, MIN_PRESS_SECONDS);
+            switch (code) {
+                case LEFT -> dPhi += ORBIT_SPEED * t;
+                case RIGHT -> dPhi -= ORBIT_SPEED * t;
+                case UP -> dTheta -= ORBIT_SPEED * t;
+                case DOWN -> dTheta += ORBIT_SPEED * t;
+                case A -> logZoom -= ZOOM_IN_RATE * t;
+                case R -> logZoom += ZOOM_OUT_RATE * t;
+                default -> { }
+            }
         }
-        return false;
+        fresh.clear();
+        if (currentScene == null || currentScene.getCamera() == null) return false;
+        if (dPhi == 0 && dTheta == 0 && logZoom == 0) return false;
+        currentScene.setCamera(CameraOrbit.orbit(currentScene.getCamera(), dPhi, dTheta, Math.exp(logZoom)));
+        return true;
     }
 }
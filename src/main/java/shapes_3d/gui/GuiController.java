@@ -1,17 +1,27 @@
 package shapes_3d.gui;
 
+import javafx.animation.Animation;
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.control.ListView;
 import javafx.scene.control.ListCell;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextInputDialog;
 import javafx.scene.image.ImageView;
-import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
@@ -20,21 +30,43 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
-import ray_tracer.parsing.SceneFileParser;
 import ray_tracer.parsing.Camera;
 import ray_tracer.geometry.Point;
 import ray_tracer.geometry.Vector;
-import ray_tracer.renderer.ProgressListener;
 import ray_tracer.renderer.RenderOptions;
 import ray_tracer.renderer.RenderUpdate;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import shapes_3d.metrics.RenderMetrics;
+import shapes_3d.parsing.ParsedScene;
+import shapes_3d.parsing.SceneEdit;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.parsing.SceneSource;
+import shapes_3d.renderer.AdaptiveQualityController;
+import shapes_3d.renderer.Cameras;
+import shapes_3d.renderer.FrameCache;
+import shapes_3d.renderer.ImageExporter;
+import shapes_3d.renderer.RefinementListener;
+import shapes_3d.renderer.RefinementPlan;
+import shapes_3d.renderer.RegionWindow;
 import shapes_3d.renderer.RenderService;
+import shapes_3d.renderer.TileStreamWriter;
 
 /**
  * Controller that builds the UI and contains the logic previously in FXMain.
@@ -44,14 +76,54 @@ public class GuiController {
 
     private ImageView imageView;
     private ray_tracer.parsing.Scene currentScene;
+    // hash of the text currentScene was parsed from
+    private String currentSceneHash;
+    // parsed scenes by content hash (-Dshapes3d.parseCacheSize=...)
+    private final SceneLoader sceneLoader = new SceneLoader(Integer.getInteger("shapes3d.parseCacheSize", 4));
     private RenderService renderService;
     private ImagePane imagePane;
     private CameraController cameraController = new CameraController();
+    // tunes the preview pass towards a target latency (-Dshapes3d.targetFrameMs=...)
+    private final AdaptiveQualityController previewQuality = new AdaptiveQualityController(
+            Long.getLong("shapes3d.targetFrameMs", 50L), Runtime.getRuntime().availableProcessors());
+    // minimum time between two renders while the camera moves (-Dshapes3d.renderBudgetMs=...),
+    // never below the preview target: each render cancels the previous one
+    private final long renderBudgetNanos = Math.max(Long.getLong("shapes3d.renderBudgetMs", 33L),
+            previewQuality.getTargetMillis()) * 1_000_000L;
+    // idle time before the preview is refined (-Dshapes3d.refineDelayMs=...)
+    private final RefinementPlan refinementPlan =
+            RefinementPlan.defaultPlan(Long.getLong("shapes3d.refineDelayMs", 300L))
+                    .withPreviewController(previewQuality)
+                    // while the camera is still, keep adding samples (-Dshapes3d.accumulateSpp=0 to disable)
+                    .withAccumulation(Integer.getInteger("shapes3d.accumulateSpp", 4),
+                            Integer.getInteger("shapes3d.maxSamples", 256));
+    private Label qualityStatus;
+    // drag a rectangle on the image to render it alone (-Dshapes3d.regionSpp=...)
+    private final int regionSamples = Integer.getInteger("shapes3d.regionSpp", 64);
+    private RegionSelector regionSelector;
+    // a region is skipped when its enclosing window has more than this many times its pixels
+    private static final int MAX_REGION_OVERHEAD = 4;
+    // very large renders are streamed to disk; only a preview of this size is shown
+    private static final int POSTER_PREVIEW_SIDE = 1600;
+    private Button posterBtn;
+    // poster whose preview tiles may still be shown; cleared when the interactive view takes the canvas back
+    private final Object posterLock = new Object();
+    private Object posterPreview;
+    private CompletableFuture<BufferedImage> regionRender;
+    // last region rendered for the current camera; kept on top of the refinement passes
+    private volatile RegionPatch regionPatch;
     private int width = 800;
     private int height = 600;
     private File originalSceneFile;
-    private String originalSceneContent;
+    // content of originalSceneFile as read at load time (mapped for big files)
+    private SceneSource originalSource;
+    // text of currentScene, diffed against the editor on apply: either a source or an applied text
+    private SceneSource appliedSource;
+    private String appliedText;
+    // text not yet decoded into the editor: filled when the Source tab is opened
+    private SceneSource pendingEditorSource;
     private SceneTextEditor sourceEditor;
+    private LivePreview livePreview;
     private boolean sourceTabViewed = false;
     private Button applyBtn;
     private Button revertBtn;
@@ -64,22 +136,56 @@ public class GuiController {
     private Tab warningsTab;
     private ListView<String> warningsList;
     private ParserIssuesController parserIssuesController;
+    // last full-size final-quality frame, exported as-is by "Enregistrer image"
+    private volatile BufferedImage lastRenderedImage;
+    // -Dshapes3d.pngCompression=0..9
+    private final int pngCompressionLevel =
+            Integer.getInteger("shapes3d.pngCompression", ImageExporter.DEFAULT_PNG_COMPRESSION);
+    private Label exportStatus;
+    private StatsOverlay statsOverlay;
+    // scene reads/parses run here, never on the FX thread
+    private final ExecutorService loadExecutor =
+            Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "scene-load");
+                t.setDaemon(true);
+                return t;
+            });
+    // FX thread only: bumped by every load so that superseded results are dropped
+    private long loadGeneration;
+    private Future<?> currentLoad;
+    private long loadStarted;
+    private String loadDescription;
+    private ProgressIndicator loadIndicator;
+    private Label loadStatus;
+    private Button cancelLoadBtn;
+    private final Timeline loadTicker = new Timeline(
+            new KeyFrame(Duration.seconds(1), ev -> {
+                long seconds = (System.nanoTime() - loadStarted) / 1_000_000_000L;
+                loadStatus.setText(loadDescription + "… " + seconds + " s");
+            }));
+    // export id -> progress, only touched on the FX thread
+    private final Map<Integer, Double> exportProgress = new LinkedHashMap<>();
+    private int nextExportId;
 
     public void init(Stage stage) {
         renderService = new RenderService();
+        // revisited camera positions are shown from memory (-Dshapes3d.frameCacheMB=...)
+        renderService.setFrameCache(new FrameCache(Long.getLong("shapes3d.frameCacheMB", 256L) << 20));
         imagePane = new ImagePane();
 
         BorderPane root = new BorderPane();
         imageView = imagePane.getImageView();
-        imagePane.createCanvas(width, height);
+        createCanvas(width, height);
 
-        StackPane imageBox = new StackPane(imageView);
+        statsOverlay = new StatsOverlay(RenderMetrics.getDefault());
+        regionSelector = new RegionSelector(imageView, () -> width, () -> height, this::onRenderRegion);
+        StackPane imageBox = new StackPane(imageView, regionSelector.getNode(), statsOverlay.getNode());
         // Allow the imageBox to shrink below the image intrinsic size
         // to avoid a circular sizing dependency (StackPane sizing from child).
         imageBox.setMinSize(0, 0);
         imageBox.setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
         imageBox.setPrefSize(Double.MAX_VALUE, Double.MAX_VALUE);
-        StackPane.setMargin(imageView, javafx.geometry.Insets.EMPTY);
+        StackPane.setMargin(imageView, Insets.EMPTY);
         VBox.setVgrow(imageBox, Priority.ALWAYS);
 
         // Make the ImageView resize to the available area while preserving the
@@ -120,7 +226,30 @@ public class GuiController {
         // No scene loaded yet -> disable image saving
         saveImageBtn.setDisable(true);
 
-        HBox topBar = new HBox(8, loadBtn, applyBtn, revertBtn, insertCameraBtn, saveSceneBtn, saveImageBtn);
+        posterBtn = new Button("Grand format...");
+        posterBtn.setFocusTraversable(false);
+        posterBtn.setOnAction(ev -> onRenderPoster());
+        posterBtn.setDisable(true);
+
+        exportStatus = new Label();
+        qualityStatus = new Label();
+
+        loadIndicator = new ProgressIndicator(ProgressIndicator.INDETERMINATE_PROGRESS);
+        loadIndicator.setPrefSize(18, 18);
+        loadStatus = new Label();
+        cancelLoadBtn = new Button("Annuler");
+        cancelLoadBtn.setFocusTraversable(false);
+        cancelLoadBtn.setOnAction(ev -> cancelSceneLoad());
+        loadTicker.setCycleCount(Animation.INDEFINITE);
+
+        ToggleButton statsBtn = new ToggleButton("Stats");
+        statsBtn.setFocusTraversable(false);
+        statsBtn.selectedProperty().addListener((obs, was, on) -> statsOverlay.setShown(on));
+
+        HBox topBar = new HBox(8, loadBtn, applyBtn, revertBtn, insertCameraBtn, saveSceneBtn, saveImageBtn,
+                posterBtn, statsBtn, loadIndicator, loadStatus, cancelLoadBtn, exportStatus, qualityStatus);
+        topBar.setAlignment(Pos.CENTER_LEFT);
+        hideLoading();
 
         // TabPane with Image view, Source editor and Warnings
         tabPane = new TabPane();
@@ -135,12 +264,25 @@ public class GuiController {
         VBox sourceBox = new VBox(sourceEditor);
         sourceBox.setPrefSize(Double.MAX_VALUE, Double.MAX_VALUE);
         VBox.setVgrow(sourceEditor, Priority.ALWAYS);
-        sourceTab.setContent(sourceBox);
+
+        // opt-in live thumbnail beside the editor
+        // reads what the editor shows: a source not opened yet is not decoded for the preview
+        livePreview = new LivePreview(renderService, sourceEditor::getText);
+        CheckBox liveBox = new CheckBox("Aperçu en direct");
+        liveBox.setFocusTraversable(false);
+        liveBox.selectedProperty().addListener((obs, was, on) -> livePreview.setEnabled(on));
+        sourceEditor.addEditListener(livePreview::textEdited);
+        VBox liveSide = new VBox(8, liveBox, livePreview.getThumbnail(), livePreview.getStatus());
+        liveSide.setPadding(new Insets(8));
+        HBox sourcePane = new HBox(sourceBox, liveSide);
+        HBox.setHgrow(sourceBox, Priority.ALWAYS);
+        sourceTab.setContent(sourcePane);
+        liveBox.setSelected(Boolean.getBoolean("shapes3d.livePreview"));
         sourceTab.setClosable(false);
 
         // Warnings tab
         warningsList = new ListView<>();
-        warningsList.setPlaceholder(new javafx.scene.control.Label("Aucun warning"));
+        warningsList.setPlaceholder(new Label("Aucun warning"));
         warningsList.setCellFactory(list -> new ListCell<>() {
             @Override
             protected void updateItem(String item, boolean empty) {
@@ -178,6 +320,7 @@ public class GuiController {
 
         // When the user selects the Source tab for the first time, scroll the editor to the end
         tabPane.getSelectionModel().selectedItemProperty().addListener((obs, oldTab, newTab) -> {
+            if (newTab == sourceTab) ensureEditorLoaded();
             if (newTab == sourceTab && !sourceTabViewed) {
                 sourceTabViewed = true;
                 try {
@@ -205,17 +348,24 @@ public class GuiController {
                 }
             } catch (Exception ignored) {}
 
-            KeyCode code = ev.getCode();
-            if (code == KeyCode.LEFT || code == KeyCode.RIGHT || code == KeyCode.UP || code == KeyCode.DOWN || code == KeyCode.A || code == KeyCode.R) {
+            if (CameraController.isMotionKey(ev.getCode())) {
                 onKeyPressed(ev);
                 ev.consume();
             }
         });
+        fxScene.addEventFilter(KeyEvent.KEY_RELEASED, ev -> {
+            if (CameraController.isMotionKey(ev.getCode())) cameraController.release(ev.getCode());
+        });
+        stage.focusedProperty().addListener((obs, was, focused) -> {
+            if (!focused) cameraController.releaseAll();
+        });
 
         stage.setTitle("RayTracer - Visualisation interactive (prototype)");
         stage.setScene(fxScene);
         stage.setOnCloseRequest(ev -> {
             try { if (renderService != null) renderService.shutdown(); } catch (Exception ignored) {}
+            loadExecutor.shutdownNow();
+            livePreview.shutdown();
             Platform.exit();
             System.exit(0);
         });
@@ -231,24 +381,18 @@ public class GuiController {
             if (cam == null) return;
             Point lf = cam.getLookFrom();
             Point la = cam.getLookAt();
-            double upx = 0, upy = 1, upz = 0;
-            try {
-                java.lang.reflect.Method m = cam.getClass().getMethod("getUp");
-                Object up = m.invoke(cam);
-                if (up instanceof Vector) {
-                    Vector vup = (Vector) up;
-                    upx = vup.getX(); upy = vup.getY(); upz = vup.getZ();
-                }
-            } catch (Exception ignored) {}
+            // never write a guessed up vector into the scene
+            Vector up = Cameras.up(cam);
+            double upx = up.getX(), upy = up.getY(), upz = up.getZ();
             double fov = cam.getFov();
 
-            String cameraLine = String.format(java.util.Locale.US, "camera %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f",
+            String cameraLine = String.format(Locale.US, "camera %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f %.6f",
                     lf.getX(), lf.getY(), lf.getZ(),
                     la.getX(), la.getY(), la.getZ(),
                     upx, upy, upz,
                     fov);
 
-            String text = sourceEditor.getText();
+            String text = editorText();
             String[] lines = text == null ? new String[0] : text.split("\r?\n", -1);
             boolean replaced = false;
             for (int i = 0; i < lines.length; i++) {
@@ -264,7 +408,7 @@ public class GuiController {
             } else {
                 int insertIndex = 0;
                 if (lines.length > 0 && lines[0].trim().startsWith("size")) insertIndex = 1;
-                java.util.List<String> list = new java.util.ArrayList<>();
+                List<String> list = new ArrayList<>();
                 for (int i = 0; i < insertIndex; i++) list.add(lines[i]);
                 list.add(cameraLine);
                 for (int i = insertIndex; i < lines.length; i++) list.add(lines[i]);
@@ -273,6 +417,7 @@ public class GuiController {
             sourceEditor.setText(newText);
         } catch (Exception e) {
             e.printStackTrace();
+            showError("Impossible d'insérer la caméra : " + e.getMessage());
         }
     }
 
@@ -281,22 +426,49 @@ public class GuiController {
         chooser.setTitle("Ouvrir fichier de scène");
         File f = chooser.showOpenDialog(stage);
         if (f == null) return;
-        try {
-            currentScene = SceneFileParser.parse(f.getAbsolutePath());
-            // successful parse
-            originalSceneFile = f;
+        // read once: the hash comes from these bytes, the editor text is decoded lazily
+        runSceneLoad("Chargement de " + f.getName(), () -> {
+            SceneSource source;
             try {
-                originalSceneContent = Files.readString(f.toPath(), StandardCharsets.UTF_8);
-                sourceEditor.setText(originalSceneContent);
+                source = SceneSource.open(f.toPath());
             } catch (IOException ioe) {
-                originalSceneContent = null;
-                sourceEditor.setText("");
+                return LoadResult.failed(null, ioe);
+            }
+            try {
+                return LoadResult.parsed(source, sceneLoader.parse(source));
+            } catch (Exception ex) {
+                return LoadResult.failed(source, ex);
+            }
+        }, result -> {
+            if (result.error instanceof IOException ioe && result.source == null) {
+                showError("Impossible de lire " + f.getName() + " : " + ioe.getMessage());
+                return;
+            }
+            if (result.error != null) {
+                // If parse failed but is a ParserException, show it and still load the source file
+                if (ParserIssuesController.isParserException(result.error)) {
+                    pendingEditorSource = null;
+                    parserIssuesController.handleParserException(result.error, result.source);
+                } else {
+                    result.error.printStackTrace();
+                }
+                return;
             }
+            ParsedScene parsed = result.scene;
+            currentScene = parsed.getScene();
+            // a cached scene keeps the camera it was left with
+            currentScene.setCamera(parsed.getCamera());
+            currentSceneHash = parsed.getContentHash();
+            // successful parse
+            originalSceneFile = f;
+            originalSource = result.source;
+            setApplied(result.source, null);
+            setEditorSource(result.source);
             currentScene.setOutputFile("output.png");
             this.width = Math.max(200, currentScene.getWidth());
             this.height = Math.max(200, currentScene.getHeight());
-            imagePane.createCanvas(this.width, this.height);
-            startRender(true);
+            createCanvas(this.width, this.height);
+            startRender();
             try {
                 sourceEditor.setDisable(false);
                 applyBtn.setDisable(false);
@@ -307,22 +479,16 @@ public class GuiController {
                 sourceTab.setDisable(false);
                 warningsTab.setDisable(false);
                 saveImageBtn.setDisable(false);
+                posterBtn.setDisable(false);
             } catch (Exception ignore) {}
-            parserIssuesController.updateWarnings();
-        } catch (Exception ex) {
-            // If parse failed but is a ParserException, show it and still load the source file
-            if (ParserIssuesController.isParserException(ex)) {
-                parserIssuesController.handleParserException(ex, f);
-            } else {
-                ex.printStackTrace();
-            }
-        }
+            parserIssuesController.updateWarnings(parsed.getWarnings());
+        });
     }
 
     // --- Save handlers -------------------------------------------------
     private void onSaveScene() {
         if (sourceEditor == null) return;
-        String content = sourceEditor.getText();
+        String content = editorText();
         if (content == null) return;
 
         // If we have an original file, ask overwrite or save as
@@ -373,8 +539,8 @@ public class GuiController {
     }
 
     private void onSaveImage() {
-        javafx.scene.image.Image img = imageView.getImage();
-        if (img == null) {
+        BufferedImage rendered = lastRenderedImage;
+        if (rendered == null && imageView.getImage() == null) {
             showError("Aucune image à enregistrer.");
             return;
         }
@@ -385,12 +551,119 @@ public class GuiController {
                 new FileChooser.ExtensionFilter("JPEG image", "*.jpg", "*.jpeg")
         );
         File dest = chooser.showSaveDialog(imageView.getScene().getWindow());
-        if (dest != null) {
-            try {
-                SaveManager.saveImage(img, dest.toPath());
-            } catch (IOException e) {
-                showError("Erreur lors de l'enregistrement de l'image : " + e.getMessage());
-            }
+        if (dest == null) return;
+        // no final frame yet: fall back to what is on screen, at full resolution
+        if (rendered == null) rendered = imagePane.snapshot();
+
+        int id = nextExportId++;
+        exportProgress.put(id, 0.0);
+        updateExportStatus();
+        SaveManager.saveImageAsync(rendered, dest.toPath(), pngCompressionLevel,
+                        p -> Platform.runLater(() -> {
+                            if (exportProgress.containsKey(id)) {
+                                exportProgress.put(id, p);
+                                updateExportStatus();
+                            }
+                        }))
+                .whenComplete((path, err) -> Platform.runLater(() -> {
+                    exportProgress.remove(id);
+                    updateExportStatus();
+                    if (err != null) {
+                        Throwable cause = err.getCause() != null ? err.getCause() : err;
+                        showError("Erreur lors de l'enregistrement de l'image : " + cause.getMessage());
+                    }
+                }));
+    }
+
+    private void updateExportStatus() {
+        if (exportProgress.isEmpty()) {
+            exportStatus.setText("");
+            return;
+        }
+        double sum = 0;
+        for (double p : exportProgress.values()) sum += p;
+        int percent = (int) Math.round(100 * sum / exportProgress.size());
+        exportStatus.setText("Export : " + exportProgress.size() + " en cours (" + percent + " %)");
+    }
+
+    /**
+     * Renders the current view at a print size straight to a PNG file. Only a
+     * downsampled preview of the tile stream is shown; moving the camera brings
+     * the interactive view back while the file keeps being written.
+     */
+    private void onRenderPoster() {
+        if (currentScene == null) return;
+        TextInputDialog dialog = new TextInputDialog(
+                (width * 4) + "x" + (height * 4));
+        dialog.setTitle("Rendu grand format");
+        dialog.setHeaderText("Taille de l'image (largeur x hauteur)");
+        Optional<String> answer = dialog.showAndWait();
+        if (answer.isEmpty()) return;
+        int w;
+        int h;
+        try {
+            String[] wh = answer.get().trim().toLowerCase(Locale.ROOT).split("\\s*x\\s*");
+            w = Integer.parseInt(wh[0]);
+            h = Integer.parseInt(wh[1]);
+            if (w <= 0 || h <= 0) throw new NumberFormatException();
+        } catch (RuntimeException e) {
+            showError("Taille invalide : " + answer.get());
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Enregistrer l'image grand format");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG image", "*.png"));
+        File dest = chooser.showSaveDialog(imageView.getScene().getWindow());
+        if (dest == null) return;
+
+        int id = nextExportId++;
+        Object preview = new Object();
+        TileStreamWriter sink;
+        try {
+            sink = new TileStreamWriter(dest.toPath(), w, h, pngCompressionLevel, POSTER_PREVIEW_SIDE,
+                    (part, x, y) -> {
+                        synchronized (posterLock) {
+                            if (posterPreview == preview) imagePane.postTile(part, x, y);
+                        }
+                    },
+                    p -> Platform.runLater(() -> {
+                        if (exportProgress.containsKey(id)) {
+                            exportProgress.put(id, p);
+                            updateExportStatus();
+                        }
+                    }));
+        } catch (IOException e) {
+            showError("Impossible d'écrire " + dest + " : " + e.getMessage());
+            return;
+        }
+        // the preview replaces the interactive view until the camera moves
+        renderService.cancel();
+        regionPatch = null;
+        synchronized (posterLock) {
+            posterPreview = preview;
+            imagePane.createCanvas(sink.getPreviewWidth(), sink.getPreviewHeight());
+        }
+        exportProgress.put(id, 0.0);
+        updateExportStatus();
+
+        RenderOptions opts = interactiveOptions();
+        opts.samplesPerPixel = refinementPlan.pass(refinementPlan.listedSize() - 1).samplesPerPixel;
+        renderService.renderToFile(currentScene, currentScene.getCamera(), w, h, opts, sink)
+                .whenComplete((path, err) -> Platform.runLater(() -> {
+                    exportProgress.remove(id);
+                    updateExportStatus();
+                    if (err != null) {
+                        Throwable cause = err.getCause() != null ? err.getCause() : err;
+                        showError("Erreur lors du rendu grand format : " + cause.getMessage());
+                    }
+                }));
+    }
+
+    /** Takes the canvas for the interactive view: a poster still being written stops showing its preview. */
+    private void createCanvas(int w, int h) {
+        synchronized (posterLock) {
+            posterPreview = null;
+            imagePane.createCanvas(w, h);
         }
     }
 
@@ -404,94 +677,404 @@ public class GuiController {
 
     private void onApplyEditorChanges() {
         if (sourceEditor == null) return;
-        String edited = sourceEditor.getText();
+        String edited = editorText();
         if (edited == null) return;
-        Path tmp = null;
-        try {
-            tmp = Files.createTempFile("scene_preview", ".scene");
-            Files.writeString(tmp, edited, StandardCharsets.UTF_8);
-            ray_tracer.parsing.Scene preview = SceneFileParser.parse(tmp.toAbsolutePath().toString());
+        SceneSource baseSource = currentScene != null ? appliedSource : null;
+        String baseText = currentScene != null ? appliedText : null;
+        runSceneLoad("Analyse des modifications", () -> {
+            try {
+                // camera/size-only edits skip the parser: the geometry is unchanged
+                SceneEdit edit = SceneEdit.between(baseText != null ? baseText
+                        : baseSource != null ? baseSource.text() : null, edited);
+                if (!edit.isStructural()) return LoadResult.edited(edit);
+                return LoadResult.parsed(null, sceneLoader.parseText(edited));
+            } catch (Exception e) {
+                return LoadResult.failed(null, e);
+            }
+        }, result -> {
+            Exception e = result.error;
+            if (e != null) {
+                if (ParserIssuesController.isParserException(e)) {
+                    // show parser error but allow user to continue editing
+                    Alert a = new Alert(Alert.AlertType.ERROR);
+                    a.setTitle("Erreur d'analyse");
+                    a.setHeaderText("ParserException lors de l'application des modifications");
+                    a.setContentText(e.getMessage());
+                    a.showAndWait();
+                    // disable image/tab since no image was generated
+                    try { imageTab.setDisable(true); saveImageBtn.setDisable(true); } catch (Exception ignored) {}
+                    parserIssuesController.updateWarnings(ParserIssuesController.warningsOf(e));
+                } else {
+                    e.printStackTrace();
+                }
+                return;
+            }
+            if (result.edit != null) {
+                applyViewEdit(result.edit, edited);
+                return;
+            }
+            ParsedScene parsed = result.scene;
+            ray_tracer.parsing.Scene preview = parsed.getScene();
             if (preview != null) {
                 preview.setOutputFile("output_preview.png");
                 this.width = Math.max(200, preview.getWidth());
                 this.height = Math.max(200, preview.getHeight());
-                imagePane.createCanvas(this.width, this.height);
+                createCanvas(this.width, this.height);
+                preview.setCamera(parsed.getCamera());
                 currentScene = preview;
+                currentSceneHash = parsed.getContentHash();
+                setApplied(null, edited);
+                parserIssuesController.updateWarnings(parsed.getWarnings());
                 imageTab.setDisable(false);
                 sourceTab.setDisable(false);
                 warningsTab.setDisable(false);
                 saveImageBtn.setDisable(false);
-                startRender(true);
-            }
-        } catch (Exception e) {
-                if (ParserIssuesController.isParserException(e)) {
-                // show parser error but allow user to continue editing
-                Alert a = new Alert(Alert.AlertType.ERROR);
-                a.setTitle("Erreur d'analyse");
-                a.setHeaderText("ParserException lors de l'application des modifications");
-                a.setContentText(e.getMessage());
-                a.showAndWait();
-                // disable image/tab since no image was generated
-                try { imageTab.setDisable(true); saveImageBtn.setDisable(true); } catch (Exception ignored) {}
-                parserIssuesController.updateWarnings();
-            } else {
-                e.printStackTrace();
-            }
-        } finally {
-            if (tmp != null) {
-                try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+                posterBtn.setDisable(false);
+                startRender();
             }
+        });
+    }
+
+    /**
+     * Applies an edit that only touches the camera and/or the size to the
+     * live scene. The content hash is kept: the frame cache key already
+     * includes the camera and the size.
+     */
+    private void applyViewEdit(SceneEdit edit, String edited) {
+        if (currentScene == null) return;
+        setApplied(null, edited);
+        if (!edit.isChanged()) return;
+        if (edit.getCamera() != null) currentScene.setCamera(edit.getCamera());
+        if (edit.hasSize()) {
+            this.width = Math.max(200, edit.getWidth());
+            this.height = Math.max(200, edit.getHeight());
+            createCanvas(this.width, this.height);
         }
+        startRender();
+    }
+
+    private void setApplied(SceneSource source, String text) {
+        appliedSource = source;
+        appliedText = text;
     }
 
     private void onRevertToOriginal() {
         if (originalSceneFile == null) return;
-        try {
-            currentScene = SceneFileParser.parse(originalSceneFile.getAbsolutePath());
-            if (originalSceneContent != null) sourceEditor.setText(originalSceneContent);
+        SceneSource known = originalSource;
+        File file = originalSceneFile;
+        runSceneLoad("Retour à " + file.getName(), () -> {
+            SceneSource source = known;
+            try {
+                if (source == null) source = SceneSource.open(file.toPath());
+                // the original scene is normally still cached: no disk read, no parse
+                return LoadResult.parsed(source, sceneLoader.parse(source));
+            } catch (Exception e) {
+                return LoadResult.failed(source, e);
+            }
+        }, result -> {
+            if (result.error != null) {
+                if (ParserIssuesController.isParserException(result.error)) {
+                    pendingEditorSource = null;
+                    parserIssuesController.handleParserException(result.error, result.source);
+                } else {
+                    result.error.printStackTrace();
+                }
+                return;
+            }
+            ParsedScene parsed = result.scene;
+            if (originalSource == null) originalSource = result.source;
+            setApplied(result.source, null);
+            currentScene = parsed.getScene();
+            currentScene.setCamera(parsed.getCamera());
+            currentSceneHash = parsed.getContentHash();
+            parserIssuesController.updateWarnings(parsed.getWarnings());
+            setEditorSource(result.source);
             this.width = Math.max(200, currentScene.getWidth());
             this.height = Math.max(200, currentScene.getHeight());
-            imagePane.createCanvas(this.width, this.height);
+            createCanvas(this.width, this.height);
             imageTab.setDisable(false);
             sourceTab.setDisable(false);
             warningsTab.setDisable(false);
             saveImageBtn.setDisable(false);
-            startRender(true);
-        } catch (Exception e) {
-            if (ParserIssuesController.isParserException(e)) {
-                parserIssuesController.handleParserException(e, originalSceneFile);
-            } else {
-                e.printStackTrace();
-            }
+            posterBtn.setDisable(false);
+            startRender();
+        });
+    }
+
+    // --- Background scene loading ---------------------------------------
+
+    /** Outcome of a background read/parse, handed back to the FX thread. */
+    private static final class LoadResult {
+        final SceneSource source;
+        final ParsedScene scene;
+        final SceneEdit edit;
+        final Exception error;
+
+        private LoadResult(SceneSource source, ParsedScene scene, SceneEdit edit, Exception error) {
+            this.source = source;
+            this.scene = scene;
+            this.edit = edit;
+            this.error = error;
+        }
+
+        static LoadResult parsed(SceneSource source, ParsedScene scene) {
+            return new LoadResult(source, scene, null, null);
+        }
+
+        /** Camera/size-only edit: nothing was parsed. */
+        static LoadResult edited(SceneEdit edit) {
+            return new LoadResult(null, null, edit, null);
+        }
+
+        static LoadResult failed(SceneSource source, Exception error) {
+            return new LoadResult(source, null, null, error);
         }
     }
 
-    
+    /**
+     * Reads/parses off the FX thread while the current scene stays usable.
+     * A new load replaces the running one: its result is dropped even if the
+     * parser cannot be interrupted. {@code onDone} runs on the FX thread.
+     */
+    private void runSceneLoad(String description, Supplier<LoadResult> work,
+                              Consumer<LoadResult> onDone) {
+        long gen = ++loadGeneration;
+        if (currentLoad != null) currentLoad.cancel(true);
+        showLoading(description);
+        currentLoad = loadExecutor.submit(() -> {
+            LoadResult result = work.get();
+            Platform.runLater(() -> {
+                if (gen != loadGeneration) return;
+                currentLoad = null;
+                hideLoading();
+                onDone.accept(result);
+            });
+        });
+    }
+
+    private void cancelSceneLoad() {
+        loadGeneration++;
+        if (currentLoad != null) currentLoad.cancel(true);
+        currentLoad = null;
+        hideLoading();
+    }
+
+    private void showLoading(String description) {
+        loadStarted = System.nanoTime();
+        loadDescription = description;
+        loadStatus.setText(description + "…");
+        loadIndicator.setVisible(true);
+        loadIndicator.setManaged(true);
+        cancelLoadBtn.setVisible(true);
+        cancelLoadBtn.setManaged(true);
+        loadTicker.playFromStart();
+    }
+
+    private void hideLoading() {
+        loadTicker.stop();
+        loadStatus.setText("");
+        loadIndicator.setVisible(false);
+        loadIndicator.setManaged(false);
+        cancelLoadBtn.setVisible(false);
+        cancelLoadBtn.setManaged(false);
+    }
+
+    /**
+     * Defers decoding the scene text into the editor until the Source tab is
+     * shown: large generated scenes are then never copied into a String.
+     */
+    private void setEditorSource(SceneSource source) {
+        pendingEditorSource = source;
+        // drop the previous text right away
+        sourceEditor.setText("");
+        if (tabPane.getSelectionModel().getSelectedItem() == sourceTab) ensureEditorLoaded();
+    }
+
+    private void ensureEditorLoaded() {
+        SceneSource source = pendingEditorSource;
+        if (source == null) return;
+        pendingEditorSource = null;
+        sourceEditor.setText(source.text());
+    }
+
+    /** Editor text, decoding the pending source first if needed. */
+    private String editorText() {
+        ensureEditorLoaded();
+        return sourceEditor.getText();
+    }
 
-    private void onKeyPressed(javafx.scene.input.KeyEvent ev) {
+    private void onKeyPressed(KeyEvent ev) {
         if (currentScene == null) return;
-        boolean changed = cameraController.handleKeyPressed(ev, currentScene);
-        if (changed) startRender(true);
+        cameraController.press(ev.getCode());
+        if (cameraController.isMoving()) cameraTimer.start();
     }
 
-    private synchronized void startRender(boolean lowRes) {
+    /**
+     * Advances the camera motion once per pulse and issues at most one render
+     * per frame budget, always for the newest camera state.
+     */
+    private final AnimationTimer cameraTimer = new AnimationTimer() {
+        private long lastFrame = -1;
+        private long lastRender = Long.MIN_VALUE / 2;
+        private boolean renderPending;
+
+        @Override
+        public void handle(long now) {
+            double dt = lastFrame < 0 ? 0 : (now - lastFrame) / 1e9;
+            lastFrame = now;
+            if (currentScene != null && cameraController.update(dt, currentScene)) renderPending = true;
+            if (renderPending && now - lastRender >= renderBudgetNanos) {
+                renderPending = false;
+                lastRender = now;
+                startRender();
+            }
+            if (!renderPending && !cameraController.isMoving()) {
+                lastFrame = -1;
+                stop();
+            }
+        }
+    };
+
+    private static RenderOptions interactiveOptions() {
         RenderOptions opts = new RenderOptions();
-        opts.samplesPerPixel = lowRes ? 1 : 10;
         opts.maxDepth = 5;
         opts.tileSize = 64;
         opts.threadCount = Runtime.getRuntime().availableProcessors();
-        opts.lowResFactor = lowRes ? 0.4 : 1.0;
         opts.progressive = false;
+        return opts;
+    }
+
+    /** A region rendered on its own, composited over the full frame. */
+    private static final class RegionPatch {
+        final BufferedImage image;
+        final int x;
+        final int y;
+        final int samples;
+
+        RegionPatch(BufferedImage image, int x, int y, int samples) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.samples = samples;
+        }
+
+        /** Part of the patch over the tile, or null when they do not overlap. */
+        BufferedImage overlap(int tx, int ty, int tw, int th, int[] origin) {
+            int x0 = Math.max(x, tx);
+            int y0 = Math.max(y, ty);
+            int x1 = Math.min(x + image.getWidth(), tx + tw);
+            int y1 = Math.min(y + image.getHeight(), ty + th);
+            if (x1 <= x0 || y1 <= y0) return null;
+            origin[0] = x0;
+            origin[1] = y0;
+            return image.getSubimage(x0 - x, y0 - y, x1 - x0, y1 - y0);
+        }
+    }
+
+    // keeps the region patch on top of a freshly posted tile
+    private void postTile(int passIndex, BufferedImage part, int x, int y) {
+        imagePane.postTile(part, x, y);
+        RegionPatch patch = regionPatch;
+        if (patch == null || patch.samples <= refinementPlan.samplesThrough(passIndex)) return;
+        int[] origin = new int[2];
+        BufferedImage over = patch.overlap(x, y, part.getWidth(), part.getHeight(), origin);
+        if (over != null) imagePane.postTile(over, origin[0], origin[1]);
+    }
+
+    /** Renders the selected region alone at high sample count, in place in the canvas. */
+    private void onRenderRegion(int x, int y, int w, int h) {
+        if (currentScene == null) {
+            regionSelector.clear();
+            return;
+        }
+        // only centred windows of the frame's aspect render alone: skip selections that would cost a frame
+        RegionWindow window = RegionWindow.enclosing(width, height, x, y, w, h);
+        if (window.isWholeFrame()) {
+            regionSelector.clear();
+            qualityStatus.setText("Région ignorée : une image " + width + "x" + height
+                    + " ne se rend que complète (aucune fenêtre réduite de même proportion)");
+            return;
+        }
+        if ((long) window.width * window.height > MAX_REGION_OVERHEAD * (long) w * h) {
+            regionSelector.clear();
+            qualityStatus.setText("Région ignorée : il faudrait rendre " + window.width + "x" + window.height
+                    + " pixels autour du centre, sélectionner plus près du centre");
+            return;
+        }
+        RenderOptions opts = interactiveOptions();
+        opts.samplesPerPixel = regionSamples;
+        qualityStatus.setText("Région " + w + "x" + h + " à " + regionSamples + " spp…");
+        CompletableFuture<BufferedImage> job = renderService.renderRegion(currentScene,
+                currentScene.getCamera(), width, height, x, y, w, h, opts);
+        regionRender = job;
+        job.whenComplete((img, err) -> Platform.runLater(() -> {
+            if (regionRender != job) return;
+            regionRender = null;
+            regionSelector.clear();
+            if (err == null) {
+                regionPatch = new RegionPatch(img, x, y, regionSamples);
+                imagePane.postTile(img, x, y);
+                qualityStatus.setText("Région " + w + "x" + h + " : " + regionSamples + " spp");
+            } else if (!job.isCancelled()) {
+                Throwable cause = err.getCause() != null ? err.getCause() : err;
+                showError("Erreur de rendu de la région : " + cause);
+            }
+        }));
+    }
+
+    private synchronized void startRender() {
+        RenderOptions opts = interactiveOptions();
+
+        createCanvas(width, height);
+        lastRenderedImage = null;
+        // a new camera or scene invalidates the region (its render is cancelled by the service)
+        regionPatch = null;
+        regionRender = null;
+        regionSelector.clear();
+
+        // low-res preview first, then refined passes while the camera stays still
+        renderService.renderProgressive(currentScene, currentScene.getCamera(), width, height, opts,
+                refinementPlan, currentSceneHash, new RefinementListener() {
+                    @Override
+                    public void tileRendered(int passIndex, RenderUpdate update) {
+                        postTile(passIndex, update.imagePart, update.x, update.y);
+                    }
 
-        imagePane.createCanvas(width, height);
+                    @Override
+                    public void tileAccumulated(int passIndex, BufferedImage part, int x, int y) {
+                        postTile(passIndex, part, x, y);
+                    }
+
+                    @Override
+                    public void passCompleted(int passIndex, BufferedImage image, boolean last) {
+                        // passes only get better: the latest full-size one is the one to save.
+                        // A running average is overwritten by the next pass, except the last one:
+                        // until then saving copies the screen.
+                        if (refinementPlan.isAccumulating() && !last) {
+                            lastRenderedImage = null;
+                        } else if (image.getWidth() == width && image.getHeight() == height) {
+                            lastRenderedImage = image;
+                        }
+                        if (passIndex == 0) {
+                            String settings = previewQuality.toString();
+                            Platform.runLater(() -> qualityStatus.setText(settings));
+                        } else if (refinementPlan.isAccumulating()) {
+                            String settings = previewQuality + " — " + refinementPlan.samplesThrough(passIndex) + " spp";
+                            Platform.runLater(() -> qualityStatus.setText(settings));
+                        }
+                        imagePane.postImage(image);
+                        RegionPatch patch = regionPatch;
+                        if (patch != null && image.getWidth() == width && image.getHeight() == height
+                                && patch.samples > refinementPlan.samplesThrough(passIndex)) {
+                            imagePane.postTile(patch.image, patch.x, patch.y);
+                        }
+                    }
 
-        renderService.render(currentScene, currentScene.getCamera(), width, height, opts,
-                new ProgressListener() {
                     @Override
-                    public void onUpdate(RenderUpdate update) {
-                        Platform.runLater(() -> imagePane.applyBufferedPart(update.imagePart, update.x, update.y));
+                    public void renderFailed(int passIndex, Throwable error) {
+                        Platform.runLater(() -> showError("Erreur de rendu : " + error));
                     }
-                }, img -> Platform.runLater(() -> imagePane.setImageFromBuffered(img)));
+                });
     }
     
 
@@ -1,51 +1,82 @@
 package shapes_3d.gui;
 
+import javafx.application.Platform;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.PixelWriter;
-import javafx.scene.image.WritableImage;
+import shapes_3d.metrics.RenderMetrics;
 
 import java.awt.image.BufferedImage;
 
 /**
- * Petite classe UI qui encapsule l'ImageView et le WritableImage.
+ * Petite classe UI qui encapsule l'ImageView.
+ * <p>
+ * Le canevas de rendu est tenu par le {@link TileCompositor}, qui n'expose
+ * à JavaFX que le niveau de sa pyramide adapté à la taille affichée.
  */
 public class ImagePane {
 
     private final ImageView imageView;
-    private WritableImage canvasImage;
+    private final TileCompositor compositor;
 
     public ImagePane() {
         imageView = new ImageView();
         imageView.setPreserveRatio(true);
         imageView.setScaleY(-1);
         imageView.setSmooth(true);
+        compositor = new TileCompositor(imageView);
+        compositor.start();
     }
 
     public ImageView getImageView() {
         return imageView;
     }
 
+    /** Prépare un canevas vide de {@code width x height} pixels ; thread FX. */
     public void createCanvas(int width, int height) {
-        this.canvasImage = new WritableImage(width, height);
-        imageView.setImage(canvasImage);
+        compositor.attach(width, height);
     }
 
-    public void applyBufferedPart(BufferedImage part, int startX, int startY) {
-        if (canvasImage == null) return;
-        PixelWriter pw = canvasImage.getPixelWriter();
-        for (int y = 0; y < part.getHeight(); y++) {
-            for (int x = 0; x < part.getWidth(); x++) {
-                int argb = part.getRGB(x, y);
-                pw.setArgb(startX + x, startY + y, argb);
-            }
+    /**
+     * Contenu affiché en pleine résolution, dans l'ordre des lignes du
+     * renderer : le tampon du compositeur s'il est affiché, sinon l'image
+     * de l'ImageView (aperçu). Null si rien n'est affiché.
+     */
+    public BufferedImage snapshot() {
+        if (compositor.isShowing()) return compositor.copyFullResolution();
+        Image shown = imageView.getImage();
+        return shown != null ? SwingFXUtils.fromFXImage(shown, null) : null;
+    }
+
+    /**
+     * Dépose une tuile de rendu ; appelable depuis les threads de rendu.
+     * L'affichage est mis à jour au prochain pulse JavaFX.
+     */
+    public void postTile(BufferedImage part, int startX, int startY) {
+        compositor.postTile(part, startX, startY);
+    }
+
+    /**
+     * Affiche une image complète ; appelable depuis n'importe quel thread.
+     * Une image à la taille du canevas passe par le compositeur, les autres
+     * (aperçu basse résolution) remplacent l'image affichée.
+     */
+    public void postImage(BufferedImage img) {
+        if (compositor.fits(img)) {
+            compositor.postTile(img, 0, 0);
+        } else {
+            long postedAt = System.nanoTime();
+            Platform.runLater(() -> {
+                setImageFromBuffered(img);
+                RenderMetrics.getDefault().recordTileToScreen(System.nanoTime() - postedAt,
+                        (long) img.getWidth() * img.getHeight());
+            });
         }
-        imageView.setImage(canvasImage);
     }
 
     public void setImageFromBuffered(BufferedImage img) {
         Image fx = SwingFXUtils.toFXImage(img, null);
+        compositor.release();
         imageView.setImage(fx);
     }
 
@@ -0,0 +1,180 @@
+package shapes_3d.gui;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.control.Label;
+import javafx.scene.image.ImageView;
+import javafx.util.Duration;
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.parsing.ParsedScene;
+import shapes_3d.parsing.SceneLoader;
+import shapes_3d.renderer.RenderPriority;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Aperçu en direct du texte de l'éditeur, dans une vignette.
+ * <p>
+ * Chaque frappe relance un délai ; à son expiration, le texte est analysé
+ * sur un thread dédié puis, en cas de succès, rendu en basse résolution avec
+ * la priorité {@link RenderPriority#INTERACTIVE}. Une nouvelle frappe annule
+ * l'analyse et le rendu en cours : leurs résultats sont ignorés même si
+ * l'analyseur ne peut pas être interrompu. Rien ne tourne sur le thread FX
+ * hormis la lecture du texte et l'affichage de la vignette.
+ * <p>
+ * Les scènes analysées ici ont leur propre cache : la scène affichée dans
+ * l'onglet Image n'est jamais partagée avec la vignette.
+ */
+public class LivePreview {
+
+    private static final int DELAY_MILLIS = Integer.getInteger("shapes3d.liveDelayMs", 400);
+    private static final int THUMBNAIL_SIDE = Integer.getInteger("shapes3d.liveThumb", 240);
+
+    private final RenderService renderService;
+    private final Supplier<String> text;
+    private final ImageView thumbnail = new ImageView();
+    private final Label status = new Label();
+    private final SceneLoader loader = new SceneLoader(4);
+    private final PauseTransition pause = new PauseTransition(Duration.millis(DELAY_MILLIS));
+    private final ExecutorService parser = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "live-preview");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // FX thread only
+    private boolean enabled;
+    private long generation;
+    private Future<?> parse;
+    private CompletableFuture<BufferedImage> render;
+
+    /**
+     * @param text lit le texte de l'éditeur (appelé sur le thread FX, une fois par aperçu)
+     */
+    public LivePreview(RenderService renderService, Supplier<String> text) {
+        this.renderService = renderService;
+        this.text = text;
+        thumbnail.setPreserveRatio(true);
+        thumbnail.setFitWidth(THUMBNAIL_SIDE);
+        thumbnail.setFitHeight(THUMBNAIL_SIDE);
+        // renderer images are bottom-up, as in ImagePane
+        thumbnail.setScaleY(-1);
+        status.setWrapText(true);
+        status.setMaxWidth(THUMBNAIL_SIDE);
+        pause.setOnFinished(e -> start());
+    }
+
+    public ImageView getThumbnail() {
+        return thumbnail;
+    }
+
+    public Label getStatus() {
+        return status;
+    }
+
+    /** Active ou coupe l'aperçu ; à l'activation, le texte courant est rendu aussitôt. */
+    public void setEnabled(boolean on) {
+        enabled = on;
+        if (on) {
+            pause.stop();
+            start();
+        } else {
+            cancel();
+            status.setText("");
+        }
+    }
+
+    /** À appeler à chaque modification du texte (thread FX) : peu coûteux, le texte n'est pas lu ici. */
+    public void textEdited() {
+        if (!enabled) return;
+        cancel();
+        pause.playFromStart();
+    }
+
+    public void shutdown() {
+        cancel();
+        parser.shutdownNow();
+    }
+
+    private void cancel() {
+        generation++;
+        pause.stop();
+        if (parse != null) parse.cancel(true);
+        if (render != null) render.cancel(true);
+        parse = null;
+        render = null;
+    }
+
+    private void start() {
+        cancel();
+        String source = text.get();
+        if (source == null || source.isBlank()) {
+            status.setText("");
+            return;
+        }
+        long gen = generation;
+        long t0 = System.nanoTime();
+        status.setText("Analyse…");
+        parse = parser.submit(() -> {
+            try {
+                ParsedScene parsed = loader.parseText(source);
+                Platform.runLater(() -> parsed(gen, parsed, t0));
+            } catch (Exception e) {
+                if (Thread.currentThread().isInterrupted()) return;
+                String msg = e.getMessage() != null ? e.getMessage() : e.toString();
+                Platform.runLater(() -> {
+                    if (gen == generation) status.setText("Erreur : " + msg);
+                });
+            }
+        });
+    }
+
+    private void parsed(long gen, ParsedScene parsed, long t0) {
+        if (gen != generation) return;
+        parse = null;
+        Scene scene = parsed.getScene();
+        Camera cam = scene != null ? parsed.getCamera() : null;
+        if (cam == null) {
+            status.setText("Scène sans caméra");
+            return;
+        }
+        double scale = (double) THUMBNAIL_SIDE / Math.max(1, Math.max(scene.getWidth(), scene.getHeight()));
+        int w = Math.max(1, (int) Math.round(scene.getWidth() * scale));
+        int h = Math.max(1, (int) Math.round(scene.getHeight() * scale));
+
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = 1;
+        opts.maxDepth = 3;
+        opts.tileSize = 32;
+        opts.threadCount = Runtime.getRuntime().availableProcessors();
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+        status.setText("Rendu…");
+        CompletableFuture<BufferedImage> job = renderService.submit(scene, cam, w, h, opts,
+                RenderPriority.INTERACTIVE, null);
+        render = job;
+        job.whenComplete((img, err) -> Platform.runLater(() -> {
+            if (gen != generation) return;
+            render = null;
+            if (err != null) {
+                Throwable cause = err.getCause() != null ? err.getCause() : err;
+                status.setText("Erreur de rendu : " + cause.getMessage());
+                return;
+            }
+            thumbnail.setImage(SwingFXUtils.toFXImage(img, null));
+            int warnings = parsed.getWarnings().size();
+            status.setText(String.format(Locale.US, "%dx%d en %d ms%s", w, h, (System.nanoTime() - t0) / 1_000_000,
+                    warnings > 0 ? ", " + warnings + " warning(s)" : ""));
+        }));
+    }
+}
@@ -5,12 +5,9 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Tab;
 
-import ray_tracer.parsing.SceneFileParser;
+import shapes_3d.parsing.SceneParseException;
+import shapes_3d.parsing.SceneSource;
 
-import java.io.File;
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.List;
 
 /**
@@ -46,17 +43,17 @@ public class ParserIssuesController {
         this.sourceEditor = sourceEditor;
     }
 
-    public void updateWarnings() {
-        try {
-            List<String> warnings = SceneFileParser.getWarnings();
-            if (warnings == null) warningsList.getItems().clear();
-            else warningsList.getItems().setAll(warnings);
-        } catch (Exception e) {
-            warningsList.getItems().clear();
-        }
+    /** Shows the warnings captured for one particular parse. */
+    public void updateWarnings(List<String> warnings) {
+        if (warnings == null) warningsList.getItems().clear();
+        else warningsList.getItems().setAll(warnings);
     }
 
-    public void handleParserException(Throwable ex, File sceneFile) {
+    /**
+     * Shows the parser error and loads the already read source text into the
+     * editor, so that the user can fix it.
+     */
+    public void handleParserException(Throwable ex, SceneSource source) {
         Alert a = new Alert(Alert.AlertType.ERROR);
         a.setTitle("Erreur d'analyse");
         a.setHeaderText("ParserException lors du chargement");
@@ -67,12 +64,7 @@ public class ParserIssuesController {
 
         // Still load source text so user can edit
         try {
-            try {
-                String originalSceneContent = Files.readString(sceneFile.toPath(), StandardCharsets.UTF_8);
-                sourceEditor.setText(originalSceneContent);
-            } catch (IOException ioe) {
-                sourceEditor.setText("");
-            }
+            sourceEditor.setText(source != null ? source.text() : "");
             // enable editor-related controls
             try { sourceEditor.setDisable(false); } catch (Exception ignored) {}
             try { applyBtn.setDisable(false); } catch (Exception ignored) {}
@@ -84,12 +76,24 @@ public class ParserIssuesController {
             try { sourceTab.setDisable(false); warningsTab.setDisable(false); } catch (Exception ignored) {}
             try { imageTab.setDisable(true); saveImageBtn.setDisable(true); } catch (Exception ignored) {}
 
-            updateWarnings();
+            updateWarnings(warningsOf(ex));
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Warnings of the failed parse that raised {@code t}, or null when it did
+     * not come from the scene loader. Never read from the parser's global state,
+     * which may already belong to another parse.
+     */
+    public static List<String> warningsOf(Throwable t) {
+        for (Throwable cur = t; cur != null; cur = cur.getCause()) {
+            if (cur instanceof SceneParseException spe) return spe.getDiagnostics().getWarnings();
+        }
+        return null;
+    }
+
     public static boolean isParserException(Throwable t) {
         Throwable cur = t;
         while (cur != null) {
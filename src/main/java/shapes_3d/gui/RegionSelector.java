@@ -0,0 +1,124 @@
+package shapes_3d.gui;
+
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Sélection d'un rectangle à la souris sur l'image affichée.
+ * <p>
+ * Le rectangle est dessiné dans un calque transparent posé sur l'image et
+ * converti en pixels de l'image rendue. L'ImageView est retournée
+ * verticalement ({@code scaleY(-1)}) : ses coordonnées locales sont déjà
+ * celles du renderer (ligne 0 en bas), aucune inversion n'est nécessaire.
+ */
+public class RegionSelector {
+
+    /** Reçoit la région choisie, en pixels du renderer. */
+    public interface Listener {
+        void regionSelected(int x, int y, int width, int height);
+    }
+
+    // drags smaller than this are treated as clicks
+    private static final int MIN_PIXELS = 4;
+
+    private final ImageView view;
+    private final IntSupplier frameWidth;
+    private final IntSupplier frameHeight;
+    private final Listener listener;
+    private final Pane layer = new Pane();
+    private final Rectangle rect = new Rectangle();
+    private Point2D anchor;
+
+    public RegionSelector(ImageView view, IntSupplier frameWidth, IntSupplier frameHeight, Listener listener) {
+        this.view = view;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.listener = listener;
+        rect.setFill(Color.rgb(255, 255, 255, 0.12));
+        rect.setStroke(Color.WHITE);
+        rect.getStrokeDashArray().setAll(6.0, 4.0);
+        rect.setManaged(false);
+        rect.setVisible(false);
+        layer.getChildren().add(rect);
+        layer.setMouseTransparent(true);
+        layer.setMinSize(0, 0);
+
+        view.addEventHandler(MouseEvent.MOUSE_PRESSED, this::onPressed);
+        view.addEventHandler(MouseEvent.MOUSE_DRAGGED, this::onDragged);
+        view.addEventHandler(MouseEvent.MOUSE_RELEASED, this::onReleased);
+    }
+
+    /** Calque à empiler au-dessus de l'ImageView. */
+    public Pane getNode() {
+        return layer;
+    }
+
+    /** Efface le rectangle (région rendue, annulée ou caméra déplacée). */
+    public void clear() {
+        rect.setVisible(false);
+    }
+
+    private void onPressed(MouseEvent ev) {
+        if (ev.getButton() != MouseButton.PRIMARY) return;
+        anchor = clamp(ev.getX(), ev.getY());
+        rect.setVisible(false);
+    }
+
+    private void onDragged(MouseEvent ev) {
+        if (anchor == null) return;
+        Point2D a = toLayer(anchor);
+        Point2D b = toLayer(clamp(ev.getX(), ev.getY()));
+        rect.setX(Math.min(a.getX(), b.getX()));
+        rect.setY(Math.min(a.getY(), b.getY()));
+        rect.setWidth(Math.abs(a.getX() - b.getX()));
+        rect.setHeight(Math.abs(a.getY() - b.getY()));
+        rect.setVisible(true);
+    }
+
+    private void onReleased(MouseEvent ev) {
+        if (anchor == null) return;
+        Point2D start = anchor;
+        anchor = null;
+        Point2D end = clamp(ev.getX(), ev.getY());
+        Bounds b = view.getLayoutBounds();
+        int fw = frameWidth.getAsInt();
+        int fh = frameHeight.getAsInt();
+        if (b.getWidth() <= 0 || b.getHeight() <= 0 || fw <= 0 || fh <= 0) {
+            clear();
+            return;
+        }
+        double sx = fw / b.getWidth();
+        double sy = fh / b.getHeight();
+        int x0 = (int) Math.floor((Math.min(start.getX(), end.getX()) - b.getMinX()) * sx);
+        int y0 = (int) Math.floor((Math.min(start.getY(), end.getY()) - b.getMinY()) * sy);
+        int x1 = (int) Math.ceil((Math.max(start.getX(), end.getX()) - b.getMinX()) * sx);
+        int y1 = (int) Math.ceil((Math.max(start.getY(), end.getY()) - b.getMinY()) * sy);
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(fw, x1);
+        y1 = Math.min(fh, y1);
+        if (x1 - x0 < MIN_PIXELS || y1 - y0 < MIN_PIXELS) {
+            clear();
+            return;
+        }
+        listener.regionSelected(x0, y0, x1 - x0, y1 - y0);
+    }
+
+    private Point2D clamp(double x, double y) {
+        Bounds b = view.getLayoutBounds();
+        return new Point2D(Math.max(b.getMinX(), Math.min(b.getMaxX(), x)),
+                Math.max(b.getMinY(), Math.min(b.getMaxY(), y)));
+    }
+
+    private Point2D toLayer(Point2D viewPoint) {
+        return layer.sceneToLocal(view.localToScene(viewPoint));
+    }
+}
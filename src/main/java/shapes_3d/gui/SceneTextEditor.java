@@ -9,11 +9,19 @@ import javafx.beans.value.ChangeListener;
 import javafx.util.Duration;
 import org.fxmisc.richtext.CodeArea;
 import org.fxmisc.richtext.LineNumberFactory;
+import org.fxmisc.richtext.model.PlainTextChange;
 import org.fxmisc.richtext.model.StyleSpans;
 import org.fxmisc.richtext.model.StyleSpansBuilder;
+import org.fxmisc.richtext.model.TwoDimensional;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,6 +34,18 @@ public class SceneTextEditor extends VBox {
     private final CodeArea codeArea;
     private final VirtualizedScrollPane<CodeArea> vsPane;
 
+    // paragraphs whose highlighting is out of date (FX thread only)
+    private final BitSet dirty = new BitSet();
+    private final PauseTransition pause = new PauseTransition(Duration.millis(100));
+    private final ExecutorService highlighter = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "scene-highlighter");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> highlightJob;
+    // bumped on every edit: results computed for an older version are dropped
+    private long version;
+
     public SceneTextEditor() {
         codeArea = new CodeArea();
         // show line numbers in the gutter
@@ -35,12 +55,12 @@ public class SceneTextEditor extends VBox {
         VBox.setVgrow(vsPane, Priority.ALWAYS);
         // Keep inner CodeArea in sync with this control's disabled state
         disabledProperty().addListener((obs, oldVal, newVal) -> codeArea.setDisable(newVal));
-        // Simple syntax highlighting debounce
-        PauseTransition pause = new PauseTransition(Duration.millis(250));
-        codeArea.textProperty().addListener((obs, oldText, newText) -> {
-            pause.stop();
-            pause.setOnFinished(e -> applyHighlighting(newText));
-            pause.playFromStart();
+        // Incremental highlighting: only edited paragraphs, computed in the background
+        pause.setOnFinished(e -> highlightNextBatch());
+        codeArea.plainTextChanges().subscribe(this::onTextChange);
+        // scrolling to paragraphs not highlighted yet brings them to the front of the queue
+        codeArea.viewportDirtyEvents().subscribe(e -> {
+            if (!dirty.isEmpty() && (highlightJob == null || highlightJob.isDone())) pause.playFromStart();
         });
     }
 
@@ -81,6 +101,14 @@ public class SceneTextEditor extends VBox {
         codeArea.textProperty().addListener(listener);
     }
 
+    /**
+     * Called on every edit, without building the full text (unlike a
+     * listener on the text property).
+     */
+    public void addEditListener(Runnable listener) {
+        codeArea.plainTextChanges().subscribe(change -> listener.run());
+    }
+
     // --- simple syntax highlighting implementation -----------------
     private static final String[] KEYWORDS = new String[] {
             "camera", "size", "sphere", "material", "light", "plane", "box", "triangle",
@@ -98,13 +126,93 @@ public class SceneTextEditor extends VBox {
                     "|(?<NUMBER>" + NUMBER_PATTERN + ")"
     );
 
-    private void applyHighlighting(String text) {
-        if (text == null || text.isEmpty()) {
-            StyleSpansBuilder<Collection<String>> emptyBuilder = new StyleSpansBuilder<>();
-            emptyBuilder.add(Collections.emptyList(), 0);
-            codeArea.setStyleSpans(0, emptyBuilder.create());
-            return;
+    /** Paragraphs highlighted per background job. */
+    private static final int BATCH_PARAGRAPHS = 2000;
+
+    private void onTextChange(PlainTextChange change) {
+        version++;
+        if (highlightJob != null) highlightJob.cancel(true);
+
+        int start = codeArea.offsetToPosition(change.getPosition(), TwoDimensional.Bias.Forward).getMajor();
+        int removedLines = countLines(change.getRemoved());
+        int insertedLines = countLines(change.getInserted());
+        if (removedLines != insertedLines) {
+            // keep pending paragraphs below the edit attached to their text
+            int oldTail = start + removedLines + 1;
+            BitSet tail = dirty.get(oldTail, Math.max(oldTail, dirty.length()));
+            dirty.clear(start + 1, Math.max(start + 1, dirty.length()));
+            int newTail = start + insertedLines + 1;
+            for (int i = tail.nextSetBit(0); i >= 0; i = tail.nextSetBit(i + 1)) dirty.set(newTail + i);
         }
+        dirty.set(start, start + insertedLines + 1);
+        pause.playFromStart();
+    }
+
+    private static int countLines(String s) {
+        int n = 0;
+        for (int i = s.indexOf('\n'); i >= 0; i = s.indexOf('\n', i + 1)) n++;
+        return n;
+    }
+
+    /**
+     * Highlights the next batch of dirty paragraphs, visible ones first.
+     * Paragraph texts are snapshotted here; regex matching runs on the
+     * highlighter thread and the spans are applied back on the FX thread.
+     */
+    private void highlightNextBatch() {
+        int parCount = codeArea.getParagraphs().size();
+        dirty.clear(parCount, Math.max(parCount, dirty.length()));
+        if (dirty.isEmpty()) return;
+
+        List<Integer> pars = new ArrayList<>();
+        int first = -1;
+        int last = -2;
+        int visibleCount = codeArea.getVisibleParagraphs().size();
+        if (visibleCount > 0) {
+            try {
+                first = codeArea.visibleParToAllParIndex(0);
+                last = codeArea.visibleParToAllParIndex(visibleCount - 1);
+                for (int i = dirty.nextSetBit(first); i >= 0 && i <= last; i = dirty.nextSetBit(i + 1)) pars.add(i);
+            } catch (RuntimeException ignored) {
+                // viewport not laid out yet
+                first = -1;
+                last = -2;
+            }
+        }
+        for (int i = dirty.nextSetBit(0); i >= 0 && pars.size() < BATCH_PARAGRAPHS; i = dirty.nextSetBit(i + 1)) {
+            if (i < first || i > last) pars.add(i);
+        }
+        String[] texts = new String[pars.size()];
+        for (int k = 0; k < texts.length; k++) texts[k] = codeArea.getText(pars.get(k));
+
+        long jobVersion = version;
+        highlightJob = highlighter.submit(() -> {
+            List<StyleSpans<Collection<String>>> spans = new ArrayList<>(texts.length);
+            for (String text : texts) {
+                if (Thread.currentThread().isInterrupted()) return;
+                spans.add(computeHighlighting(text));
+            }
+            Platform.runLater(() -> applyBatch(jobVersion, pars, texts, spans));
+        });
+    }
+
+    private void applyBatch(long jobVersion, List<Integer> pars, String[] texts,
+                            List<StyleSpans<Collection<String>>> spans) {
+        if (jobVersion != version) return; // edited meanwhile: a newer job takes over
+        int parCount = codeArea.getParagraphs().size();
+        for (int k = 0; k < texts.length; k++) {
+            int par = pars.get(k);
+            if (par >= parCount) continue;
+            StyleSpans<Collection<String>> s = spans.get(k);
+            if (s != null) codeArea.setStyleSpans(par, 0, s);
+            dirty.clear(par);
+        }
+        if (!dirty.isEmpty()) highlightNextBatch();
+    }
+
+    /** Spans for one paragraph, or null when there is nothing to style. */
+    static StyleSpans<Collection<String>> computeHighlighting(String text) {
+        if (text.isEmpty()) return null;
         Matcher matcher = PATTERN.matcher(text);
         int lastKwEnd = 0;
         StyleSpansBuilder<Collection<String>> spansBuilder = new StyleSpansBuilder<>();
@@ -120,8 +228,7 @@ public class SceneTextEditor extends VBox {
             lastKwEnd = matcher.end();
         }
         spansBuilder.add(Collections.emptyList(), text.length() - lastKwEnd);
-        StyleSpans<Collection<String>> spans = spansBuilder.create();
-        Platform.runLater(() -> codeArea.setStyleSpans(0, spans));
+        return spansBuilder.create();
     }
 
     // Propagate disabled property to inner CodeArea so callers can use the regular Node API
@@ -0,0 +1,58 @@
+package shapes_3d.gui;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+import shapes_3d.metrics.RenderMetrics;
+
+/**
+ * Panneau semi-transparent affiché par-dessus l'image, qui présente le
+ * résumé de {@link RenderMetrics}. Rafraîchi uniquement lorsqu'il est visible.
+ */
+public class StatsOverlay {
+
+    private static final Duration REFRESH = Duration.millis(250);
+
+    private final RenderMetrics metrics;
+    private final Label label = new Label();
+    private final Timeline refresh;
+
+    public StatsOverlay(RenderMetrics metrics) {
+        this.metrics = metrics;
+        label.setStyle("-fx-background-color: rgba(0, 0, 0, 0.6); -fx-text-fill: white;"
+                + " -fx-font-family: monospace; -fx-font-size: 11px; -fx-background-radius: 4;");
+        label.setPadding(new Insets(6));
+        label.setMouseTransparent(true);
+        label.setVisible(false);
+        StackPane.setAlignment(label, Pos.TOP_LEFT);
+        StackPane.setMargin(label, new Insets(8));
+        refresh = new Timeline(new KeyFrame(REFRESH, ev -> update()));
+        refresh.setCycleCount(Timeline.INDEFINITE);
+    }
+
+    public Label getNode() {
+        return label;
+    }
+
+    public boolean isShown() {
+        return label.isVisible();
+    }
+
+    public void setShown(boolean shown) {
+        label.setVisible(shown);
+        if (shown) {
+            update();
+            refresh.play();
+        } else {
+            refresh.stop();
+        }
+    }
+
+    private void update() {
+        label.setText(metrics.summary());
+    }
+}
@@ -0,0 +1,331 @@
+package shapes_3d.gui;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.stage.Window;
+import shapes_3d.metrics.RenderMetrics;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Compositeur cadencé par les pulses JavaFX.
+ * <p>
+ * Les threads de rendu écrivent les tuiles terminées dans un tampon arrière
+ * partagé et agrandissent un rectangle « sale ». À chaque pulse, le thread FX
+ * envoie uniquement ce rectangle fusionné vers le {@link WritableImage} :
+ * au plus un envoi par image affichée, quel que soit le débit de tuiles.
+ * Le délai entre le dépôt de la plus ancienne tuile en attente et son envoi
+ * est reporté dans {@link RenderMetrics}.
+ * <p>
+ * Le tampon arrière est doublé d'une pyramide de réductions successives par
+ * deux (moyenne 2x2), mise à jour tuile par tuile sous le verrou (les
+ * tuiles voisines partagent des pixels réduits). Seul le niveau qui
+ * correspond à la taille affichée existe côté JavaFX : une image 8K affichée
+ * dans une fenêtre de 1200 pixels n'envoie et ne stocke qu'un niveau de
+ * 1920 pixels de large. La pleine résolution n'est utilisée que si l'image
+ * est affichée au moins à sa taille réelle.
+ */
+public class TileCompositor {
+
+    // no level is made smaller than this (longest side, in pixels)
+    private static final int MIN_LEVEL_SIDE = 256;
+
+    private final ImageView view;
+    private final Object lock = new Object();
+    private final AnimationTimer timer;
+
+    // guarded by lock, except tile copies into levels[0]; levels[0] is the full-resolution back buffer
+    private int[][] levels;
+    private int[] levelWidths;
+    private int[] levelHeights;
+    private int shown;
+    private WritableImage target;
+    // false while another image (low-res preview) is displayed
+    private boolean owning;
+    private int width;
+    private int height;
+    private int dirtyMinX;
+    private int dirtyMinY;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+    // nanoTime of the oldest tile not yet uploaded, -1 if none
+    private long pendingSince = -1;
+
+    public TileCompositor(ImageView view) {
+        this.view = view;
+        clearDirty();
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                flush();
+            }
+        };
+        view.fitWidthProperty().addListener((obs, was, now) -> selectLevel());
+        view.fitHeightProperty().addListener((obs, was, now) -> selectLevel());
+    }
+
+    /** Démarre la composition ; à appeler depuis le thread FX. */
+    public void start() {
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Prépare une image de {@code w x h} pixels (thread FX). Le tampon et la
+     * pyramide sont conservés si la taille ne change pas.
+     */
+    public void attach(int w, int h) {
+        synchronized (lock) {
+            if (levels == null || w != width || h != height) {
+                allocate(w, h);
+                shown = -1;
+            }
+            width = w;
+            height = h;
+            owning = true;
+        }
+        selectLevel();
+    }
+
+    /** Niveau de la pyramide actuellement affiché (0 : pleine résolution). */
+    public int getShownLevel() {
+        synchronized (lock) {
+            return shown;
+        }
+    }
+
+    /** Écrit une tuile dans le tampon arrière ; appelable depuis n'importe quel thread. */
+    public void postTile(BufferedImage part, int x, int y) {
+        long postedAt = System.nanoTime();
+        int[][] pyramid;
+        int[] lw;
+        int[] lh;
+        synchronized (lock) {
+            pyramid = levels;
+            lw = levelWidths;
+            lh = levelHeights;
+        }
+        if (pyramid == null || x < 0 || y < 0) return;
+        int w = Math.min(part.getWidth(), lw[0] - x);
+        int h = Math.min(part.getHeight(), lh[0] - y);
+        if (w <= 0 || h <= 0) return;
+
+        copyArgb(part, w, h, pyramid[0], y * lw[0] + x, lw[0]);
+
+        synchronized (lock) {
+            // a reattach with another size made this tile stale
+            if (pyramid == levels) {
+                // coarse pixels are shared by neighbouring tiles: one tile at a time, after its copy
+                downsample(pyramid, lw, lh, x, y, x + w, y + h);
+                markDirty(x, y, w, h);
+                owning = true;
+                if (pendingSince < 0) pendingSince = postedAt;
+            }
+        }
+    }
+
+    /** Vrai si l'image a exactement la taille du tampon arrière. */
+    public boolean fits(BufferedImage img) {
+        synchronized (lock) {
+            return levels != null && img.getWidth() == width && img.getHeight() == height;
+        }
+    }
+
+    /**
+     * Rend l'ImageView à l'appelant, qui y place une autre image : les
+     * changements de niveau ne la remplacent plus jusqu'à la prochaine tuile.
+     */
+    public void release() {
+        synchronized (lock) {
+            owning = false;
+        }
+    }
+
+    /** Vrai si l'ImageView affiche actuellement l'image de ce compositeur. */
+    public boolean isShowing() {
+        synchronized (lock) {
+            return target != null && view.getImage() == target;
+        }
+    }
+
+    /** Copie pleine résolution du tampon arrière (lignes dans l'ordre du renderer), ou null. */
+    public BufferedImage copyFullResolution() {
+        synchronized (lock) {
+            if (levels == null) return null;
+            BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            img.getRaster().setDataElements(0, 0, width, height, levels[0]);
+            return img;
+        }
+    }
+
+    /** Choisit le niveau d'après la taille affichée ; thread FX. */
+    private void selectLevel() {
+        synchronized (lock) {
+            if (levels == null) return;
+            int level = levelFor(displayScale());
+            if (level == shown && target != null) return;
+            shown = level;
+            if (target == null || (int) target.getWidth() != levelWidths[level]
+                    || (int) target.getHeight() != levelHeights[level]) {
+                target = new WritableImage(levelWidths[level], levelHeights[level]);
+            }
+            // the target holds another level (or nothing yet): upload the whole level
+            markDirty(0, 0, width, height);
+        }
+    }
+
+    // on-screen pixels per image pixel, HiDPI included
+    private double displayScale() {
+        double fw = view.getFitWidth();
+        double fh = view.getFitHeight();
+        if (fw <= 0 && fh <= 0) return 1;
+        double scale = Double.MAX_VALUE;
+        if (fw > 0) scale = fw / width;
+        if (fh > 0) scale = Math.min(scale, fh / height);
+        Window window = view.getScene() != null ? view.getScene().getWindow() : null;
+        if (window != null) scale *= window.getOutputScaleX();
+        return scale;
+    }
+
+    // coarsest level that still has at least one pixel per screen pixel
+    private int levelFor(double scale) {
+        int level = 0;
+        while (level + 1 < levels.length && scale * (1 << (level + 1)) <= 1.0) level++;
+        return level;
+    }
+
+    private void allocate(int w, int h) {
+        int count = 1;
+        while (Math.max(w, h) >> count >= MIN_LEVEL_SIDE) count++;
+        levels = new int[count][];
+        levelWidths = new int[count];
+        levelHeights = new int[count];
+        for (int k = 0; k < count; k++) {
+            levelWidths[k] = Math.max(1, ceilShift(w, k));
+            levelHeights[k] = Math.max(1, ceilShift(h, k));
+            levels[k] = new int[levelWidths[k] * levelHeights[k]];
+        }
+    }
+
+    /** Recalcule, niveau par niveau, les pixels réduits qui couvrent le rectangle modifié. */
+    static void downsample(int[][] pyramid, int[] lw, int[] lh, int x0, int y0, int x1, int y1) {
+        for (int k = 1; k < pyramid.length; k++) {
+            int[] src = pyramid[k - 1];
+            int[] dst = pyramid[k];
+            int sw = lw[k - 1];
+            int sh = lh[k - 1];
+            int dw = lw[k];
+            x0 >>= 1;
+            y0 >>= 1;
+            x1 = Math.min(dw, (x1 + 1) >> 1);
+            y1 = Math.min(lh[k], (y1 + 1) >> 1);
+            for (int j = y0; j < y1; j++) {
+                int r0 = 2 * j * sw;
+                int r1 = 2 * j + 1 < sh ? r0 + sw : r0;
+                for (int i = x0; i < x1; i++) {
+                    int c0 = 2 * i;
+                    int c1 = c0 + 1 < sw ? c0 + 1 : c0;
+                    dst[j * dw + i] = average(src[r0 + c0], src[r0 + c1], src[r1 + c0], src[r1 + c1]);
+                }
+            }
+        }
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int alpha = (((a >>> 24) + (b >>> 24) + (c >>> 24) + (d >>> 24) + 2) >> 2) << 24;
+        int red = ((((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) >> 2) << 16;
+        int green = ((((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF) + ((d >> 8) & 0xFF) + 2) >> 2) << 8;
+        int blue = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+        return alpha | red | green | blue;
+    }
+
+    private static int ceilShift(int v, int k) {
+        return (v + (1 << k) - 1) >> k;
+    }
+
+    private void flush() {
+        WritableImage img;
+        int[] buf = null;
+        int stride = 0;
+        int x0 = 0, y0 = 0, x1 = 0, y1 = 0;
+        long since = -1;
+        boolean show;
+        synchronized (lock) {
+            if (target == null) return;
+            img = target;
+            show = owning;
+            if (dirtyMaxX >= 0) {
+                int k = shown;
+                buf = levels[k];
+                stride = levelWidths[k];
+                x0 = dirtyMinX >> k;
+                y0 = dirtyMinY >> k;
+                x1 = Math.min(levelWidths[k], ceilShift(dirtyMaxX, k));
+                y1 = Math.min(levelHeights[k], ceilShift(dirtyMaxY, k));
+                since = pendingSince;
+                pendingSince = -1;
+                clearDirty();
+            }
+        }
+        // uploaded outside the lock: a tile written meanwhile is marked dirty again for the next pulse
+        if (buf != null) {
+            img.getPixelWriter().setPixels(x0, y0, x1 - x0, y1 - y0, PixelFormat.getIntArgbInstance(),
+                    buf, y0 * stride + x0, stride);
+        }
+        // a reattached target is already up to date: it only has to be shown again
+        if (show && view.getImage() != img) view.setImage(img);
+        if (since >= 0) {
+            RenderMetrics.getDefault().recordTileToScreen(System.nanoTime() - since, (long) (x1 - x0) * (y1 - y0));
+        }
+    }
+
+    private void markDirty(int x, int y, int w, int h) {
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x + w);
+        dirtyMaxY = Math.max(dirtyMaxY, y + h);
+    }
+
+    private void clearDirty() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = -1;
+        dirtyMaxY = -1;
+    }
+
+    /**
+     * Copie {@code w x h} pixels de {@code src} en ARGB non prémultiplié dans {@code dst}.
+     * Les rasters {@code int} sont lus directement dans leur {@link DataBufferInt}.
+     */
+    static void copyArgb(BufferedImage src, int w, int h, int[] dst, int dstOffset, int dstStride) {
+        Raster raster = src.getRaster();
+        int type = src.getType();
+        if ((type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && raster.getDataBuffer() instanceof DataBufferInt db
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sm) {
+            int[] data = db.getData();
+            int stride = sm.getScanlineStride();
+            int offset = db.getOffset() + sm.getOffset(-raster.getSampleModelTranslateX(),
+                    -raster.getSampleModelTranslateY());
+            for (int row = 0; row < h; row++) {
+                int s = offset + row * stride;
+                int d = dstOffset + row * dstStride;
+                if (type == BufferedImage.TYPE_INT_ARGB) {
+                    System.arraycopy(data, s, dst, d, w);
+                } else {
+                    for (int i = 0; i < w; i++) dst[d + i] = data[s + i] | 0xFF000000;
+                }
+            }
+        } else {
+            src.getRGB(0, 0, w, h, dst, dstOffset, dstStride);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package shapes_3d.metrics;
+
+/**
+ * Statistiques cumulées d'une durée (nanosecondes) : nombre, moyenne, min,
+ * max, dernière valeur et moyenne glissante exponentielle.
+ */
+public final class LatencyStat {
+
+    private static final double EWMA_WEIGHT = 0.1;
+
+    private final String name;
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private long last;
+    private double ewma;
+
+    LatencyStat(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long nanos) {
+        if (nanos < 0) return;
+        count++;
+        total += nanos;
+        min = Math.min(min, nanos);
+        max = Math.max(max, nanos);
+        last = nanos;
+        ewma = count == 1 ? nanos : ewma + EWMA_WEIGHT * (nanos - ewma);
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(count, count == 0 ? 0 : total / count, count == 0 ? 0 : min, max, last, (long) ewma);
+    }
+
+    synchronized void reset() {
+        count = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+        last = 0;
+        ewma = 0;
+    }
+
+    /** Valeurs figées d'un {@link LatencyStat}, en nanosecondes. */
+    public static final class Snapshot {
+        public final long count;
+        public final long mean;
+        public final long min;
+        public final long max;
+        public final long last;
+        public final long recent;
+
+        Snapshot(long count, long mean, long min, long max, long last, long recent) {
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+            this.last = last;
+            this.recent = recent;
+        }
+
+        @Override
+        public String toString() {
+            if (count == 0) return "-";
+            return String.format(java.util.Locale.US, "dern. %.1f ms, moy. %.1f ms, max %.1f ms (n=%d)",
+                    last / 1e6, mean / 1e6, max / 1e6, count);
+        }
+    }
+}
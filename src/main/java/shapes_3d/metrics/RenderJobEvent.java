@@ -0,0 +1,45 @@
+package shapes_3d.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Un job de rendu, de sa soumission à son issue. */
+@Name("shapes3d.RenderJob")
+@Label("Render Job")
+@Category({"Shapes 3D", "Rendering"})
+@Description("Rendu soumis à RenderService, de la soumission à l'image finale ou à l'annulation")
+public class RenderJobEvent extends Event {
+
+    @Label("Job Id")
+    long jobId;
+
+    @Label("Priority")
+    String priority;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Samples Per Pixel")
+    int samplesPerPixel;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Time To First Tile")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToFirstTile;
+
+    @Label("Tiles")
+    int tiles;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+}
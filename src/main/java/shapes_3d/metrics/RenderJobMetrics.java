@@ -0,0 +1,98 @@
+package shapes_3d.metrics;
+
+/**
+ * Mesures d'un job de rendu : première tuile, tâches exécutées, temps CPU
+ * et issue. Le temps CPU des tâches qui se terminent après l'annulation du
+ * job est compté comme perdu.
+ */
+public final class RenderJobMetrics {
+
+    public enum Outcome { COMPLETED, CANCELLED, FAILED }
+
+    private final RenderMetrics registry;
+    private final long id;
+    private final String priority;
+    private final RenderJobEvent event = new RenderJobEvent();
+    private final long startNanos = System.nanoTime();
+
+    // guarded by this
+    private long firstTileNanos = -1;
+    private int tiles;
+    private long cpuNanos;
+    private Outcome outcome;
+
+    RenderJobMetrics(RenderMetrics registry, long id, String priority, int width, int height, int samplesPerPixel) {
+        this.registry = registry;
+        this.id = id;
+        this.priority = priority;
+        event.begin();
+        event.jobId = id;
+        event.priority = priority;
+        event.width = width;
+        event.height = height;
+        event.samplesPerPixel = samplesPerPixel;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /** Tuile livrée au listener de progression. */
+    public void tileDelivered() {
+        long elapsed;
+        synchronized (this) {
+            tiles++;
+            if (firstTileNanos >= 0) return;
+            elapsed = System.nanoTime() - startNanos;
+            firstTileNanos = elapsed;
+        }
+        registry.recordFirstTile(elapsed);
+    }
+
+    /** Tâche du renderer exécutée pour ce job sur un thread du pool. */
+    public void taskCompleted(long wallNanos, long cpu) {
+        registry.recordTile(wallNanos, cpu);
+        boolean wasted;
+        synchronized (this) {
+            if (cpu > 0) cpuNanos += cpu;
+            wasted = outcome == Outcome.CANCELLED;
+        }
+        if (wasted) registry.recordWasted(cpu);
+
+        RenderTileEvent tile = new RenderTileEvent();
+        if (tile.shouldCommit()) {
+            tile.jobId = id;
+            tile.priority = priority;
+            tile.cpuTime = cpu;
+            tile.wallTime = wallNanos;
+            tile.afterCancel = wasted;
+            tile.commit();
+        }
+    }
+
+    /** Clôt le job ; les appels suivants sont ignorés. */
+    public void finish(Outcome result) {
+        long latency = System.nanoTime() - startNanos;
+        long cpu;
+        long firstTile;
+        int tileCount;
+        synchronized (this) {
+            if (outcome != null) return;
+            outcome = result;
+            cpu = cpuNanos;
+            firstTile = firstTileNanos;
+            tileCount = tiles;
+        }
+        registry.recordJob(result, latency);
+        if (result == Outcome.CANCELLED) registry.recordWasted(cpu);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.outcome = result.name();
+            event.timeToFirstTile = firstTile;
+            event.tiles = tileCount;
+            event.cpuTime = cpu;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package shapes_3d.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registre des métriques de rendu du processus.
+ * <p>
+ * Alimenté par {@code RenderService} (jobs et tuiles) et par le compositeur
+ * de l'interface (délai tuile → écran). Chaque mesure est aussi émise comme
+ * événement JFR ({@link RenderJobEvent}, {@link RenderTileEvent},
+ * {@link TileDisplayEvent}) lorsqu'un enregistrement est actif :
+ * {@code java -XX:StartFlightRecording=filename=rendu.jfr ...}.
+ */
+public final class RenderMetrics {
+
+    private static final RenderMetrics DEFAULT = new RenderMetrics();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME;
+
+    static {
+        boolean supported = false;
+        try {
+            supported = THREADS.isCurrentThreadCpuTimeSupported();
+            if (supported && !THREADS.isThreadCpuTimeEnabled()) THREADS.setThreadCpuTimeEnabled(true);
+        } catch (Exception ignored) {
+            supported = false;
+        }
+        CPU_TIME = supported;
+    }
+
+    private final LatencyStat timeToFirstTile = new LatencyStat("Première tuile");
+    private final LatencyStat tileTime = new LatencyStat("Tuile");
+    private final LatencyStat jobLatency = new LatencyStat("Job");
+    private final LatencyStat tileToScreen = new LatencyStat("Tuile → écran");
+    private final AtomicLong jobIds = new AtomicLong();
+    private final AtomicLong jobsCompleted = new AtomicLong();
+    private final AtomicLong jobsCancelled = new AtomicLong();
+    private final AtomicLong jobsFailed = new AtomicLong();
+    private final AtomicLong tiles = new AtomicLong();
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong wastedCpuNanos = new AtomicLong();
+
+    /** Registre partagé par le service de rendu et l'interface. */
+    public static RenderMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /** Temps CPU du thread courant en nanosecondes, ou -1 si la JVM ne le mesure pas. */
+    public static long currentThreadCpuNanos() {
+        return CPU_TIME ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /** Ouvre le suivi d'un job ; à clore par {@link RenderJobMetrics#finish}. */
+    public RenderJobMetrics startJob(String priority, int width, int height, int samplesPerPixel) {
+        return new RenderJobMetrics(this, jobIds.incrementAndGet(), priority, width, height, samplesPerPixel);
+    }
+
+    /** Délai entre le dépôt d'une tuile et son envoi vers l'image affichée. */
+    public void recordTileToScreen(long delayNanos, long pixels) {
+        tileToScreen.record(delayNanos);
+        TileDisplayEvent event = new TileDisplayEvent();
+        if (event.shouldCommit()) {
+            event.delay = delayNanos;
+            event.pixels = pixels;
+            event.commit();
+        }
+    }
+
+    void recordTile(long wallNanos, long cpu) {
+        tiles.incrementAndGet();
+        tileTime.record(wallNanos);
+        if (cpu > 0) cpuNanos.addAndGet(cpu);
+    }
+
+    void recordFirstTile(long nanos) {
+        timeToFirstTile.record(nanos);
+    }
+
+    void recordWasted(long cpu) {
+        if (cpu > 0) wastedCpuNanos.addAndGet(cpu);
+    }
+
+    void recordJob(RenderJobMetrics.Outcome outcome, long latencyNanos) {
+        switch (outcome) {
+            case COMPLETED -> {
+                jobsCompleted.incrementAndGet();
+                jobLatency.record(latencyNanos);
+            }
+            case CANCELLED -> jobsCancelled.incrementAndGet();
+            case FAILED -> jobsFailed.incrementAndGet();
+        }
+    }
+
+    public LatencyStat getTimeToFirstTile() {
+        return timeToFirstTile;
+    }
+
+    public LatencyStat getTileTime() {
+        return tileTime;
+    }
+
+    /** Latence des jobs terminés avec succès, de la soumission à l'image finale. */
+    public LatencyStat getJobLatency() {
+        return jobLatency;
+    }
+
+    public LatencyStat getTileToScreen() {
+        return tileToScreen;
+    }
+
+    public long getJobsCompleted() {
+        return jobsCompleted.get();
+    }
+
+    public long getJobsCancelled() {
+        return jobsCancelled.get();
+    }
+
+    public long getJobsFailed() {
+        return jobsFailed.get();
+    }
+
+    public long getTiles() {
+        return tiles.get();
+    }
+
+    /** Temps CPU total des tâches de rendu. */
+    public long getCpuNanos() {
+        return cpuNanos.get();
+    }
+
+    /** Temps CPU consommé par des jobs finalement annulés. */
+    public long getWastedCpuNanos() {
+        return wastedCpuNanos.get();
+    }
+
+    public void reset() {
+        timeToFirstTile.reset();
+        tileTime.reset();
+        jobLatency.reset();
+        tileToScreen.reset();
+        jobsCompleted.set(0);
+        jobsCancelled.set(0);
+        jobsFailed.set(0);
+        tiles.set(0);
+        cpuNanos.set(0);
+        wastedCpuNanos.set(0);
+    }
+
+    /** Résumé multi-lignes (overlay de l'interface, fin de lot). */
+    public String summary() {
+        long cpu = cpuNanos.get();
+        long wasted = wastedCpuNanos.get();
+        return String.format(Locale.US,
+                "Jobs : %d terminés, %d annulés, %d en échec%n"
+                        + "Première tuile : %s%n"
+                        + "Tuile : %s%n"
+                        + "Job : %s%n"
+                        + "Tuile → écran : %s%n"
+                        + "CPU : %.2f s, perdu en annulations : %.2f s (%.0f %%)",
+                jobsCompleted.get(), jobsCancelled.get(), jobsFailed.get(),
+                timeToFirstTile.snapshot(), tileTime.snapshot(), jobLatency.snapshot(), tileToScreen.snapshot(),
+                cpu / 1e9, wasted / 1e9, cpu > 0 ? 100.0 * wasted / cpu : 0.0);
+    }
+}
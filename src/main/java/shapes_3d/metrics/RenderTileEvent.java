@@ -0,0 +1,34 @@
+package shapes_3d.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Une tâche du renderer exécutée sur un thread du pool de rendu. */
+@Name("shapes3d.RenderTile")
+@Label("Render Tile")
+@Category({"Shapes 3D", "Rendering"})
+@Description("Tâche de rendu (tuile) exécutée pour un job")
+public class RenderTileEvent extends Event {
+
+    @Label("Job Id")
+    long jobId;
+
+    @Label("Priority")
+    String priority;
+
+    @Label("Wall Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long wallTime;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("After Cancel")
+    @Description("Tâche terminée alors que son job était déjà annulé")
+    boolean afterCancel;
+}
@@ -0,0 +1,23 @@
+package shapes_3d.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** Envoi de tuiles rendues vers l'image affichée, sur le thread FX. */
+@Name("shapes3d.TileDisplay")
+@Label("Tile Display")
+@Category({"Shapes 3D", "GUI"})
+@Description("Délai entre la fin d'une tuile et son affichage")
+public class TileDisplayEvent extends Event {
+
+    @Label("Delay")
+    @Timespan(Timespan.NANOSECONDS)
+    long delay;
+
+    @Label("Pixels")
+    long pixels;
+}
@@ -0,0 +1,202 @@
+package shapes_3d.parsing;
+
+import ray_tracer.parsing.Scene;
+import ray_tracer.parsing.SceneFileParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécute {@code SceneFileParser} sans verrou global.
+ * <p>
+ * L'analyseur garde ses warnings dans des champs statiques. Chaque instance
+ * d'analyseur isolé charge sa propre copie de la classe {@code SceneFileParser}
+ * (et de ses classes internes) dans un chargeur dédié : les champs statiques
+ * ne sont plus partagés. Toutes les autres classes (Scene, Camera, formes...)
+ * restent celles de l'application, la scène obtenue est donc utilisable
+ * normalement. Les instances sont réutilisées depuis un petit pool borné.
+ * <p>
+ * Si l'analyseur ne supporte pas ce chargement (accès de paquetage refusé par
+ * exemple), l'isolation est désactivée et l'analyse repasse par le verrou.
+ */
+final class IsolatedParsers {
+
+    private static final String PARSER_CLASS = SceneFileParser.class.getName();
+
+    // SceneFileParser keeps its warnings in static state: without isolation, one parse at a time
+    private static final Object PARSER_LOCK = new Object();
+
+    private static final int MAX_PARSERS = Integer.getInteger("shapes3d.parserInstances",
+            Runtime.getRuntime().availableProcessors());
+    private static final BlockingQueue<Instance> IDLE = new ArrayBlockingQueue<>(Math.max(1, MAX_PARSERS));
+    private static final AtomicInteger CREATED = new AtomicInteger();
+    private static volatile boolean supported = MAX_PARSERS > 0 && !Boolean.getBoolean("shapes3d.parserLock");
+
+    /** Scène et diagnostics d'une analyse réussie. */
+    static final class Result {
+        final Scene scene;
+        final ParseDiagnostics diagnostics;
+
+        Result(Scene scene, ParseDiagnostics diagnostics) {
+            this.scene = scene;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    private IsolatedParsers() {}
+
+    /**
+     * Analyse un fichier. Les warnings sont copiés avant de rendre l'analyseur.
+     * @throws SceneParseException si l'analyseur échoue, avec ses diagnostics
+     */
+    static Result parse(Path file) throws SceneParseException, InterruptedException {
+        String path = file.toAbsolutePath().toString();
+        if (supported) {
+            Instance parser = borrow();
+            if (parser != null) {
+                try {
+                    return parser.parse(file, path);
+                } catch (LinkageError e) {
+                    supported = false;
+                    System.err.println("Analyse isolée indisponible, retour à l'analyse séquentielle : " + e);
+                } finally {
+                    IDLE.offer(parser);
+                }
+            }
+        }
+        synchronized (PARSER_LOCK) {
+            long t0 = System.nanoTime();
+            Scene scene = null;
+            Throwable error = null;
+            try {
+                scene = SceneFileParser.parse(path);
+            } catch (Exception e) {
+                error = e;
+            }
+            List<String> warnings;
+            try {
+                warnings = copy(SceneFileParser.getWarnings());
+            } catch (Exception e) {
+                warnings = Collections.emptyList();
+            }
+            return finish(file, scene, warnings, error, System.nanoTime() - t0, false);
+        }
+    }
+
+    static boolean isSupported() {
+        return supported;
+    }
+
+    private static Instance borrow() throws InterruptedException {
+        Instance idle = IDLE.poll();
+        if (idle != null) return idle;
+        while (true) {
+            int n = CREATED.get();
+            if (n >= MAX_PARSERS) return IDLE.take();
+            if (CREATED.compareAndSet(n, n + 1)) break;
+        }
+        try {
+            return new Instance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            CREATED.decrementAndGet();
+            supported = false;
+            System.err.println("Analyse isolée indisponible, retour à l'analyse séquentielle : " + e);
+            return null;
+        }
+    }
+
+    private static Result finish(Path file, Scene scene, List<String> warnings, Throwable error, long nanos,
+                                 boolean isolated) throws SceneParseException {
+        if (error == null && scene == null) error = new IllegalStateException("l'analyseur n'a renvoyé aucune scène");
+        ParseDiagnostics d = new ParseDiagnostics(file, warnings, error, nanos, isolated);
+        if (error != null) throw new SceneParseException(d);
+        return new Result(scene, d);
+    }
+
+    private static List<String> copy(List<?> w) {
+        if (w == null || w.isEmpty()) return Collections.emptyList();
+        List<String> out = new ArrayList<>(w.size());
+        for (Object o : w) out.add(String.valueOf(o));
+        return Collections.unmodifiableList(out);
+    }
+
+    /** Une copie privée de SceneFileParser. Utilisée par un seul thread à la fois. */
+    private static final class Instance {
+        private final Method parse;
+        private final Method warnings;
+
+        Instance() throws ReflectiveOperationException {
+            Class<?> cls = Class.forName(PARSER_CLASS, true, new ParserClassLoader(SceneFileParser.class.getClassLoader()));
+            this.parse = cls.getMethod("parse", String.class);
+            this.warnings = cls.getMethod("getWarnings");
+        }
+
+        Result parse(Path file, String path) throws SceneParseException {
+            long t0 = System.nanoTime();
+            Scene scene = null;
+            Throwable error = null;
+            try {
+                scene = (Scene) parse.invoke(null, path);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof LinkageError le) throw le;
+                error = cause;
+            } catch (IllegalAccessException e) {
+                throw new IllegalAccessError(e.getMessage());
+            }
+            List<String> w;
+            try {
+                w = copy((List<?>) warnings.invoke(null));
+            } catch (Exception e) {
+                w = Collections.emptyList();
+            }
+            return finish(file, scene, w, error, System.nanoTime() - t0, true);
+        }
+    }
+
+    /**
+     * Charge SceneFileParser et ses classes internes depuis les octets du
+     * chargeur parent, et délègue tout le reste au parent.
+     */
+    private static final class ParserClassLoader extends ClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        ParserClassLoader(ClassLoader parent) {
+            super("scene-parser", parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(PARSER_CLASS) && !name.startsWith(PARSER_CLASS + "$")) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> c = findLoadedClass(name);
+                if (c == null) {
+                    String resource = name.replace('.', '/') + ".class";
+                    try (InputStream in = getParent().getResourceAsStream(resource)) {
+                        if (in == null) throw new ClassNotFoundException(name);
+                        byte[] bytes = in.readAllBytes();
+                        c = defineClass(name, bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                }
+                if (resolve) resolveClass(c);
+                return c;
+            }
+        }
+    }
+}
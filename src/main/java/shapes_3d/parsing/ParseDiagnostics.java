@@ -0,0 +1,64 @@
+package shapes_3d.parsing;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Warnings et erreur d'une analyse précise, copiés depuis l'analyseur dès la
+ * fin de l'analyse : ils ne dépendent plus de l'état global de
+ * {@code SceneFileParser} et ne peuvent pas être mélangés avec ceux d'une
+ * analyse concurrente.
+ */
+public final class ParseDiagnostics {
+
+    static final ParseDiagnostics NONE = new ParseDiagnostics(null, Collections.emptyList(), null, 0, false);
+
+    private final Path file;
+    private final List<String> warnings;
+    private final Throwable error;
+    private final long durationNanos;
+    private final boolean isolated;
+
+    ParseDiagnostics(Path file, List<String> warnings, Throwable error, long durationNanos, boolean isolated) {
+        this.file = file;
+        this.warnings = warnings;
+        this.error = error;
+        this.durationNanos = durationNanos;
+        this.isolated = isolated;
+    }
+
+    /** Fichier effectivement lu par l'analyseur (éventuellement temporaire), ou null. */
+    public Path getFile() {
+        return file;
+    }
+
+    /** Warnings émis pendant cette analyse (liste non modifiable, jamais null). */
+    public List<String> getWarnings() {
+        return warnings;
+    }
+
+    /** Erreur de l'analyse, ou null si elle a réussi. */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean hasError() {
+        return error != null;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /** Vrai si l'analyse a tourné dans un analyseur isolé, sans le verrou global. */
+    public boolean isIsolated() {
+        return isolated;
+    }
+
+    @Override
+    public String toString() {
+        return "ParseDiagnostics[" + file + ", " + warnings.size() + " warning(s)"
+                + (error != null ? ", erreur : " + error : "") + "]";
+    }
+}
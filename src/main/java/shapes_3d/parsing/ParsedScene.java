@@ -0,0 +1,58 @@
+package shapes_3d.parsing;
+
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
+
+import java.util.List;
+
+/**
+ * Résultat d'une analyse : la scène, l'empreinte du texte source et les
+ * warnings émis pendant cette analyse.
+ */
+public final class ParsedScene {
+
+    private final Scene scene;
+    private final Camera camera;
+    private final String contentHash;
+    private final ParseDiagnostics diagnostics;
+    private final boolean fromCache;
+
+    ParsedScene(Scene scene, Camera camera, String contentHash, ParseDiagnostics diagnostics, boolean fromCache) {
+        this.scene = scene;
+        this.camera = camera;
+        this.contentHash = contentHash;
+        this.diagnostics = diagnostics != null ? diagnostics : ParseDiagnostics.NONE;
+        this.fromCache = fromCache;
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Caméra donnée par le texte. Une scène venant du cache est partagée et sa
+     * caméra a pu être modifiée depuis : c'est à celui qui l'installe de
+     * remettre celle-ci en place, sur son propre thread.
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /** Empreinte SHA-256 (hexadécimal) du texte analysé, ou null si inconnue. */
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public List<String> getWarnings() {
+        return diagnostics.getWarnings();
+    }
+
+    /** Diagnostics de l'analyse d'origine (aussi pour une scène venant du cache). */
+    public ParseDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    public boolean isFromCache() {
+        return fromCache;
+    }
+}
@@ -0,0 +1,175 @@
+package shapes_3d.parsing;
+
+import ray_tracer.parsing.Camera;
+
+/**
+ * Différence, ligne à ligne, entre le texte de scène appliqué et le texte
+ * édité.
+ * <p>
+ * Les lignes communes en tête et en fin de texte sont écartées sans découper
+ * le texte en lignes ; deux modifications éloignées forment donc un seul
+ * bloc, qui comprend les lignes intactes entre elles. Si les seules lignes modifiées sont des directives
+ * {@code camera} ou {@code size}, des lignes vides ou des commentaires, la
+ * modification est « de vue » : la nouvelle caméra et la nouvelle taille
+ * sont lues ici, sans analyser la géométrie. Tout le reste, {@code output}
+ * compris, est structurel et passe par l'analyseur.
+ */
+public final class SceneEdit {
+
+    private final boolean structural;
+    private final boolean changed;
+    private final Camera camera;
+    private final int width;
+    private final int height;
+
+    private SceneEdit(boolean structural, boolean changed, Camera camera, int width, int height) {
+        this.structural = structural;
+        this.changed = changed;
+        this.camera = camera;
+        this.width = width;
+        this.height = height;
+    }
+
+    private static SceneEdit structural() {
+        return new SceneEdit(true, true, null, -1, -1);
+    }
+
+    /**
+     * Compare deux versions du texte.
+     * @param applied texte de la scène actuellement chargée, null si inconnu
+     */
+    public static SceneEdit between(String applied, String edited) {
+        if (applied == null || edited == null) return structural();
+        if (applied.equals(edited)) return new SceneEdit(false, false, null, -1, -1);
+
+        // common prefix and suffix, trimmed to whole lines
+        int max = Math.min(applied.length(), edited.length());
+        int head = 0;
+        while (head < max && applied.charAt(head) == edited.charAt(head)) head++;
+        int tail = 0;
+        while (tail < max - head
+                && applied.charAt(applied.length() - 1 - tail) == edited.charAt(edited.length() - 1 - tail)) tail++;
+        head = applied.lastIndexOf('\n', head - 1) + 1;
+        int oldEnd = applied.length() - tail;
+        int newEnd = edited.length() - tail;
+        if (!atLineStart(applied, oldEnd) || !atLineStart(edited, newEnd)) {
+            int nl = applied.indexOf('\n', oldEnd);
+            int shift = nl < 0 ? tail : nl + 1 - oldEnd;
+            oldEnd += shift;
+            newEnd += shift;
+        }
+
+        String[] removed = applied.substring(head, oldEnd).split("\r?\n");
+        String[] added = edited.substring(head, newEnd).split("\r?\n");
+
+        boolean cameraTouched = false;
+        boolean sizeTouched = false;
+        for (String line : removed) {
+            String kw = keyword(line);
+            if (kw == null) return structural();
+            cameraTouched |= kw.equals("camera");
+            sizeTouched |= kw.equals("size");
+        }
+        String cameraLine = null;
+        String sizeLine = null;
+        for (String line : added) {
+            String kw = keyword(line);
+            if (kw == null) return structural();
+            if (kw.equals("camera")) cameraLine = line;
+            if (kw.equals("size")) sizeLine = line;
+        }
+        // a removed directive falls back to a parser default we do not know
+        if (cameraTouched && cameraLine == null || sizeTouched && sizeLine == null) return structural();
+        // with several directives, which one wins is up to the parser
+        if (cameraLine != null && count(edited, "camera") != 1) return structural();
+        if (sizeLine != null && count(edited, "size") != 1) return structural();
+
+        Camera cam = null;
+        int w = -1;
+        int h = -1;
+        try {
+            if (cameraLine != null) {
+                double[] v = numbers(cameraLine, 10);
+                if (v == null) return structural();
+                cam = new Camera(v[0], v[1], v[2], v[3], v[4], v[5], v[6], v[7], v[8], v[9]);
+            }
+            if (sizeLine != null) {
+                double[] v = numbers(sizeLine, 2);
+                if (v == null || v[0] != (int) v[0] || v[1] != (int) v[1] || v[0] <= 0 || v[1] <= 0) {
+                    return structural();
+                }
+                w = (int) v[0];
+                h = (int) v[1];
+            }
+        } catch (RuntimeException e) {
+            // let the parser report it
+            return structural();
+        }
+        return new SceneEdit(false, true, cam, w, h);
+    }
+
+    /** Vrai si la géométrie (ou un réglage inconnu d'ici) a pu changer : analyse complète. */
+    public boolean isStructural() {
+        return structural;
+    }
+
+    /** Faux si les deux textes sont identiques. */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /** Nouvelle caméra, ou null si la ligne {@code camera} n'a pas changé. */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /** Vrai si la ligne {@code size} a changé. */
+    public boolean hasSize() {
+        return width > 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private static boolean atLineStart(String s, int pos) {
+        return pos == 0 || s.charAt(pos - 1) == '\n';
+    }
+
+    /** Mot-clé d'une ligne sans effet sur la géométrie, "" pour une ligne vide ou un commentaire, null sinon. */
+    private static String keyword(String line) {
+        String s = line.trim();
+        if (s.isEmpty() || s.startsWith("#")) return "";
+        String kw = s.split("\\s+", 2)[0];
+        // output is not carried by a view edit: the parser must apply it
+        return kw.equals("camera") || kw.equals("size") ? kw : null;
+    }
+
+    private static int count(String text, String keyword) {
+        int n = 0;
+        int start = 0;
+        while (start <= text.length()) {
+            int nl = text.indexOf('\n', start);
+            int end = nl < 0 ? text.length() : nl;
+            int i = start;
+            while (i < end && Character.isWhitespace(text.charAt(i))) i++;
+            if (text.startsWith(keyword, i)
+                    && (i + keyword.length() == end || Character.isWhitespace(text.charAt(i + keyword.length())))) n++;
+            if (nl < 0) break;
+            start = nl + 1;
+        }
+        return n;
+    }
+
+    private static double[] numbers(String line, int expected) {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length != expected + 1) return null;
+        double[] v = new double[expected];
+        for (int i = 0; i < expected; i++) v[i] = Double.parseDouble(parts[i + 1]);
+        return v;
+    }
+}
@@ -0,0 +1,181 @@
+package shapes_3d.parsing;
+
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Façade d'analyse des scènes avec cache LRU borné des scènes déjà analysées,
+ * indexé par l'empreinte du texte source. Réappliquer un texte inchangé ou
+ * revenir à l'original ne relit ni ne réanalyse rien.
+ * <p>
+ * Les scènes en cache sont partagées et l'interface modifie leur caméra sur
+ * place : la caméra du texte est rendue à part ({@link ParsedScene#getCamera()}),
+ * à remettre en place par le thread qui installe la scène. Le chargeur ne
+ * touche jamais à une scène déjà rendue.
+ * <p>
+ * Plusieurs analyses peuvent tourner en même temps (voir
+ * {@link IsolatedParsers}) ; les warnings de chacune sont dans ses
+ * {@link ParseDiagnostics}. Un échec lève une {@link SceneParseException}
+ * dont la cause est l'exception de l'analyseur.
+ */
+public class SceneLoader {
+
+    private final int capacity;
+    private final Map<String, Entry> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private static final class Entry {
+        final Scene scene;
+        final Camera camera;
+        final ParseDiagnostics diagnostics;
+
+        Entry(Scene scene, Camera camera, ParseDiagnostics diagnostics) {
+            this.scene = scene;
+            this.camera = camera;
+            this.diagnostics = diagnostics;
+        }
+    }
+
+    public SceneLoader(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > SceneLoader.this.capacity;
+            }
+        };
+    }
+
+    /** Analyse un texte de scène. */
+    public ParsedScene parseText(String text) throws Exception {
+        if (text == null) throw new IllegalArgumentException("text is null");
+        String hash = hash(text);
+        ParsedScene cached = lookup(hash);
+        if (cached != null) return cached;
+
+        // SceneFileParser only reads from a path: go through a temp file on a miss
+        Path tmp = Files.createTempFile("scene_preview", ".scene");
+        try {
+            Files.writeString(tmp, text, StandardCharsets.UTF_8);
+            return store(hash, parseNow(tmp));
+        } finally {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    /** Analyse le texte lu depuis {@code reader}, jusqu'à sa fin ; le reader n'est pas fermé. */
+    public ParsedScene parseReader(Reader reader) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        char[] buf = new char[8192];
+        int n;
+        while ((n = reader.read(buf)) > 0) sb.append(buf, 0, n);
+        return parseText(sb.toString());
+    }
+
+    /**
+     * Analyse un fichier déjà lu une fois dans un {@link SceneSource} : son
+     * empreinte sert de clé de cache, sans décoder le texte. En cas d'absence
+     * du cache, l'analyseur relit le fichier, dont les pages sont alors déjà en
+     * mémoire.
+     */
+    public ParsedScene parse(SceneSource source) throws Exception {
+        String hash = source.getHash();
+        ParsedScene cached = lookup(hash);
+        if (cached != null) return cached;
+        if (source.isUnchangedOnDisk()) return store(hash, parseNow(source.getPath()));
+
+        // the file was overwritten since it was read: parse the content we hashed
+        Path tmp = Files.createTempFile("scene_source", ".scene");
+        try {
+            source.writeTo(tmp);
+            return store(hash, parseNow(tmp));
+        } finally {
+            try { Files.deleteIfExists(tmp); } catch (IOException ignored) {}
+        }
+    }
+
+    /** Analyse sans cache, pour les scènes lues une seule fois (mode batch). */
+    public static ParsedScene parseFileUncached(Path file) throws Exception {
+        Entry e = parseNow(file);
+        return new ParsedScene(e.scene, e.camera, null, e.diagnostics, false);
+    }
+
+    /**
+     * Vrai si les analyses tournent dans des analyseurs isolés, sans verrou
+     * global. Faux si l'isolation est désactivée ({@code -Dshapes3d.parserLock=true})
+     * ou a échoué : les analyses sont alors faites l'une après l'autre. Avant
+     * la première analyse, c'est le mode qui sera tenté.
+     */
+    public static boolean isIsolatedParsing() {
+        return IsolatedParsers.isSupported();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "SceneLoader[hits=" + getHits() + ", misses=" + getMisses() + ", size=" + size() + "/" + capacity + "]";
+    }
+
+    private synchronized ParsedScene lookup(String hash) {
+        Entry e = cache.get(hash);
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new ParsedScene(e.scene, e.camera, hash, e.diagnostics, true);
+    }
+
+    private synchronized ParsedScene store(String hash, Entry e) {
+        cache.put(hash, e);
+        return new ParsedScene(e.scene, e.camera, hash, e.diagnostics, false);
+    }
+
+    private static Entry parseNow(Path file) throws Exception {
+        IsolatedParsers.Result r = IsolatedParsers.parse(file);
+        return new Entry(r.scene, r.scene.getCamera(), r.diagnostics);
+    }
+
+    /** Empreinte SHA-256 hexadécimale du texte (UTF-8). */
+    public static String hash(String text) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return toHex(md.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package shapes_3d.parsing;
+
+/**
+ * Échec d'une analyse, avec les diagnostics de cette analyse. La cause est
+ * l'exception d'origine de l'analyseur (par exemple sa ParserException), dont
+ * le message est repris tel quel.
+ */
+public class SceneParseException extends Exception {
+
+    private final transient ParseDiagnostics diagnostics;
+
+    SceneParseException(ParseDiagnostics diagnostics) {
+        super(messageOf(diagnostics.getError()), diagnostics.getError());
+        this.diagnostics = diagnostics;
+    }
+
+    public ParseDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    private static String messageOf(Throwable t) {
+        String msg = t.getMessage();
+        return msg == null || msg.isEmpty() ? t.toString() : msg;
+    }
+}
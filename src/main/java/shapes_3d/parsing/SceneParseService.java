@@ -0,0 +1,89 @@
+package shapes_3d.parsing;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyse de plusieurs scènes en parallèle sur un pool dédié.
+ * <p>
+ * Chaque résultat porte ses propres {@link ParseDiagnostics}. En cas d'échec,
+ * le future est complété par une {@link SceneParseException} qui contient les
+ * warnings et l'erreur de cette analyse-là.
+ */
+public final class SceneParseService implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final SceneLoader loader;
+
+    /** Service sans cache, pour des scènes lues une seule fois. */
+    public SceneParseService(int threads) {
+        this(threads, null);
+    }
+
+    /**
+     * @param loader cache partagé des scènes analysées, ou null pour analyser
+     *               chaque fichier sans cache
+     */
+    public SceneParseService(int threads, SceneLoader loader) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread t = new Thread(r, "scene-parse-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.loader = loader;
+    }
+
+    /** Analyse un fichier de scène. */
+    public CompletableFuture<ParsedScene> submit(Path file) {
+        return supply(() -> {
+            if (loader == null) return SceneLoader.parseFileUncached(file);
+            return loader.parse(SceneSource.open(file));
+        });
+    }
+
+    /** Analyse un texte de scène. */
+    public CompletableFuture<ParsedScene> submitText(String text) {
+        if (loader == null) return supply(() -> new SceneLoader(1).parseText(text));
+        return supply(() -> loader.parseText(text));
+    }
+
+    /** Analyse tous les fichiers ; les futures sont dans l'ordre de {@code files}. */
+    public List<CompletableFuture<ParsedScene>> submitAll(Collection<Path> files) {
+        List<CompletableFuture<ParsedScene>> out = new ArrayList<>(files.size());
+        for (Path f : files) out.add(submit(f));
+        return out;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+    }
+
+    private interface ParseCall {
+        ParsedScene call() throws Exception;
+    }
+
+    private CompletableFuture<ParsedScene> supply(ParseCall call) {
+        CompletableFuture<ParsedScene> f = new CompletableFuture<>();
+        executor.execute(() -> {
+            if (f.isDone()) return;
+            try {
+                f.complete(call.call());
+            } catch (Throwable t) {
+                f.completeExceptionally(t);
+            }
+        });
+        return f;
+    }
+}
@@ -0,0 +1,118 @@
+package shapes_3d.parsing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Contenu d'un fichier de scène, lu une seule fois.
+ * <p>
+ * Les gros fichiers sont projetés en mémoire ({@link FileChannel#map}) plutôt
+ * que copiés dans le tas ; les petits sont lus dans un tableau. L'empreinte
+ * est calculée directement sur les octets et le texte n'est décodé que sur
+ * demande ({@link #text()}), par exemple à l'ouverture de l'onglet Source.
+ */
+public final class SceneSource {
+
+    /** En dessous, une lecture simple coûte moins qu'une projection. */
+    private static final long MAP_THRESHOLD = 8L << 20;
+
+    private final Path path;
+    private final ByteBuffer bytes;
+    private final String hash;
+    private final FileTime modified;
+
+    private SceneSource(Path path, ByteBuffer bytes, FileTime modified) {
+        this.path = path;
+        this.modified = modified;
+        this.bytes = bytes.asReadOnlyBuffer();
+        this.hash = digest(this.bytes.duplicate());
+    }
+
+    /** Lit (ou projette) le fichier. */
+    public static SceneSource open(Path path) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(path);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) throw new IOException("fichier trop volumineux : " + size + " octets");
+            if (size >= MAP_THRESHOLD) {
+                // the mapping stays valid after the channel is closed
+                return new SceneSource(path, ch.map(FileChannel.MapMode.READ_ONLY, 0, size), modified);
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) size);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+                // keep reading until the whole file is in
+            }
+            buf.flip();
+            return new SceneSource(path, buf, modified);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /** Empreinte SHA-256 des octets, identique à {@link SceneLoader#hash(String)} du texte décodé. */
+    public String getHash() {
+        return hash;
+    }
+
+    public long size() {
+        return bytes.capacity();
+    }
+
+    /** Vrai si le fichier n'a pas été remplacé ou modifié depuis la lecture. */
+    public boolean isUnchangedOnDisk() {
+        try {
+            return Files.size(path) == size() && Files.getLastModifiedTime(path).equals(modified);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** Écrit le contenu lu dans {@code dest}, pour réanalyser une version remplacée depuis. */
+    public void writeTo(Path dest) throws IOException {
+        try (FileChannel ch = FileChannel.open(dest, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer data = bytes.duplicate();
+            while (data.hasRemaining()) ch.write(data);
+        }
+    }
+
+    /**
+     * Décode le contenu en UTF-8. Le résultat n'est pas conservé : l'appelant
+     * (l'éditeur) garde la seule copie en mémoire.
+     */
+    public String text() {
+        try {
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes.duplicate());
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            // not thrown with REPLACE
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String digest(ByteBuffer data) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(data);
+            return SceneLoader.toHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package shapes_3d.renderer;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Moyenne courante RVB en flottants des passes successives d'un même cadrage.
+ * <p>
+ * Le tampon est alloué hors du tas ({@link ByteBuffer#allocateDirect}) :
+ * 12 octets par pixel, soit environ 400 Mo en 8K, que le ramasse-miettes n'a
+ * ni à parcourir ni à déplacer. Il est réutilisé tant que la taille ne change
+ * pas : un mouvement de caméra ne fait que le remettre à zéro.
+ * <p>
+ * Chaque passe est pondérée par son nombre d'échantillons par pixel. On
+ * stocke directement la moyenne (et non la somme) pour garder la précision
+ * des flottants quel que soit le nombre d'échantillons cumulés.
+ * <p>
+ * Les images renvoyées ne sont pas allouées à chaque appel : la moyenne est
+ * résolue dans une image propre au tampon, les tuiles mélangées dans une
+ * image propre au thread appelant.
+ * <p>
+ * Pas thread-safe : l'appelant synchronise.
+ */
+public final class AccumulationBuffer {
+
+    // blended tiles are read by the caller's listener on the same thread, before its next tile
+    private static final ThreadLocal<BufferedImage> TILE_SCRATCH = new ThreadLocal<>();
+
+    private final int width;
+    private final int height;
+    private final FloatBuffer mean;
+    private long samples;
+    private int[] row;
+    // destination of resolve(), allocated on first use
+    private BufferedImage resolved;
+
+    public AccumulationBuffer(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("taille invalide : " + width + "x" + height);
+        long bytes = bytesFor(width, height);
+        if (bytes > Integer.MAX_VALUE) throw new IllegalArgumentException("image trop grande : " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.mean = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder()).asFloatBuffer();
+        this.row = new int[width];
+    }
+
+    /** Mémoire hors tas nécessaire pour une image {@code width x height}. */
+    public static long bytesFor(int width, int height) {
+        return (long) width * height * 3 * Float.BYTES;
+    }
+
+    public boolean hasSize(int width, int height) {
+        return this.width == width && this.height == height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Échantillons par pixel cumulés depuis la dernière remise à zéro. */
+    public long getSamples() {
+        return samples;
+    }
+
+    /** Oublie les passes cumulées ; les valeurs sont écrasées par la prochaine passe. */
+    public void reset() {
+        samples = 0;
+    }
+
+    /**
+     * Ajoute une passe complète, de la taille du tampon, rendue avec
+     * {@code samplesPerPixel} échantillons (ou une moyenne déjà calculée sur
+     * autant d'échantillons).
+     */
+    public void add(BufferedImage pass, long samplesPerPixel) {
+        if (pass.getWidth() != width || pass.getHeight() != height) {
+            throw new IllegalArgumentException("passe " + pass.getWidth() + "x" + pass.getHeight()
+                    + " pour un tampon " + width + "x" + height);
+        }
+        if (samplesPerPixel <= 0) return;
+        long total = samples + samplesPerPixel;
+        // the first pass overwrites whatever a previous camera left in the buffer
+        float w = samples == 0 ? 1f : (float) ((double) samplesPerPixel / total);
+        for (int y = 0; y < height; y++) {
+            int[] rgb = readRow(pass, y, width);
+            int i = y * width * 3;
+            for (int x = 0; x < width; x++, i += 3) {
+                int p = rgb[x];
+                mix(i, (p >> 16) & 0xFF, w);
+                mix(i + 1, (p >> 8) & 0xFF, w);
+                mix(i + 2, p & 0xFF, w);
+            }
+        }
+        samples = total;
+    }
+
+    /**
+     * Image 8 bits de la moyenne courante. C'est toujours la même image,
+     * réécrite à chaque appel : la copier pour la garder au-delà.
+     */
+    public BufferedImage resolve() {
+        if (resolved == null) resolved = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] out = pixels(resolved);
+        int n = width * height;
+        for (int p = 0, i = 0; p < n; p++, i += 3) {
+            out[p] = (toByte(mean.get(i)) << 16) | (toByte(mean.get(i + 1)) << 8) | toByte(mean.get(i + 2));
+        }
+        return resolved;
+    }
+
+    /**
+     * Tuile de la passe en cours mélangée à la moyenne déjà cumulée, pour
+     * l'affichage pendant la passe ; le tampon n'est pas modifié. Sans passe
+     * cumulée, la tuile est rendue telle quelle. Sinon, l'image renvoyée
+     * appartient au thread appelant et sera réécrite par son prochain appel.
+     */
+    public BufferedImage blend(BufferedImage tile, int startX, int startY, int samplesPerPixel) {
+        if (samples == 0 || samplesPerPixel <= 0) return tile;
+        int w = Math.min(tile.getWidth(), width - startX);
+        int h = Math.min(tile.getHeight(), height - startY);
+        if (startX < 0 || startY < 0 || w <= 0 || h <= 0) return tile;
+        float wt = (float) ((double) samplesPerPixel / (samples + samplesPerPixel));
+        BufferedImage out = TILE_SCRATCH.get();
+        if (out == null || out.getWidth() < w || out.getHeight() < h) {
+            out = new BufferedImage(Math.max(w, tile.getWidth()), Math.max(h, tile.getHeight()),
+                    BufferedImage.TYPE_INT_RGB);
+            TILE_SCRATCH.set(out);
+        }
+        int[] dst = pixels(out);
+        int stride = out.getWidth();
+        for (int y = 0; y < h; y++) {
+            int[] src = readRow(tile, y, w);
+            int i = ((startY + y) * width + startX) * 3;
+            int d = y * stride;
+            for (int x = 0; x < w; x++, i += 3) {
+                int p = src[x];
+                dst[d + x] = (toByte(lerp(mean.get(i), (p >> 16) & 0xFF, wt)) << 16)
+                        | (toByte(lerp(mean.get(i + 1), (p >> 8) & 0xFF, wt)) << 8)
+                        | toByte(lerp(mean.get(i + 2), p & 0xFF, wt));
+            }
+        }
+        // edge tiles: a view on the corner of the scratch, no pixel copy
+        return w == out.getWidth() && h == out.getHeight() ? out : out.getSubimage(0, 0, w, h);
+    }
+
+    private static int[] pixels(BufferedImage img) {
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    private void mix(int index, int value, float weight) {
+        mean.put(index, lerp(mean.get(index), value, weight));
+    }
+
+    private static float lerp(float m, int v, float w) {
+        return m + (v - m) * w;
+    }
+
+    private static int toByte(float v) {
+        int i = (int) (v + 0.5f);
+        return i < 0 ? 0 : Math.min(i, 255);
+    }
+
+    // packed RGB of one row, without going through the colour model for int rasters
+    private int[] readRow(BufferedImage img, int y, int w) {
+        if (row.length < w) row = new int[w];
+        int type = img.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB
+                || type == BufferedImage.TYPE_INT_ARGB_PRE) {
+            img.getRaster().getDataElements(0, y, w, 1, row);
+        } else {
+            img.getRGB(0, y, w, 1, row, 0, w);
+        }
+        return row;
+    }
+}
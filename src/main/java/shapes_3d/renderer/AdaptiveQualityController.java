@@ -0,0 +1,147 @@
+package shapes_3d.renderer;
+
+import ray_tracer.renderer.RenderOptions;
+
+import java.util.Locale;
+
+/**
+ * Régulateur de qualité des aperçus interactifs.
+ * <p>
+ * Mesure la latence de chaque aperçu et ajuste d'une image à l'autre le
+ * facteur de résolution, les échantillons par pixel, la profondeur de
+ * récursion et la taille des tuiles pour viser une durée cible. En cas de
+ * retard on baisse d'abord la résolution, puis les échantillons, puis la
+ * profondeur (jamais sous {@value #MIN_DEPTH} ni au-delà de la profondeur
+ * configurée). Avec de la marge, on remonte dans l'ordre inverse : la
+ * profondeur, les échantillons retirés, la résolution, et enfin des
+ * échantillons supplémentaires une fois en pleine résolution.
+ */
+public class AdaptiveQualityController {
+
+    private static final double MIN_SCALE = 0.1;
+    private static final double MAX_SCALE = 1.0;
+    private static final int MAX_SPP = 4;
+    private static final int MIN_DEPTH = 2;
+    /** Variation maximale du coût estimé d'une image à l'autre. */
+    private static final double MAX_STEP = 2.0;
+    private static final double SMOOTHING = 0.5;
+    /** Marge retenue pour un aperçu annulé avant la fin. */
+    private static final double CANCELLED_HEADROOM = 0.8;
+
+    private final long targetNanos;
+    private final int threads;
+
+    private double scale = 0.4;
+    private int samplesPerPixel = 1;
+    private int depthReduction;
+    // depth levels that can be removed from the configured maxDepth, known after applyTo
+    private int maxDepthReduction;
+    // samples removed while slowing down, given back before the resolution
+    private int droppedSamples;
+    private int tileSize = 64;
+    private double smoothedNanos = -1;
+    private long lastNanos = -1;
+
+    /**
+     * @param targetMillis durée visée pour un aperçu
+     * @param threads      threads de rendu, pour dimensionner les tuiles
+     */
+    public AdaptiveQualityController(long targetMillis, int threads) {
+        this.targetNanos = Math.max(1, targetMillis) * 1_000_000L;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Applique les réglages courants à {@code opts}. La profondeur présente
+     * dans {@code opts} sert de plafond.
+     */
+    public synchronized void applyTo(RenderOptions opts, int width, int height) {
+        maxDepthReduction = Math.max(0, opts.maxDepth - MIN_DEPTH);
+        depthReduction = Math.min(depthReduction, maxDepthReduction);
+        opts.lowResFactor = scale;
+        opts.samplesPerPixel = samplesPerPixel;
+        opts.maxDepth -= depthReduction;
+        opts.tileSize = tileSize = tileSizeFor(width, height);
+    }
+
+    /**
+     * Enregistre la durée d'un aperçu.
+     * @param completed faux si l'aperçu a été annulé, c'est-à-dire remplacé
+     *                  par un aperçu plus récent avant d'être terminé : il
+     *                  compte comme trop lent, sa durée réelle étant au moins
+     *                  la cible
+     */
+    public synchronized void record(long elapsedNanos, boolean completed) {
+        long observed = completed ? elapsedNanos : Math.max(elapsedNanos, targetNanos);
+        lastNanos = observed;
+        smoothedNanos = smoothedNanos < 0 ? observed
+                : SMOOTHING * observed + (1 - SMOOTHING) * smoothedNanos;
+
+        double headroom = Math.max(1 / MAX_STEP, Math.min(MAX_STEP, targetNanos / smoothedNanos));
+        // never shown, whatever the average says
+        if (!completed) headroom = Math.min(headroom, CANCELLED_HEADROOM);
+        if (headroom < 0.9) {
+            // too slow: resolution first, then samples, then depth
+            if (scale > MIN_SCALE) {
+                scale = Math.max(MIN_SCALE, scale * Math.sqrt(headroom));
+            } else if (samplesPerPixel > 1) {
+                samplesPerPixel--;
+                droppedSamples++;
+            } else if (depthReduction < maxDepthReduction) {
+                depthReduction++;
+            }
+        } else if (headroom > 1.25) {
+            // the same steps, undone in reverse order
+            if (depthReduction > 0) {
+                depthReduction--;
+            } else if (droppedSamples > 0) {
+                samplesPerPixel++;
+                droppedSamples--;
+            } else if (scale < MAX_SCALE) {
+                scale = Math.min(MAX_SCALE, scale * Math.sqrt(headroom));
+            } else if (samplesPerPixel < MAX_SPP) {
+                samplesPerPixel++;
+            }
+        }
+    }
+
+    // enough tiles to keep every thread busy at the reduced resolution
+    private int tileSizeFor(int width, int height) {
+        double pixels = width * scale * height * scale;
+        double ideal = Math.sqrt(pixels / (threads * 4.0));
+        if (ideal >= 64) return 64;
+        if (ideal >= 32) return 32;
+        return 16;
+    }
+
+    public long getTargetMillis() {
+        return targetNanos / 1_000_000L;
+    }
+
+    public synchronized double getScale() {
+        return scale;
+    }
+
+    public synchronized int getSamplesPerPixel() {
+        return samplesPerPixel;
+    }
+
+    public synchronized int getDepthReduction() {
+        return depthReduction;
+    }
+
+    public synchronized int getTileSize() {
+        return tileSize;
+    }
+
+    /** Dernière latence mesurée en millisecondes, ou -1. */
+    public synchronized double getLastLatencyMillis() {
+        return lastNanos < 0 ? -1 : lastNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "aperçu x%.2f, %d spp, profondeur -%d, tuiles %d — %.0f ms (cible %d ms)",
+                scale, samplesPerPixel, depthReduction, tileSize, getLastLatencyMillis(), getTargetMillis());
+    }
+}
@@ -0,0 +1,126 @@
+package shapes_3d.renderer;
+
+import ray_tracer.geometry.Point;
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+
+/**
+ * Orbite sphérique d'une caméra autour de son point visé, partagée par la
+ * navigation au clavier et les trajectoires des séquences. Ne dépend pas de
+ * JavaFX : le mode en ligne de commande s'en sert sans interface.
+ * <p>
+ * Conventions : {@code theta} est l'angle polaire mesuré depuis l'axe Y,
+ * {@code phi} l'azimut dans le plan XZ, depuis l'axe X vers l'axe Z.
+ * L'orbite redresse la caméra (vecteur haut dans le plan vertical) ; le
+ * roulis, angle entre le vecteur haut d'une caméra et ce vecteur redressé
+ * autour de l'axe de visée, se conserve avec {@link #roll} et {@link #withRoll}.
+ */
+public final class CameraOrbit {
+
+    private CameraOrbit() {}
+
+    /**
+     * Orbite sphérique autour du point visé.
+     * @param dPhi   rotation autour de l'axe vertical (radians)
+     * @param dTheta variation de l'angle polaire (radians)
+     * @param zoom   facteur appliqué à la distance au point visé
+     */
+    public static Camera orbit(Camera cam, double dPhi, double dTheta, double zoom) {
+        Point lookFrom = cam.getLookFrom();
+        Point lookAt = cam.getLookAt();
+        Vector v = lookFrom.subtraction(lookAt);
+
+        double r = v.norm();
+        double theta = Math.acos(v.getY() / r);
+        double phi = Math.atan2(v.getZ(), v.getX());
+
+        phi += dPhi;
+        theta += dTheta;
+        r *= zoom;
+        if (r < 0.1) r = 0.1;
+
+        double epsilon = 0.01;
+        if (theta < epsilon) theta = epsilon;
+        if (theta > Math.PI - epsilon) theta = Math.PI - epsilon;
+
+        double x = r * Math.sin(theta) * Math.cos(phi);
+        double y = r * Math.cos(theta);
+        double z = r * Math.sin(theta) * Math.sin(phi);
+
+        Vector newOffset = new Vector(x, y, z);
+        Point newLookFrom = (Point) lookAt.addition(newOffset);
+
+        Vector forward = lookAt.subtraction(newLookFrom).normalize();
+        Vector worldUp = new Vector(0, 1, 0);
+        Vector right = forward.vectorialProduct(worldUp).normalize();
+        Vector newUp = right.vectorialProduct(forward).normalize();
+
+        return new Camera(
+                newLookFrom.getX(), newLookFrom.getY(), newLookFrom.getZ(),
+                lookAt.getX(), lookAt.getY(), lookAt.getZ(),
+                newUp.getX(), newUp.getY(), newUp.getZ(),
+                cam.getFov()
+        );
+    }
+
+    /**
+     * Roulis de {@code cam} en radians : rotation de son vecteur haut autour
+     * de l'axe de visée, depuis le haut redressé que donnerait {@link #orbit}.
+     * @throws IllegalArgumentException si la caméra vise à la verticale (roulis indéfini)
+     * @throws IllegalStateException si le ray tracer n'expose pas le vecteur haut (voir {@link Cameras})
+     */
+    public static double roll(Camera cam) {
+        double[] f = forward(cam);
+        double[] d = levelUp(f, cam);
+        Vector up = Cameras.up(cam);
+        double[] u = { up.getX(), up.getY(), up.getZ() };
+        // only the part of up across the view direction matters
+        double along = dot(u, f);
+        for (int i = 0; i < 3; i++) u[i] -= along * f[i];
+        return Math.atan2(dot(cross(d, u), f), dot(d, u));
+    }
+
+    /**
+     * Même position, point visé et champ de vision que {@code cam}, avec le
+     * vecteur haut redressé tourné de {@code roll} radians autour de l'axe de visée.
+     */
+    public static Camera withRoll(Camera cam, double roll) {
+        double[] f = forward(cam);
+        double[] d = levelUp(f, cam);
+        double[] side = cross(f, d);
+        double c = Math.cos(roll);
+        double s = Math.sin(roll);
+        Point from = cam.getLookFrom();
+        Point at = cam.getLookAt();
+        return new Camera(from.getX(), from.getY(), from.getZ(), at.getX(), at.getY(), at.getZ(),
+                d[0] * c + side[0] * s, d[1] * c + side[1] * s, d[2] * c + side[2] * s, cam.getFov());
+    }
+
+    private static double[] forward(Camera cam) {
+        Vector v = cam.getLookAt().subtraction(cam.getLookFrom());
+        double n = v.norm();
+        if (n == 0) throw new IllegalArgumentException("caméra sans direction : point visé confondu avec l'œil");
+        return new double[] { v.getX() / n, v.getY() / n, v.getZ() / n };
+    }
+
+    // the up vector orbit() gives: world Y made perpendicular to the view direction
+    private static double[] levelUp(double[] f, Camera cam) {
+        double[] right = cross(f, new double[] { 0, 1, 0 });
+        double n = Math.sqrt(dot(right, right));
+        if (n < 1e-9) throw new IllegalArgumentException("caméra verticale, roulis indéfini : " + cam.getLookFrom());
+        for (int i = 0; i < 3; i++) right[i] /= n;
+        return cross(right, f);
+    }
+
+    private static double dot(double[] a, double[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    private static double[] cross(double[] a, double[] b) {
+        return new double[] {
+                a[1] * b[2] - a[2] * b[1],
+                a[2] * b[0] - a[0] * b[2],
+                a[0] * b[1] - a[1] * b[0]
+        };
+    }
+}
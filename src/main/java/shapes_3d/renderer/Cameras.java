@@ -0,0 +1,56 @@
+package shapes_3d.renderer;
+
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Accès au vecteur « haut » d'une {@link Camera}.
+ * <p>
+ * Il n'est pas lu directement : un ray tracer plus ancien que la version
+ * 1.0.2 n'a pas d'accesseur. Dans ce cas, l'appel échoue avec un message
+ * explicite plutôt que de supposer (0, 1, 0), ce qui rendrait de travers
+ * toute caméra inclinée.
+ */
+public final class Cameras {
+
+    private static final Method GET_UP = lookupGetUp();
+
+    private Cameras() {}
+
+    private static Method lookupGetUp() {
+        try {
+            Method m = Camera.class.getMethod("getUp");
+            return Vector.class.isAssignableFrom(m.getReturnType()) ? m : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /** Vrai si la version du ray tracer présente expose le vecteur haut des caméras. */
+    public static boolean hasUpVector() {
+        return GET_UP != null;
+    }
+
+    /**
+     * Vecteur haut de {@code cam}, tel que donné à sa construction.
+     * @throws IllegalStateException si le ray tracer n'expose pas {@code Camera.getUp()}
+     */
+    public static Vector up(Camera cam) {
+        if (GET_UP == null) {
+            throw new IllegalStateException("ray_tracer.parsing.Camera.getUp() introuvable :"
+                    + " l'orientation de la caméra est inconnue (ray_tracer 1.0.2 requis)");
+        }
+        try {
+            return (Vector) GET_UP.invoke(cam);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package shapes_3d.renderer;
+
+import ray_tracer.geometry.Point;
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+import ray_tracer.renderer.RenderOptions;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache LRU d'images rendues, borné en octets.
+ * <p>
+ * La clé réunit l'empreinte du texte de la scène, les paramètres de caméra
+ * (arrondis au millionième, comme la ligne {@code camera} de l'éditeur), la
+ * résolution et les options qui influent sur l'image. Le nombre de threads
+ * et la taille des tuiles n'en font pas partie.
+ */
+public class FrameCache {
+
+    /** Clé immuable d'une image en cache. */
+    public static final class Key {
+        private final String sceneHash;
+        private final long[] camera;
+        private final int width;
+        private final int height;
+        private final int samplesPerPixel;
+        private final int maxDepth;
+        private final long lowResFactor;
+        private final boolean progressive;
+        private final int hash;
+
+        private Key(String sceneHash, long[] camera, int width, int height, RenderOptions opts) {
+            this.sceneHash = sceneHash;
+            this.camera = camera;
+            this.width = width;
+            this.height = height;
+            this.samplesPerPixel = opts.samplesPerPixel;
+            this.maxDepth = opts.maxDepth;
+            this.lowResFactor = quantize(opts.lowResFactor);
+            this.progressive = opts.progressive;
+            int h = sceneHash.hashCode();
+            h = 31 * h + Arrays.hashCode(camera);
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + samplesPerPixel;
+            h = 31 * h + maxDepth;
+            h = 31 * h + Long.hashCode(lowResFactor);
+            h = 31 * h + (progressive ? 1 : 0);
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key k)) return false;
+            return hash == k.hash && width == k.width && height == k.height
+                    && samplesPerPixel == k.samplesPerPixel && maxDepth == k.maxDepth
+                    && lowResFactor == k.lowResFactor && progressive == k.progressive
+                    && sceneHash.equals(k.sceneHash) && Arrays.equals(camera, k.camera);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final long byteBudget;
+    private final LinkedHashMap<Key, BufferedImage> frames = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param byteBudget taille maximale cumulée des images (4 octets par pixel)
+     */
+    public FrameCache(long byteBudget) {
+        this.byteBudget = Math.max(0, byteBudget);
+    }
+
+    /**
+     * Clé d'une image.
+     * @throws IllegalStateException si le vecteur haut de la caméra est inconnu (voir {@link Cameras})
+     */
+    public static Key key(String sceneHash, Camera camera, int width, int height, RenderOptions opts) {
+        return new Key(sceneHash, cameraParams(camera), width, height, opts);
+    }
+
+    public synchronized BufferedImage get(Key key) {
+        BufferedImage img = frames.get(key);
+        if (img == null) misses++;
+        else hits++;
+        return img;
+    }
+
+    public synchronized void put(Key key, BufferedImage img) {
+        long size = sizeOf(img);
+        if (size > byteBudget) return;
+        BufferedImage previous = frames.put(key, img);
+        if (previous != null) bytes -= sizeOf(previous);
+        bytes += size;
+        Iterator<Map.Entry<Key, BufferedImage>> it = frames.entrySet().iterator();
+        while (bytes > byteBudget && it.hasNext()) {
+            Map.Entry<Key, BufferedImage> eldest = it.next();
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        frames.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FrameCache[" + frames.size() + " images, " + (bytes >> 20) + "/" + (byteBudget >> 20)
+                + " Mo, hits=" + hits + ", misses=" + misses + "]";
+    }
+
+    private static long sizeOf(BufferedImage img) {
+        return 4L * img.getWidth() * img.getHeight();
+    }
+
+    private static long quantize(double v) {
+        return Math.round(v * 1e6);
+    }
+
+    private static long[] cameraParams(Camera cam) {
+        Point from = cam.getLookFrom();
+        Point at = cam.getLookAt();
+        long[] p = new long[10];
+        p[0] = quantize(from.getX());
+        p[1] = quantize(from.getY());
+        p[2] = quantize(from.getZ());
+        p[3] = quantize(at.getX());
+        p[4] = quantize(at.getY());
+        p[5] = quantize(at.getZ());
+        Vector up = Cameras.up(cam);
+        p[6] = quantize(up.getX());
+        p[7] = quantize(up.getY());
+        p[8] = quantize(up.getZ());
+        p[9] = quantize(cam.getFov());
+        return p;
+    }
+}
@@ -0,0 +1,210 @@
+package shapes_3d.renderer;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.event.IIOWriteProgressListener;
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Export des images du renderer (PNG ou JPEG), sans dépendance à JavaFX.
+ * <p>
+ * Les images du renderer sont stockées de bas en haut : elles sont retournées
+ * ligne par ligne (copies de tableaux) avant l'encodage. L'encodage peut se
+ * faire en arrière-plan, plusieurs exports pouvant tourner en parallèle.
+ */
+public final class ImageExporter {
+
+    public static final int DEFAULT_PNG_COMPRESSION = 6;
+
+    private final ExecutorService exec;
+
+    /**
+     * @param maxConcurrentExports nombre d'encodages simultanés
+     */
+    public ImageExporter(int maxConcurrentExports) {
+        AtomicInteger count = new AtomicInteger();
+        this.exec = Executors.newFixedThreadPool(Math.max(1, maxConcurrentExports), r -> {
+            Thread t = new Thread(r, "image-export-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Exporte en arrière-plan.
+     * @param progress reçoit l'avancement dans [0, 1] (peut être null)
+     * @return le chemin réellement écrit (extension ajoutée si absente)
+     */
+    public CompletableFuture<Path> exportAsync(BufferedImage img, Path dest, int pngCompressionLevel,
+                                               DoubleConsumer progress) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return export(img, dest, pngCompressionLevel, progress);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, exec);
+    }
+
+    public void shutdown() {
+        exec.shutdown();
+    }
+
+    /**
+     * Export synchrone, sur le thread appelant.
+     * @param pngCompressionLevel niveau deflate de 0 (aucune) à 9 (maximale), ignoré en JPEG
+     */
+    public static Path export(BufferedImage img, Path dest, int pngCompressionLevel,
+                              DoubleConsumer progress) throws IOException {
+        if (img == null) throw new IllegalArgumentException("image is null");
+        if (dest == null) throw new IllegalArgumentException("dest is null");
+
+        String name = dest.getFileName().toString();
+        String lower = name.toLowerCase();
+        String fmt = "png";
+        if (lower.endsWith(".jpg") || lower.endsWith(".jpeg")) fmt = "jpg";
+        // If no extension provided, default to .png and adjust dest
+        if (!lower.contains(".")) dest = dest.resolveSibling(name + ".png");
+        if (dest.getParent() != null) Files.createDirectories(dest.getParent());
+
+        // JPEG has no alpha channel
+        BufferedImage flipped = flipVertically(img, "jpg".equals(fmt) ? BufferedImage.TYPE_INT_RGB : -1);
+
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(fmt);
+        if (!writers.hasNext()) throw new IOException("no image writer for " + fmt);
+        ImageWriter writer = writers.next();
+        ImageWriteParam param = "png".equals(fmt) ? pngParam(writer, pngCompressionLevel)
+                : writer.getDefaultWriteParam();
+        if (progress != null) writer.addIIOWriteProgressListener(new ProgressAdapter(progress));
+
+        // write next to the destination, then move: a crash never leaves a truncated image
+        Path part = dest.resolveSibling(dest.getFileName() + ".part");
+        Files.deleteIfExists(part);
+        try (ImageOutputStream out = new FileImageOutputStream(part.toFile())) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(flipped, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        Files.move(part, dest, StandardCopyOption.REPLACE_EXISTING);
+        if (progress != null) progress.accept(1.0);
+        return dest;
+    }
+
+    /**
+     * Encode l'image en PNG dans un flux (réponse HTTP...), sans fichier
+     * intermédiaire. Le flux n'est pas fermé.
+     */
+    public static void writePng(BufferedImage img, OutputStream out, int pngCompressionLevel) throws IOException {
+        if (img == null) throw new IllegalArgumentException("image is null");
+        BufferedImage flipped = flipVertically(img, -1);
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("png");
+        if (!writers.hasNext()) throw new IOException("no image writer for png");
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(flipped, null, null), pngParam(writer, pngCompressionLevel));
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static ImageWriteParam pngParam(ImageWriter writer, int pngCompressionLevel) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (param.canWriteCompressed()) {
+            int level = Math.max(0, Math.min(9, pngCompressionLevel));
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            // the JDK PNG writer uses deflate level = (int) (9 * (1 - quality))
+            param.setCompressionQuality(Math.max(0f, Math.min(1f, 1f - (level + 0.5f) / 9f)));
+        }
+        return param;
+    }
+
+    /**
+     * Retourne l'image de haut en bas avec des copies de lignes entières.
+     * @param targetType type de l'image produite, ou -1 pour conserver celui de la source
+     */
+    public static BufferedImage flipVertically(BufferedImage src, int targetType) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        int srcType = src.getType();
+        int type = targetType > 0 ? targetType
+                : (srcType == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : srcType);
+        BufferedImage dst = new BufferedImage(w, h, type);
+
+        Raster raster = src.getRaster();
+        boolean intSource = srcType == BufferedImage.TYPE_INT_ARGB || srcType == BufferedImage.TYPE_INT_RGB
+                || srcType == BufferedImage.TYPE_INT_ARGB_PRE;
+        boolean sameLayout = type == srcType
+                || (type == BufferedImage.TYPE_INT_RGB && srcType != BufferedImage.TYPE_INT_ARGB_PRE);
+        if (intSource && sameLayout
+                && raster.getDataBuffer() instanceof DataBufferInt sdb
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel sm) {
+            // same packed int layout: straight row copies (INT_RGB simply ignores the alpha byte)
+            int[] s = sdb.getData();
+            int stride = sm.getScanlineStride();
+            int offset = sdb.getOffset() + sm.getOffset(-raster.getSampleModelTranslateX(),
+                    -raster.getSampleModelTranslateY());
+            int[] d = ((DataBufferInt) dst.getRaster().getDataBuffer()).getData();
+            for (int y = 0; y < h; y++) {
+                System.arraycopy(s, offset + y * stride, d, (h - 1 - y) * w, w);
+            }
+        } else {
+            int[] row = new int[w];
+            for (int y = 0; y < h; y++) {
+                src.getRGB(0, y, w, 1, row, 0, w);
+                dst.setRGB(0, h - 1 - y, w, 1, row, 0, w);
+            }
+        }
+        return dst;
+    }
+
+    // forwards ImageIO progress, at most once per percent
+    private static final class ProgressAdapter implements IIOWriteProgressListener {
+        private final DoubleConsumer progress;
+        private int lastPercent = -1;
+
+        ProgressAdapter(DoubleConsumer progress) {
+            this.progress = progress;
+        }
+
+        @Override
+        public void imageProgress(ImageWriter source, float percentageDone) {
+            int pct = (int) percentageDone;
+            if (pct != lastPercent && pct < 100) {
+                lastPercent = pct;
+                progress.accept(pct / 100.0);
+            }
+        }
+
+        @Override public void imageStarted(ImageWriter source, int imageIndex) {}
+        @Override public void imageComplete(ImageWriter source) {}
+        @Override public void thumbnailStarted(ImageWriter source, int imageIndex, int thumbnailIndex) {}
+        @Override public void thumbnailProgress(ImageWriter source, float percentageDone) {}
+        @Override public void thumbnailComplete(ImageWriter source) {}
+        @Override public void writeAborted(ImageWriter source) {}
+    }
+}
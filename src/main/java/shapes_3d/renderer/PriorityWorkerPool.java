@@ -0,0 +1,187 @@
+package shapes_3d.renderer;
+
+import shapes_3d.metrics.RenderJobMetrics;
+import shapes_3d.metrics.RenderMetrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de threads de rendu unique, dont la file est ordonnée par
+ * {@link RenderPriority} puis par ordre d'arrivée.
+ * <p>
+ * Chaque {@link #view} est un {@link ExecutorService} que l'on passe à un
+ * {@code DefaultRenderer} : toutes les tâches qu'il soumet prennent la
+ * priorité de la vue, mais s'exécutent sur les threads partagés. La vue
+ * mesure aussi le temps mural et CPU de chaque tâche pour son job, et
+ * prévient son {@link TaskListener} à la fin de chaque tâche. Une vue
+ * arrêtée n'est terminée qu'une fois toutes ses tâches exécutées (ou
+ * abandonnées par l'arrêt du pool).
+ */
+final class PriorityWorkerPool {
+
+    /** Prévenu sur le thread de la tâche, après chacune des tâches d'une vue. */
+    interface TaskListener {
+        /** @param idle vrai si la vue n'a plus aucune tâche en attente ni en cours */
+        void taskFinished(boolean idle);
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    PriorityWorkerPool(int threads) {
+        int n = Math.max(1, threads);
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "render-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** Vue dont les tâches sont mesurées pour {@code job} (peut être null). */
+    ExecutorService view(RenderPriority priority, RenderJobMetrics job) {
+        return new View(priority, job, null);
+    }
+
+    /** Variante dont {@code listener} est prévenu à la fin de chaque tâche (peut être null). */
+    ExecutorService view(RenderPriority priority, RenderJobMetrics job, TaskListener listener) {
+        return new View(priority, job, listener);
+    }
+
+    /** Vrai si {@code view} (créée par ce pool) n'a aucune tâche en attente ni en cours. */
+    static boolean isIdle(ExecutorService view) {
+        return view instanceof View v && v.pending.get() == 0;
+    }
+
+    int getThreadCount() {
+        return executor.getMaximumPoolSize();
+    }
+
+    void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        // dropped tasks will never run: their views must not wait for them
+        for (Runnable r : executor.shutdownNow()) {
+            if (r instanceof PrioritizedTask task) task.view.taskFinished();
+        }
+        executor.awaitTermination(timeout, unit);
+    }
+
+    private final class PrioritizedTask implements Runnable, Comparable<PrioritizedTask> {
+        private final Runnable delegate;
+        private final int priority;
+        private final long seq;
+        private final RenderJobMetrics job;
+        private final View view;
+
+        PrioritizedTask(Runnable delegate, RenderPriority priority, RenderJobMetrics job, View view) {
+            this.delegate = delegate;
+            this.priority = priority.ordinal();
+            this.seq = sequence.getAndIncrement();
+            this.job = job;
+            this.view = view;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (job == null) {
+                    delegate.run();
+                    return;
+                }
+                long cpu0 = RenderMetrics.currentThreadCpuNanos();
+                long t0 = System.nanoTime();
+                try {
+                    delegate.run();
+                } finally {
+                    long wall = System.nanoTime() - t0;
+                    long cpu = cpu0 < 0 ? -1 : RenderMetrics.currentThreadCpuNanos() - cpu0;
+                    job.taskCompleted(wall, cpu);
+                }
+            } finally {
+                view.taskFinished();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask o) {
+            if (priority != o.priority) return Integer.compare(priority, o.priority);
+            return Long.compare(seq, o.seq);
+        }
+    }
+
+    // Lifecycle methods only affect the view: the shared threads belong to the pool
+    private final class View extends AbstractExecutorService {
+        private final RenderPriority priority;
+        private final RenderJobMetrics job;
+        private final TaskListener listener;
+        // tasks queued or running
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean shutdown;
+        // released once shut down with no task left
+        private final CountDownLatch terminated = new CountDownLatch(1);
+
+        View(RenderPriority priority, RenderJobMetrics job, TaskListener listener) {
+            this.priority = priority;
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            // counted before the shutdown check, so that shutdown() never sees 0 with a task on its way in
+            pending.incrementAndGet();
+            try {
+                if (shutdown) throw new RejectedExecutionException("view is shut down");
+                executor.execute(new PrioritizedTask(command, priority, job, this));
+            } catch (RejectedExecutionException e) {
+                taskFinished();
+                throw e;
+            }
+        }
+
+        void taskFinished() {
+            boolean idle = pending.decrementAndGet() == 0;
+            if (idle && isShutdown()) terminated.countDown();
+            if (listener != null) listener.taskFinished(idle);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            if (pending.get() == 0) terminated.countDown();
+        }
+
+        // queued tasks are left to run: the renderer cancels its own tiles
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown || executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return isShutdown() && pending.get() == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            if (isTerminated()) return true;
+            return terminated.await(timeout, unit) || isTerminated();
+        }
+    }
+}
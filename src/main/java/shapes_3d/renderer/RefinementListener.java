@@ -0,0 +1,36 @@
+package shapes_3d.renderer;
+
+import ray_tracer.renderer.RenderUpdate;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Callbacks d'un rendu progressif. Appelés depuis les threads du service :
+ * l'appelant doit repasser sur son propre thread d'interface si nécessaire.
+ * Aucun callback n'est émis pour une passe annulée.
+ */
+public interface RefinementListener {
+
+    default void passStarted(int passIndex, int passCount) {}
+
+    /** Tuile terminée de la passe en cours. */
+    default void tileRendered(int passIndex, RenderUpdate update) {}
+
+    /**
+     * Tuile d'une passe cumulée, déjà mélangée à la moyenne des passes
+     * précédentes (voir {@link RefinementPlan#withAccumulation}). La tuile
+     * n'est valable que pendant l'appel : la copier pour la garder.
+     */
+    default void tileAccumulated(int passIndex, BufferedImage part, int x, int y) {}
+
+    /**
+     * Image complète d'une passe (moyenne courante si le plan cumule) ;
+     * {@code last} vaut vrai pour la qualité finale. La moyenne d'un plan
+     * cumulé est réécrite par la passe suivante : la copier pour la garder.
+     * L'image de la dernière passe n'est jamais réécrite.
+     */
+    default void passCompleted(int passIndex, BufferedImage image, boolean last) {}
+
+    /** Échec (hors annulation) d'une passe ; les passes suivantes ne sont pas lancées. */
+    default void renderFailed(int passIndex, Throwable error) {}
+}
@@ -0,0 +1,153 @@
+package shapes_3d.renderer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Plan de rendu progressif : une suite de passes de qualité croissante.
+ * La première passe part immédiatement ; les suivantes ne démarrent qu'une
+ * fois la caméra immobile depuis {@link #getIdleDelayMillis()}.
+ * <p>
+ * Avec {@link #withAccumulation}, les passes en pleine résolution s'ajoutent
+ * les unes aux autres au lieu de repartir de zéro, et des passes
+ * supplémentaires continuent d'affiner l'image tant que la caméra ne bouge
+ * pas, jusqu'au nombre d'échantillons voulu.
+ */
+public final class RefinementPlan {
+
+    /** Une passe : facteur de résolution et nombre d'échantillons par pixel. */
+    public static final class Pass {
+        public final double scale;
+        public final int samplesPerPixel;
+
+        public Pass(double scale, int samplesPerPixel) {
+            if (scale <= 0 || scale > 1) throw new IllegalArgumentException("scale must be in ]0, 1]");
+            if (samplesPerPixel < 1) throw new IllegalArgumentException("samplesPerPixel must be >= 1");
+            this.scale = scale;
+            this.samplesPerPixel = samplesPerPixel;
+        }
+
+        @Override
+        public String toString() {
+            return "x" + scale + " / " + samplesPerPixel + " spp";
+        }
+    }
+
+    private final long idleDelayMillis;
+    private final List<Pass> passes;
+    private final AdaptiveQualityController previewController;
+    // extra full-resolution passes added after the listed ones (null: no accumulation)
+    private final Pass accumulationPass;
+    private final int accumulationPasses;
+    private final int maxSamples;
+
+    public RefinementPlan(long idleDelayMillis, List<Pass> passes) {
+        this(idleDelayMillis, passes, null, null, 0);
+    }
+
+    private RefinementPlan(long idleDelayMillis, List<Pass> passes, AdaptiveQualityController previewController,
+                           Pass accumulationPass, int maxSamples) {
+        if (passes == null || passes.isEmpty()) throw new IllegalArgumentException("a plan needs at least one pass");
+        this.idleDelayMillis = Math.max(0, idleDelayMillis);
+        this.passes = Collections.unmodifiableList(new ArrayList<>(passes));
+        this.previewController = previewController;
+        this.accumulationPass = accumulationPass;
+        this.maxSamples = maxSamples;
+        if (accumulationPass == null) {
+            this.accumulationPasses = 0;
+        } else {
+            int listed = 0;
+            for (int i = 0; i < this.passes.size(); i++) {
+                if (isAccumulated(i)) listed += this.passes.get(i).samplesPerPixel;
+            }
+            int missing = Math.max(0, maxSamples - listed);
+            this.accumulationPasses = (missing + accumulationPass.samplesPerPixel - 1) / accumulationPass.samplesPerPixel;
+        }
+    }
+
+    /**
+     * Même plan, dont la première passe est réglée par {@code controller}
+     * au lieu de sa résolution et de ses échantillons fixes.
+     */
+    public RefinementPlan withPreviewController(AdaptiveQualityController controller) {
+        return new RefinementPlan(idleDelayMillis, passes, controller, accumulationPass, maxSamples);
+    }
+
+    /**
+     * Même plan, dont les passes en pleine résolution sont cumulées, suivi de
+     * passes à {@code samplesPerPass} échantillons jusqu'à {@code maxSamples}
+     * échantillons par pixel. {@code samplesPerPass <= 0} désactive le cumul.
+     */
+    public RefinementPlan withAccumulation(int samplesPerPass, int maxSamples) {
+        Pass extra = samplesPerPass > 0 ? new Pass(1.0, samplesPerPass) : null;
+        return new RefinementPlan(idleDelayMillis, passes, previewController, extra, maxSamples);
+    }
+
+    /** Vrai si les passes en pleine résolution s'ajoutent les unes aux autres. */
+    public boolean isAccumulating() {
+        return accumulationPass != null;
+    }
+
+    /**
+     * Vrai si la passe {@code index} s'ajoute à la moyenne : passes en
+     * pleine résolution d'un plan qui cumule. Un aperçu réglé par le
+     * régulateur n'en fait jamais partie, sa résolution et ses échantillons
+     * changeant d'une image à l'autre.
+     */
+    public boolean isAccumulated(int index) {
+        if (!isAccumulating()) return false;
+        if (index == 0 && previewController != null) return false;
+        return pass(index).scale == 1.0;
+    }
+
+    /**
+     * Échantillons par pixel de l'image obtenue à la fin de la passe
+     * {@code index} : cumul des passes de {@link #isAccumulated} si le plan
+     * cumule, échantillons de la passe seule sinon.
+     */
+    public int samplesThrough(int index) {
+        if (!isAccumulating()) return pass(index).samplesPerPixel;
+        int total = 0;
+        for (int i = 0; i <= index; i++) {
+            if (isAccumulated(i)) total += pass(i).samplesPerPixel;
+        }
+        return total;
+    }
+
+    /** Régulateur de la première passe, ou null. */
+    public AdaptiveQualityController getPreviewController() {
+        return previewController;
+    }
+
+    /** Aperçu basse résolution, puis pleine résolution à 1 puis 10 échantillons. */
+    public static RefinementPlan defaultPlan(long idleDelayMillis) {
+        return new RefinementPlan(idleDelayMillis, List.of(
+                new Pass(0.4, 1),
+                new Pass(1.0, 1),
+                new Pass(1.0, 10)));
+    }
+
+    public static RefinementPlan singlePass(double scale, int samplesPerPixel) {
+        return new RefinementPlan(0, List.of(new Pass(scale, samplesPerPixel)));
+    }
+
+    public long getIdleDelayMillis() {
+        return idleDelayMillis;
+    }
+
+    /** Nombre de passes, passes de cumul comprises. */
+    public int size() {
+        return passes.size() + accumulationPasses;
+    }
+
+    /** Nombre de passes données explicitement, sans les passes de cumul. */
+    public int listedSize() {
+        return passes.size();
+    }
+
+    public Pass pass(int index) {
+        if (index >= passes.size() && index < size()) return accumulationPass;
+        return passes.get(index);
+    }
+}
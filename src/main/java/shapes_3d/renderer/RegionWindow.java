@@ -0,0 +1,101 @@
+package shapes_3d.renderer;
+
+import ray_tracer.geometry.Point;
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+
+/**
+ * Fenêtre centrée d'une image, rendue seule en réduisant le champ de vision.
+ * <p>
+ * Le renderer ne sait rendre qu'une image entière. Une fenêtre centrée de
+ * {@code w' x h'} pixels, avec le même rapport largeur/hauteur que l'image,
+ * s'obtient exactement en rendant une image de cette taille avec
+ * {@code tan(fov'/2) = tan(fov/2) * h'/h} : les centres de pixels tombent aux
+ * mêmes rayons que dans l'image complète, que le champ de vision soit
+ * vertical ou horizontal. Pour une région quelconque on rend la plus petite
+ * fenêtre centrée qui la contient, puis on la recadre.
+ */
+public final class RegionWindow {
+
+    /** Fenêtre dans l'image complète (coordonnées du renderer). */
+    public final int x;
+    public final int y;
+    public final int width;
+    public final int height;
+
+    private final int frameWidth;
+    private final int frameHeight;
+
+    private RegionWindow(int frameWidth, int frameHeight, int width, int height) {
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.width = width;
+        this.height = height;
+        this.x = (frameWidth - width) / 2;
+        this.y = (frameHeight - height) / 2;
+    }
+
+    /**
+     * Plus petite fenêtre centrée, de même proportion que l'image
+     * {@code frameWidth x frameHeight}, qui contient la région donnée.
+     * Dans le pire cas (région dans un coin, ou côtés de l'image sans
+     * diviseur commun comme 801x601), c'est l'image entière : voir
+     * {@link #isWholeFrame()} avant de lancer le rendu.
+     */
+    public static RegionWindow enclosing(int frameWidth, int frameHeight,
+                                         int regionX, int regionY, int regionWidth, int regionHeight) {
+        if (regionWidth <= 0 || regionHeight <= 0 || regionX < 0 || regionY < 0
+                || regionX + regionWidth > frameWidth || regionY + regionHeight > frameHeight) {
+            throw new IllegalArgumentException("région hors de l'image : " + regionX + "," + regionY + " "
+                    + regionWidth + "x" + regionHeight + " dans " + frameWidth + "x" + frameHeight);
+        }
+        // window sizes keeping the exact aspect ratio: k * (p x q)
+        int g = gcd(frameWidth, frameHeight);
+        int p = frameWidth / g;
+        int q = frameHeight / g;
+        int needW = Math.max(frameWidth - 2 * regionX, 2 * (regionX + regionWidth) - frameWidth);
+        int needH = Math.max(frameHeight - 2 * regionY, 2 * (regionY + regionHeight) - frameHeight);
+        for (int k = 1; k < g; k++) {
+            int w = k * p;
+            int h = k * q;
+            // same parity as the frame, so that the window is centred on whole pixels
+            if (((frameWidth - w) & 1) != 0 || ((frameHeight - h) & 1) != 0) continue;
+            if (w >= needW && h >= needH) return new RegionWindow(frameWidth, frameHeight, w, h);
+        }
+        return new RegionWindow(frameWidth, frameHeight, frameWidth, frameHeight);
+    }
+
+    /** Vrai si la fenêtre est l'image entière (aucun gain à la rendre seule). */
+    public boolean isWholeFrame() {
+        return width == frameWidth && height == frameHeight;
+    }
+
+    /**
+     * Caméra qui rend exactement cette fenêtre dans une image {@code width x height}.
+     * @throws IllegalStateException si le ray tracer n'expose pas le vecteur haut (voir {@link Cameras})
+     */
+    public Camera camera(Camera base) {
+        if (isWholeFrame()) return base;
+        double half = Math.toRadians(base.getFov()) / 2;
+        double fov = Math.toDegrees(2 * Math.atan(Math.tan(half) * height / frameHeight));
+        Point from = base.getLookFrom();
+        Point at = base.getLookAt();
+        Vector up = Cameras.up(base);
+        return new Camera(from.getX(), from.getY(), from.getZ(), at.getX(), at.getY(), at.getZ(),
+                up.getX(), up.getY(), up.getZ(), fov);
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + " @ " + x + "," + y + " / " + frameWidth + "x" + frameHeight;
+    }
+}
@@ -0,0 +1,15 @@
+package shapes_3d.renderer;
+
+/**
+ * Classes de priorité des rendus sur le pool de workers partagé.
+ * Les tuiles d'une classe plus prioritaire passent devant celles déjà en
+ * file d'attente des classes suivantes.
+ */
+public enum RenderPriority {
+    /** Aperçus pendant l'interaction : à servir en premier. */
+    INTERACTIVE,
+    /** Passes de raffinement et rendus finaux. */
+    FINAL,
+    /** Rendus en lot, serveur, séquences. */
+    BATCH
+}
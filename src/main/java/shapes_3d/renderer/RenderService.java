@@ -1,60 +1,597 @@
 package shapes_3d.renderer;
 
+import ray_tracer.parsing.Camera;
+import ray_tracer.parsing.Scene;
 import ray_tracer.renderer.DefaultRenderer;
 import ray_tracer.renderer.RenderOptions;
 import ray_tracer.renderer.RenderTask;
 import ray_tracer.renderer.ProgressListener;
+import ray_tracer.renderer.RenderUpdate;
+import shapes_3d.metrics.RenderJobMetrics;
+import shapes_3d.metrics.RenderMetrics;
 
 import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
  * Service léger pour encapsuler la logique asynchrone de rendu.
+ * <p>
+ * Tous les rendus partagent un pool de workers dont la file est ordonnée par
+ * {@link RenderPriority} : les aperçus interactifs passent devant les rendus
+ * finaux et les rendus en lot. Aucun thread ne reste bloqué à attendre un
+ * rendu : chaque job est exposé comme un {@link CompletableFuture}, complété
+ * dès que la tâche du renderer qui termine le rendu rend la main.
+ * <p>
+ * Chaque job est mesuré dans un {@link RenderMetrics} (première tuile, durée
+ * des tuiles, latence, CPU perdu en annulations) et émis en événements JFR.
  */
 public class RenderService {
 
-    private final DefaultRenderer renderer;
-    private final ExecutorService exec = Executors.newSingleThreadExecutor();
-    private final AtomicReference<RenderTask> currentTask = new AtomicReference<>();
+    // re-checks of a renderer future still pending once its job has no task left, doubling up to the max
+    private static final long RECHECK_MICROS = 500;
+    private static final long MAX_RECHECK_MICROS = 50_000;
+
+    private final PriorityWorkerPool pool;
+    private volatile RenderMetrics metrics = RenderMetrics.getDefault();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "render-scheduler");
+        t.setDaemon(true);
+        return t;
+    });
+    // every submitted job not finished yet, cancelled by shutdown()
+    private final Set<CompletableFuture<BufferedImage>> inFlight = ConcurrentHashMap.newKeySet();
+
+    // current interactive request; replaced (and cancelled) by the next one
+    private final AtomicReference<CompletableFuture<BufferedImage>> currentJob = new AtomicReference<>();
+    // current region render; cancelled by any new request, region or not
+    private final AtomicReference<CompletableFuture<BufferedImage>> currentRegion = new AtomicReference<>();
+    // incremented by every new interactive request: stale passes compare and drop out
+    private final AtomicLong generation = new AtomicLong();
+    private ScheduledFuture<?> pendingPass;
+    private volatile FrameCache frameCache;
+    // running average of the full-size passes of one progressive request (see RefinementPlan#withAccumulation)
+    private final Object accumulationLock = new Object();
+    private AccumulationBuffer accumulation;
+    private long accumulationGen = -1;
+    private volatile Consumer<Throwable> errorHandler = e -> {
+        System.err.println("Échec du rendu : " + e);
+        e.printStackTrace();
+    };
 
     public RenderService() {
-        this.renderer = new DefaultRenderer(java.util.concurrent.Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()));
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workerThreads taille du pool partagé par tous les rendus de ce service
+     */
+    public RenderService(int workerThreads) {
+        this.pool = new PriorityWorkerPool(workerThreads);
+    }
+
+    /**
+     * Soumet un rendu indépendant des autres. Annuler le future annule le rendu.
+     * Le future échoue avec l'exception du renderer en cas d'erreur.
+     *
+     * @param progressListener tuiles terminées (peut être null)
+     */
+    public CompletableFuture<BufferedImage> submit(Scene scene, Camera camera,
+                                                   int width, int height, RenderOptions opts,
+                                                   RenderPriority priority, ProgressListener progressListener) {
+        RenderJobMetrics job = metrics.startJob(priority.name(), width, height, opts.samplesPerPixel);
+        Completion completion = new Completion();
+        CompletableFuture<BufferedImage> result = completion.result;
+        RenderTask task;
+        try {
+            // one renderer per job so that its view attributes every task to this job
+            completion.view = pool.view(priority, job, completion);
+            task = new DefaultRenderer(completion.view).render(scene, camera, width, height, opts);
+        } catch (RuntimeException e) {
+            job.finish(RenderJobMetrics.Outcome.FAILED);
+            result.completeExceptionally(e);
+            return result;
+        }
+        task.addProgressListener(new ProgressListener() {
+            @Override
+            public void onUpdate(RenderUpdate update) {
+                job.tileDelivered();
+                if (progressListener != null) progressListener.onUpdate(update);
+                completion.tryComplete();
+            }
+        });
+
+        inFlight.add(result);
+        result.whenComplete((img, err) -> {
+            inFlight.remove(result);
+            if (result.isCancelled()) {
+                job.finish(RenderJobMetrics.Outcome.CANCELLED);
+                try { task.cancel(); } catch (Exception ignored) {}
+            } else {
+                job.finish(err == null ? RenderJobMetrics.Outcome.COMPLETED : RenderJobMetrics.Outcome.FAILED);
+            }
+        });
+
+        Future<BufferedImage> f = task.getFuture();
+        if (f instanceof CompletableFuture<BufferedImage> cf) {
+            cf.whenComplete((img, err) -> {
+                if (err == null) result.complete(img);
+                else completeExceptionally(result, err);
+            });
+        } else {
+            completion.attach(f);
+        }
+        return result;
     }
 
-    public void render(ray_tracer.parsing.Scene scene, ray_tracer.parsing.Camera camera,
+    /**
+     * Rendu interactif « dernier arrivé » : annule le rendu interactif précédent.
+     * Les erreurs sont transmises au gestionnaire d'erreurs du service.
+     */
+    public void render(Scene scene, Camera camera,
                        int width, int height, RenderOptions opts,
                        ProgressListener progressListener,
                        Consumer<BufferedImage> finalImageConsumer) {
-        try {
-            RenderTask prev = currentTask.get();
-            if (prev != null && !prev.isDone()) prev.cancel();
-        } catch (Exception ignored) {}
+        generation.incrementAndGet();
+        cancelInFlight();
+
+        CompletableFuture<BufferedImage> job = submit(scene, camera, width, height, opts,
+                RenderPriority.INTERACTIVE, progressListener);
+        currentJob.set(job);
+        job.whenComplete((img, err) -> {
+            if (err != null) report(err);
+            else if (finalImageConsumer != null) finalImageConsumer.accept(img);
+        });
+    }
+
+    /**
+     * Rendu progressif : exécute les passes de {@code plan} l'une après l'autre
+     * (aperçu immédiat, puis qualité croissante une fois la caméra immobile).
+     * Tout nouvel appel, ou {@link #render}/{@link #cancel()}, annule aussitôt
+     * les passes en cours et celles encore planifiées.
+     *
+     * @param baseOptions options communes ; facteur de résolution et
+     *                    échantillons par pixel sont fixés par chaque passe
+     */
+    public void renderProgressive(Scene scene, Camera camera,
+                                  int width, int height, RenderOptions baseOptions,
+                                  RefinementPlan plan, RefinementListener listener) {
+        renderProgressive(scene, camera, width, height, baseOptions, plan, null, listener);
+    }
+
+    /**
+     * Variante qui consulte le {@link FrameCache} : si une passe a déjà été
+     * rendue pour cette scène et cette caméra, son image est livrée aussitôt
+     * et le raffinement reprend à la passe suivante.
+     *
+     * @param sceneHash empreinte du texte de la scène, ou null pour ne pas utiliser le cache
+     */
+    public void renderProgressive(Scene scene, Camera camera,
+                                  int width, int height, RenderOptions baseOptions,
+                                  RefinementPlan plan, String sceneHash, RefinementListener listener) {
+        long gen = generation.incrementAndGet();
+        cancelInFlight();
+        long requestedAt = System.nanoTime();
+        FrameCache cache = sceneHash != null ? frameCache : null;
+        if (cache != null) {
+            for (int i = plan.size() - 1; i >= 0; i--) {
+                BufferedImage hit = cache.get(FrameCache.key(sceneHash, camera, width, height,
+                        cacheOptions(passOptions(baseOptions, plan, i, width, height), plan, i)));
+                if (hit == null) continue;
+                boolean last = i == plan.size() - 1;
+                if (plan.isAccumulated(i) && hit.getWidth() == width && hit.getHeight() == height) {
+                    // resume the running average from the cached one
+                    accumulate(gen, hit, plan.samplesThrough(i), true);
+                }
+                listener.passCompleted(i, hit, last);
+                if (!last) {
+                    int next = i + 1;
+                    long delay = TimeUnit.MILLISECONDS.toNanos(plan.getIdleDelayMillis());
+                    schedule(gen, () -> runPass(gen, requestedAt, next, scene, camera, width, height,
+                            baseOptions, plan, sceneHash, listener), delay);
+                }
+                return;
+            }
+        }
+        runPass(gen, requestedAt, 0, scene, camera, width, height, baseOptions, plan, sceneHash, listener);
+    }
+
+    /**
+     * Rend seulement la région {@code regionX, regionY, regionWidth x regionHeight}
+     * (coordonnées du renderer) de l'image {@code width x height}, pour la
+     * recomposer à sa place dans l'image affichée. Le future donne une image
+     * de la taille de la région.
+     * <p>
+     * La région est rendue via la plus petite fenêtre centrée qui la contient
+     * (voir {@link RegionWindow}). Elle est annulée par la région suivante et
+     * par tout rendu interactif ou progressif (mouvement de caméra).
+     */
+    public CompletableFuture<BufferedImage> renderRegion(Scene scene, Camera camera,
+                                                         int width, int height,
+                                                         int regionX, int regionY, int regionWidth, int regionHeight,
+                                                         RenderOptions opts) {
+        RegionWindow window = RegionWindow.enclosing(width, height, regionX, regionY, regionWidth, regionHeight);
+        RenderOptions o = copyOptions(opts);
+        o.lowResFactor = 1.0;
+        CompletableFuture<BufferedImage> job = submit(scene, window.camera(camera), window.width, window.height, o,
+                RenderPriority.FINAL, null);
+        CompletableFuture<BufferedImage> prev = currentRegion.getAndSet(job);
+        if (prev != null) prev.cancel(false);
+        CompletableFuture<BufferedImage> region = job.thenApply(img -> crop(img,
+                regionX - window.x, regionY - window.y, regionWidth, regionHeight));
+        // cancelling the cropped result cancels the render
+        region.whenComplete((img, err) -> {
+            if (region.isCancelled()) job.cancel(false);
+        });
+        return region;
+    }
+
+    /**
+     * Rendu très grand format écrit en PNG au fil des tuiles (voir
+     * {@link TileStreamWriter}) : ni ce service ni l'export ne gardent de
+     * copie de l'image entière. L'encodage avance pendant le rendu. Annuler
+     * le future annule le rendu et supprime les fichiers partiels.
+     *
+     * @param sink écrivain ouvert pour {@code width x height}, fermé par ce service
+     * @return le chemin écrit
+     */
+    public CompletableFuture<Path> renderToFile(Scene scene, Camera camera,
+                                                int width, int height, RenderOptions opts, TileStreamWriter sink) {
+        RenderOptions o = copyOptions(opts);
+        o.lowResFactor = 1.0;
+        // each tile must reach the writer once: it counts the rows it has received
+        o.progressive = false;
+        CompletableFuture<BufferedImage> job = submit(scene, camera, width, height, o, RenderPriority.FINAL,
+                new ProgressListener() {
+                    @Override
+                    public void onUpdate(RenderUpdate update) {
+                        if (update.imagePart != null) sink.accept(update.imagePart, update.x, update.y);
+                    }
+                });
+        job.whenComplete((img, err) -> {
+            if (err != null) sink.close();
+            else sink.complete(img);
+        });
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        sink.completion().whenComplete((path, err) -> {
+            if (err == null) result.complete(path);
+            else if (!job.isCancelled() && !isCancellation(err)) result.completeExceptionally(unwrap(err));
+            else result.cancel(false);
+        });
+        job.whenComplete((img, err) -> {
+            if (err != null && !isCancellation(err)) result.completeExceptionally(unwrap(err));
+        });
+        result.whenComplete((path, err) -> {
+            if (result.isCancelled()) {
+                job.cancel(false);
+                sink.close();
+            }
+        });
+        return result;
+    }
+
+    private static BufferedImage crop(BufferedImage img, int x, int y, int w, int h) {
+        BufferedImage out = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[w];
+        for (int j = 0; j < h; j++) {
+            img.getRGB(x, y + j, w, 1, row, 0, w);
+            out.setRGB(0, j, w, 1, row, 0, w);
+        }
+        return out;
+    }
+
+    /** Cache d'images consulté par {@link #renderProgressive} (null pour le désactiver). */
+    public void setFrameCache(FrameCache frameCache) {
+        this.frameCache = frameCache;
+    }
+
+    /** Registre qui reçoit les mesures des prochains jobs (par défaut {@link RenderMetrics#getDefault()}). */
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RenderMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Reçoit les échecs de rendu (hors annulations) des API à callbacks. */
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    private static RenderOptions passOptions(RenderOptions baseOptions, RefinementPlan plan, int index,
+                                             int width, int height) {
+        RenderOptions opts = copyOptions(baseOptions);
+        RefinementPlan.Pass pass = plan.pass(index);
+        opts.lowResFactor = pass.scale;
+        opts.samplesPerPixel = pass.samplesPerPixel;
+        if (index == 0 && plan.getPreviewController() != null) {
+            plan.getPreviewController().applyTo(opts, width, height);
+        }
+        return opts;
+    }
 
-        RenderTask task = renderer.render(scene, camera, width, height, opts);
-        if (progressListener != null) task.addProgressListener(progressListener);
-        currentTask.set(task);
+    // an accumulated image is cached under its total sample count, not the pass's own
+    private static RenderOptions cacheOptions(RenderOptions passOptions, RefinementPlan plan, int index) {
+        if (!plan.isAccumulated(index)) return passOptions;
+        RenderOptions o = copyOptions(passOptions);
+        o.samplesPerPixel = plan.samplesThrough(index);
+        return o;
+    }
+
+    /**
+     * Ajoute une passe à la moyenne de la requête {@code gen} et renvoie la
+     * moyenne, ou null si la requête a été remplacée entre-temps. L'image
+     * renvoyée est réécrite par la passe cumulée suivante.
+     * {@code seed} remet d'abord la moyenne à zéro (image venant du cache).
+     */
+    private BufferedImage accumulate(long gen, BufferedImage img, int samples, boolean seed) {
+        synchronized (accumulationLock) {
+            if (generation.get() != gen) return null;
+            if (accumulation == null || !accumulation.hasSize(img.getWidth(), img.getHeight())) {
+                // the previous buffer is released by its cleaner once unreachable
+                accumulation = new AccumulationBuffer(img.getWidth(), img.getHeight());
+                accumulationGen = -1;
+            }
+            if (accumulationGen != gen || seed) {
+                accumulation.reset();
+                accumulationGen = gen;
+            }
+            accumulation.add(img, samples);
+            return accumulation.resolve();
+        }
+    }
 
-        exec.execute(() -> {
+    private BufferedImage blendTile(long gen, BufferedImage part, int x, int y, int samples) {
+        synchronized (accumulationLock) {
+            if (accumulationGen != gen || accumulation == null) return part;
+            return accumulation.blend(part, x, y, samples);
+        }
+    }
+
+    private synchronized void runPass(long gen, long requestedAt, int index,
+                                      Scene scene, Camera camera,
+                                      int width, int height, RenderOptions baseOptions,
+                                      RefinementPlan plan, String sceneHash, RefinementListener listener) {
+        if (generation.get() != gen) return;
+        RenderOptions opts = passOptions(baseOptions, plan, index, width, height);
+        AdaptiveQualityController controller = index == 0 ? plan.getPreviewController() : null;
+        // the first pass is what the user waits for while interacting
+        RenderPriority priority = index == 0 ? RenderPriority.INTERACTIVE : RenderPriority.FINAL;
+
+        // full-size passes add into the running average; their tiles are shown blended with it.
+        // A preview tuned up to full size is not one of them: samplesThrough() does not count it
+        boolean accumulating = plan.isAccumulated(index) && opts.lowResFactor >= 1.0;
+        int samples = opts.samplesPerPixel;
+
+        listener.passStarted(index, plan.size());
+        CompletableFuture<BufferedImage> job = submit(scene, camera, width, height, opts, priority,
+                new ProgressListener() {
+                    @Override
+                    public void onUpdate(RenderUpdate update) {
+                        if (generation.get() != gen) return;
+                        if (accumulating && update.imagePart != null) {
+                            listener.tileAccumulated(index, blendTile(gen, update.imagePart, update.x, update.y, samples),
+                                    update.x, update.y);
+                        } else {
+                            listener.tileRendered(index, update);
+                        }
+                    }
+                });
+        currentJob.set(job);
+        long submittedAt = System.nanoTime();
+
+        job.whenComplete((img, err) -> {
+            // a cancelled preview was replaced before it finished; a failed one says nothing about its speed
+            if (controller != null && (err == null || isCancellation(err))) {
+                controller.record(System.nanoTime() - submittedAt, err == null);
+            }
+            if (err != null) {
+                if (!isCancellation(err) && generation.get() == gen) {
+                    report(err);
+                    listener.renderFailed(index, unwrap(err));
+                }
+                return;
+            }
+            // this callback's future is not observed: failures must reach the listener from here
             try {
-                BufferedImage finalImg = task.getFuture().get();
-                if (finalImageConsumer != null) finalImageConsumer.accept(finalImg);
-            } catch (Exception e) {
-                // cancelled or failed
+                boolean last = index == plan.size() - 1;
+                BufferedImage result = img;
+                if (accumulating && img.getWidth() == width && img.getHeight() == height) {
+                    result = accumulate(gen, img, samples, false);
+                    if (result == null) return;
+                }
+                // the running average is overwritten by the next request: the final one is handed out as a copy
+                if (last && result != img) result = crop(result, 0, 0, width, height);
+                FrameCache cache = frameCache;
+                // accumulation passes are only cached at the end, not at every step
+                if (cache != null && sceneHash != null && (index < plan.listedSize() || last)) {
+                    BufferedImage kept = result != img && !last ? crop(result, 0, 0, width, height) : result;
+                    cache.put(FrameCache.key(sceneHash, camera, width, height, cacheOptions(opts, plan, index)), kept);
+                }
+                if (generation.get() != gen) return;
+                listener.passCompleted(index, result, last);
+                if (last) return;
+
+                // next pass only once the camera has been idle long enough
+                long idleUntil = requestedAt + TimeUnit.MILLISECONDS.toNanos(plan.getIdleDelayMillis());
+                long delay = Math.max(0, idleUntil - System.nanoTime());
+                schedule(gen, () -> runPass(gen, requestedAt, index + 1, scene, camera,
+                        width, height, baseOptions, plan, sceneHash, listener), delay);
+            } catch (RuntimeException e) {
+                if (generation.get() != gen) return;
+                report(e);
+                listener.renderFailed(index, e);
             }
         });
     }
 
-    public void cancel() {
+    private synchronized void schedule(long gen, Runnable next, long delayNanos) {
+        if (generation.get() != gen || scheduler.isShutdown()) return;
+        pendingPass = scheduler.schedule(next, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void cancelInFlight() {
+        if (pendingPass != null) {
+            pendingPass.cancel(false);
+            pendingPass = null;
+        }
+        CompletableFuture<BufferedImage> prev = currentJob.getAndSet(null);
+        if (prev != null) prev.cancel(false);
+        CompletableFuture<BufferedImage> region = currentRegion.getAndSet(null);
+        if (region != null) region.cancel(false);
+    }
+
+    /**
+     * Rendu bloquant en priorité {@link RenderPriority#BATCH}, indépendant du
+     * rendu interactif courant : plusieurs appels concurrents se partagent le
+     * pool du service sans s'annuler mutuellement.
+     */
+    public BufferedImage renderAndWait(Scene scene, Camera camera,
+                                       int width, int height, RenderOptions opts)
+            throws InterruptedException, ExecutionException {
+        CompletableFuture<BufferedImage> job = submit(scene, camera, width, height, opts, RenderPriority.BATCH, null);
         try {
-            RenderTask t = currentTask.get();
-            if (t != null && !t.isDone()) t.cancel();
-        } catch (Exception ignored) {}
+            return job.get();
+        } catch (InterruptedException e) {
+            job.cancel(false);
+            throw e;
+        }
     }
 
+    public void cancel() {
+        generation.incrementAndGet();
+        cancelInFlight();
+    }
+
+    /**
+     * Annule les rendus en cours et ferme tous les pools du service. Tous les
+     * futures encore en cours, y compris ceux de {@link #submit}, sont annulés.
+     */
     public void shutdown() {
-        try { exec.shutdownNow(); } catch (Exception ignored) {}
+        cancel();
+        scheduler.shutdownNow();
+        for (CompletableFuture<BufferedImage> job : inFlight) job.cancel(false);
+        try {
+            pool.shutdown(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Copie des options connues de {@link RenderOptions}. */
+    public static RenderOptions copyOptions(RenderOptions src) {
+        RenderOptions o = new RenderOptions();
+        o.samplesPerPixel = src.samplesPerPixel;
+        o.maxDepth = src.maxDepth;
+        o.tileSize = src.tileSize;
+        o.threadCount = src.threadCount;
+        o.lowResFactor = src.lowResFactor;
+        o.progressive = src.progressive;
+        return o;
+    }
+
+    // --- completion of plain Futures, without a blocked waiting thread ---
+
+    /**
+     * Relie le future du renderer à celui du service. Il est vérifié à chaque
+     * tuile livrée et à la fin de chaque tâche du job : le rendu est vu terminé
+     * dès que la tâche qui le termine rend la main.
+     * <p>
+     * Le renderer ne rend qu'un {@link Future} simple, sans rappel. S'il le
+     * termine hors des tâches du job, plus rien ne le signale : dans ce seul
+     * cas, une fois le job sans tâche, le future est revérifié à intervalles
+     * croissants jusqu'à sa fin ou son annulation.
+     */
+    private final class Completion implements PriorityWorkerPool.TaskListener {
+        final CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+        volatile ExecutorService view;
+        private volatile Future<BufferedImage> future;
+        private final AtomicBoolean rechecking = new AtomicBoolean();
+
+        void attach(Future<BufferedImage> f) {
+            future = f;
+            // the last task may have returned before the future was known
+            if (!tryComplete() && PriorityWorkerPool.isIdle(view)) recheck(RECHECK_MICROS);
+        }
+
+        /** Vrai si le résultat est (ou vient d'être) complété. */
+        boolean tryComplete() {
+            if (result.isDone()) return true;
+            Future<BufferedImage> f = future;
+            if (f == null || !f.isDone()) return false;
+            try {
+                result.complete(f.get());
+            } catch (CancellationException e) {
+                result.cancel(false);
+            } catch (ExecutionException e) {
+                completeExceptionally(result, e.getCause() != null ? e.getCause() : e);
+            } catch (InterruptedException e) {
+                // not reached for a done future; leave it to the next check
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void taskFinished(boolean idle) {
+            if (tryComplete() || !idle || future == null) return;
+            recheck(RECHECK_MICROS);
+        }
+
+        private void recheck(long delayMicros) {
+            if (!rechecking.compareAndSet(false, true)) return;
+            schedule(delayMicros);
+        }
+
+        private void schedule(long delayMicros) {
+            try {
+                scheduler.schedule(() -> {
+                    if (!tryComplete()) schedule(Math.min(delayMicros * 2, MAX_RECHECK_MICROS));
+                }, delayMicros, TimeUnit.MICROSECONDS);
+            } catch (Exception ignored) {
+                // shut down: shutdown() cancels the result
+            }
+        }
+    }
+
+    private static void completeExceptionally(CompletableFuture<BufferedImage> result, Throwable err) {
+        Throwable cause = unwrap(err);
+        if (cause instanceof CancellationException) result.cancel(false);
+        else result.completeExceptionally(cause);
+    }
+
+    private static Throwable unwrap(Throwable err) {
+        Throwable cur = err;
+        while ((cur instanceof CompletionException || cur instanceof ExecutionException) && cur.getCause() != null) {
+            cur = cur.getCause();
+        }
+        return cur;
+    }
+
+    private static boolean isCancellation(Throwable err) {
+        return unwrap(err) instanceof CancellationException;
+    }
+
+    private void report(Throwable err) {
+        if (isCancellation(err)) return;
+        Consumer<Throwable> handler = errorHandler;
+        if (handler != null) handler.accept(unwrap(err));
     }
 }
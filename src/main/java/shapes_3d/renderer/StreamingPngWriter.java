@@ -0,0 +1,169 @@
+package shapes_3d.renderer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodeur PNG (RVB 8 bits) qui reçoit l'image ligne par ligne, de haut en
+ * bas, sans jamais la garder entière : la mémoire utilisée ne dépend que de
+ * la largeur. Chaque ligne prend le filtre PNG (None, Sub, Up ou Paeth) qui
+ * minimise la somme des écarts, comme le fait l'encodeur de la JDK.
+ */
+public final class StreamingPngWriter implements AutoCloseable {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final Deflater deflater;
+    // compressed bytes waiting for a full IDAT chunk
+    private final byte[] deflated = new byte[CHUNK_SIZE];
+    private int pending;
+    private byte[] previous;
+    private byte[] current;
+    private final byte[][] filtered = new byte[4][];
+    private int rows;
+    private boolean closed;
+
+    /**
+     * @param level niveau deflate de 0 (aucune) à 9 (maximale)
+     */
+    public StreamingPngWriter(OutputStream out, int width, int height, int level) throws IOException {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("taille invalide : " + width + "x" + height);
+        long stride = 3L * width + 1;
+        if (stride > Integer.MAX_VALUE) throw new IllegalArgumentException("image trop large : " + width);
+        this.out = new DataOutputStream(new BufferedOutputStream(out, CHUNK_SIZE + 12));
+        this.width = width;
+        this.height = height;
+        this.deflater = new Deflater(Math.max(0, Math.min(9, level)));
+        this.previous = new byte[3 * width];
+        this.current = new byte[3 * width];
+        for (int f = 0; f < filtered.length; f++) filtered[f] = new byte[(int) stride];
+
+        this.out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, width);
+        putInt(ihdr, 4, height);
+        ihdr[8] = 8;   // bits per sample
+        ihdr[9] = 2;   // truecolour RGB
+        writeChunk("IHDR", ihdr, ihdr.length);
+    }
+
+    /** Nombre de lignes déjà écrites. */
+    public int getRowsWritten() {
+        return rows;
+    }
+
+    /** Écrit la ligne suivante, en octets R, V, B consécutifs. */
+    public void writeRow(byte[] rgb, int offset) throws IOException {
+        if (rows >= height) throw new IllegalStateException("toutes les lignes sont déjà écrites");
+        System.arraycopy(rgb, offset, current, 0, current.length);
+        byte[] best = filter();
+        deflater.setInput(best, 0, best.length);
+        drain(false);
+        byte[] t = previous;
+        previous = current;
+        current = t;
+        rows++;
+    }
+
+    /** Termine le flux (IEND) ; toutes les lignes doivent avoir été écrites. */
+    public void finish() throws IOException {
+        if (rows != height) throw new IllegalStateException(rows + " ligne(s) écrite(s) sur " + height);
+        deflater.finish();
+        drain(true);
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        deflater.end();
+        out.close();
+    }
+
+    // the filter whose output has the smallest sum of absolute values
+    private byte[] filter() {
+        int n = current.length;
+        byte[] none = filtered[0], sub = filtered[1], up = filtered[2], paeth = filtered[3];
+        none[0] = 0;
+        sub[0] = 1;
+        up[0] = 2;
+        paeth[0] = 4;
+        long sNone = 0, sSub = 0, sUp = 0, sPaeth = 0;
+        for (int i = 0; i < n; i++) {
+            int x = current[i] & 0xFF;
+            int a = i >= 3 ? current[i - 3] & 0xFF : 0;
+            int b = rows > 0 ? previous[i] & 0xFF : 0;
+            int c = i >= 3 && rows > 0 ? previous[i - 3] & 0xFF : 0;
+            byte vNone = (byte) x;
+            byte vSub = (byte) (x - a);
+            byte vUp = (byte) (x - b);
+            byte vPaeth = (byte) (x - paeth(a, b, c));
+            none[i + 1] = vNone;
+            sub[i + 1] = vSub;
+            up[i + 1] = vUp;
+            paeth[i + 1] = vPaeth;
+            sNone += Math.abs(vNone);
+            sSub += Math.abs(vSub);
+            sUp += Math.abs(vUp);
+            sPaeth += Math.abs(vPaeth);
+        }
+        byte[] best = none;
+        long min = sNone;
+        if (sSub < min) { best = sub; min = sSub; }
+        if (sUp < min) { best = up; min = sUp; }
+        if (sPaeth < min) best = paeth;
+        return best;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    private void drain(boolean finishing) throws IOException {
+        while (finishing ? !deflater.finished() : !deflater.needsInput()) {
+            pending += deflater.deflate(deflated, pending, deflated.length - pending);
+            if (pending == deflated.length) {
+                writeChunk("IDAT", deflated, pending);
+                pending = 0;
+            }
+        }
+        if (finishing && pending > 0) {
+            writeChunk("IDAT", deflated, pending);
+            pending = 0;
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] t = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(t);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(t);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+}
@@ -0,0 +1,287 @@
+package shapes_3d.renderer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Écrit une image en PNG au fil des tuiles, sans jamais la garder entière
+ * en mémoire.
+ * <p>
+ * Les tuiles arrivent dans n'importe quel ordre : elles sont d'abord posées
+ * dans un fichier brut (3 octets par pixel, {@code <dest>.spool}) par
+ * écritures positionnelles. Un thread d'encodage relit ce fichier ligne par
+ * ligne, dès qu'une ligne est complète, de haut en bas (le renderer range les
+ * lignes de bas en haut) et les passe à un {@link StreamingPngWriter}.
+ * L'encodage avance donc pendant le rendu ; la mémoire utilisée ne dépend que
+ * de la largeur de l'image et de la taille de l'aperçu.
+ * <p>
+ * Un aperçu réduit, construit à partir des mêmes tuiles (échantillonnage au
+ * plus proche), peut être transmis à l'interface.
+ */
+public final class TileStreamWriter implements AutoCloseable {
+
+    /** Reçoit les tuiles de l'aperçu réduit, en coordonnées de l'aperçu (lignes de bas en haut). */
+    public interface PreviewListener {
+        void previewTile(BufferedImage part, int x, int y);
+    }
+
+    private final Path dest;
+    private final Path part;
+    private final Path spool;
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int previewFactor;
+    private final PreviewListener preview;
+    private final DoubleConsumer progress;
+    private final CompletableFuture<Path> done = new CompletableFuture<>();
+    private final Thread encoder;
+
+    // pixels received per row; guarded by 'this'
+    private final int[] rowPixels;
+    private boolean aborted;
+
+    /**
+     * @param previewMaxSide plus grand côté de l'aperçu en pixels (0 : pas d'aperçu)
+     * @param preview        destinataire des tuiles de l'aperçu (peut être null)
+     * @param progress       avancement de l'encodage dans [0, 1] (peut être null)
+     */
+    public TileStreamWriter(Path dest, int width, int height, int pngCompressionLevel,
+                            int previewMaxSide, PreviewListener preview, DoubleConsumer progress) throws IOException {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("taille invalide : " + width + "x" + height);
+        String name = dest.getFileName().toString();
+        if (!name.contains(".")) dest = dest.resolveSibling(name + ".png");
+        if (dest.getParent() != null) Files.createDirectories(dest.getParent());
+        this.dest = dest;
+        this.part = dest.resolveSibling(dest.getFileName() + ".part");
+        this.spool = dest.resolveSibling(dest.getFileName() + ".spool");
+        this.width = width;
+        this.height = height;
+        this.previewFactor = previewMaxSide > 0 ? Math.max(1, ceilDiv(Math.max(width, height), previewMaxSide)) : 0;
+        this.preview = previewMaxSide > 0 ? preview : null;
+        this.progress = progress;
+        this.rowPixels = new int[height];
+        this.channel = FileChannel.open(spool, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        OutputStream out = Files.newOutputStream(part);
+        StreamingPngWriter png;
+        try {
+            png = new StreamingPngWriter(out, width, height, pngCompressionLevel);
+        } catch (IOException | RuntimeException e) {
+            out.close();
+            channel.close();
+            cleanUp();
+            throw e;
+        }
+        this.encoder = new Thread(() -> encode(png), "png-stream-" + dest.getFileName());
+        this.encoder.setDaemon(true);
+        this.encoder.start();
+    }
+
+    public int getPreviewWidth() {
+        return previewFactor > 0 ? ceilDiv(width, previewFactor) : 0;
+    }
+
+    public int getPreviewHeight() {
+        return previewFactor > 0 ? ceilDiv(height, previewFactor) : 0;
+    }
+
+    /** Complété par le chemin écrit une fois le fichier en place, ou par l'erreur. */
+    public CompletableFuture<Path> completion() {
+        return done;
+    }
+
+    /**
+     * Pose une tuile (coordonnées du renderer) ; appelable depuis les threads
+     * de rendu. Les tuiles ne doivent pas se recouvrir.
+     */
+    public void accept(BufferedImage tile, int x, int y) {
+        int w = Math.min(tile.getWidth(), width - x);
+        int h = Math.min(tile.getHeight(), height - y);
+        if (x < 0 || y < 0 || w <= 0 || h <= 0) return;
+        try {
+            ByteBuffer buf = ByteBuffer.allocate(3 * w);
+            int[] row = new int[w];
+            for (int j = 0; j < h; j++) {
+                readRow(tile, 0, j, w, row);
+                writeSpool(buf, row, w, (long) (y + j) * width + x);
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        synchronized (this) {
+            for (int j = 0; j < h; j++) rowPixels[y + j] += w;
+            notifyAll();
+        }
+        if (preview != null) postPreview(tile, x, y, w, h);
+    }
+
+    /**
+     * Image finale du renderer : complète les lignes qu'aucune tuile n'a
+     * couvertes (renderer sans suivi par tuiles), sans la copier.
+     */
+    public void complete(BufferedImage full) {
+        int[] row = new int[width];
+        ByteBuffer buf = ByteBuffer.allocate(3 * width);
+        boolean anyMissing = false;
+        try {
+            for (int y = 0; y < height; y++) {
+                boolean missing;
+                synchronized (this) {
+                    missing = rowPixels[y] < width;
+                }
+                if (!missing) continue;
+                anyMissing = true;
+                readRow(full, 0, y, width, row);
+                writeSpool(buf, row, width, (long) y * width);
+                synchronized (this) {
+                    rowPixels[y] = width;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+            return;
+        }
+        if (anyMissing && preview != null) postPreview(full, 0, 0, width, height);
+    }
+
+    /**
+     * Abandonne l'écriture et supprime les fichiers temporaires. Attend que le
+     * thread d'encodage ait fini : au retour, ni {@code .spool} ni {@code .part}
+     * ne restent sur le disque.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (done.isDone()) return;
+            aborted = true;
+            notifyAll();
+        }
+        done.cancel(false);
+        // close() may run on the encoder itself, from a completion callback
+        if (Thread.currentThread() == encoder) return;
+        try {
+            encoder.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encode(StreamingPngWriter png) {
+        byte[] line = new byte[3 * width];
+        ByteBuffer buf = ByteBuffer.wrap(line);
+        int lastPercent = -1;
+        boolean written = false;
+        try (png) {
+            for (int r = 0; r < height; r++) {
+                int src = height - 1 - r;
+                synchronized (this) {
+                    while (rowPixels[src] < width && !aborted) wait();
+                    if (aborted) break;
+                }
+                buf.clear();
+                long pos = (long) src * width * 3;
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, pos + buf.position()) < 0) throw new IOException("spool tronqué");
+                }
+                png.writeRow(line, 0);
+                int pct = (int) (100L * (r + 1) / height);
+                if (progress != null && pct != lastPercent && pct < 100) {
+                    lastPercent = pct;
+                    progress.accept(pct / 100.0);
+                }
+            }
+            if (png.getRowsWritten() == height) {
+                png.finish();
+                written = true;
+            }
+        } catch (InterruptedException e) {
+            fail(e);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        } finally {
+            try { channel.close(); } catch (IOException ignored) {}
+        }
+        if (!written) {
+            // aborted or failed: leave nothing behind
+            cleanUp();
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+            Files.move(part, dest, StandardCopyOption.REPLACE_EXISTING);
+            if (progress != null) progress.accept(1.0);
+            done.complete(dest);
+        } catch (IOException e) {
+            fail(e);
+            cleanUp();
+        }
+    }
+
+    private void fail(Throwable e) {
+        synchronized (this) {
+            aborted = true;
+            notifyAll();
+        }
+        done.completeExceptionally(e);
+    }
+
+    private void cleanUp() {
+        try { Files.deleteIfExists(spool); } catch (IOException ignored) {}
+        try { Files.deleteIfExists(part); } catch (IOException ignored) {}
+    }
+
+    private void writeSpool(ByteBuffer buf, int[] row, int w, long pixel) throws IOException {
+        buf.clear();
+        for (int i = 0; i < w; i++) {
+            int p = row[i];
+            buf.put((byte) (p >> 16)).put((byte) (p >> 8)).put((byte) p);
+        }
+        buf.flip();
+        long pos = pixel * 3;
+        while (buf.hasRemaining()) pos += channel.write(buf, pos);
+    }
+
+    // nearest sample of every previewFactor-th pixel that falls inside the tile
+    private void postPreview(BufferedImage tile, int x, int y, int w, int h) {
+        int f = previewFactor;
+        int px0 = ceilDiv(x, f);
+        int py0 = ceilDiv(y, f);
+        int px1 = ceilDiv(x + w, f);
+        int py1 = ceilDiv(y + h, f);
+        if (px1 <= px0 || py1 <= py0) return;
+        BufferedImage small = new BufferedImage(px1 - px0, py1 - py0, BufferedImage.TYPE_INT_RGB);
+        for (int py = py0; py < py1; py++) {
+            for (int px = px0; px < px1; px++) {
+                small.setRGB(px - px0, py - py0, tile.getRGB(px * f - x, py * f - y));
+            }
+        }
+        preview.previewTile(small, px0, py0);
+    }
+
+    private static void readRow(BufferedImage img, int x, int y, int w, int[] row) {
+        int type = img.getType();
+        if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB
+                || type == BufferedImage.TYPE_INT_ARGB_PRE) {
+            img.getRaster().getDataElements(x, y, w, 1, row);
+        } else {
+            img.getRGB(x, y, w, 1, row, 0, w);
+        }
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+}
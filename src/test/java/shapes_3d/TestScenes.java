@@ -0,0 +1,36 @@
+package shapes_3d;
+
+import ray_tracer.parsing.Scene;
+import shapes_3d.parsing.SceneLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/** Scènes de test, lues depuis {@code src/test/resources/scenes}. */
+public final class TestScenes {
+
+    private TestScenes() {}
+
+    /** Texte d'une scène de test ({@code name} sans extension). */
+    public static String text(String name) throws IOException {
+        try (InputStream in = TestScenes.class.getResourceAsStream("/scenes/" + name + ".scene")) {
+            if (in == null) throw new IOException("missing test scene " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /** Écrit la scène dans {@code dir} et renvoie son chemin. */
+    public static Path write(Path dir, String name, String text) throws IOException {
+        Path file = dir.resolve(name + ".scene");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    /** Analyse une scène de test avec le vrai analyseur. */
+    public static Scene load(Path dir, String name) throws Exception {
+        return SceneLoader.parseFileUncached(write(dir, name, text(name))).getScene();
+    }
+}
@@ -0,0 +1,54 @@
+package shapes_3d.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shapes_3d.TestScenes;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchRendererTest {
+
+    @TempDir
+    Path dir;
+
+    /** Deux scènes {@code x.scene}, dans {@code scenes/a} et {@code scenes/b}. */
+    private void writeTwins() throws IOException {
+        String text = TestScenes.text("spheres").replace("size 640 480", "size 32 24");
+        for (String sub : new String[] {"a", "b"}) {
+            TestScenes.write(Files.createDirectories(dir.resolve("scenes").resolve(sub)), "x", text);
+        }
+    }
+
+    private static int run(String... args) {
+        return BatchRenderer.run(CliArgs.parse(args, 0));
+    }
+
+    @Test
+    void recursiveGlobKeepsSubdirectoriesUnderOut() throws IOException {
+        writeTwins();
+        Path out = dir.resolve("out");
+
+        assertEquals(0, run(dir.resolve("scenes") + "/**.scene", "--out", out.toString(), "--spp", "1"));
+
+        assertTrue(Files.isRegularFile(out.resolve("a/x.png")));
+        assertTrue(Files.isRegularFile(out.resolve("b/x.png")));
+        assertFalse(Files.exists(out.resolve("x.png")));
+    }
+
+    @Test
+    void scenesWritingTheSameImageAreRejectedBeforeRendering() throws IOException {
+        writeTwins();
+        Path out = dir.resolve("out");
+
+        assertEquals(1, run(dir.resolve("scenes/a").toString(), dir.resolve("scenes/b").toString(),
+                "--out", out.toString(), "--spp", "1"));
+
+        assertFalse(Files.exists(out.resolve("x.png")));
+    }
+}
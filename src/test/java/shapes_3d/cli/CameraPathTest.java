@@ -0,0 +1,63 @@
+package shapes_3d.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ray_tracer.geometry.Vector;
+import ray_tracer.parsing.Camera;
+import shapes_3d.renderer.Cameras;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CameraPathTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void keyframesInterpolateTheRoll() throws IOException {
+        // looking down -Z: up +Y, then rolled a quarter turn to -X
+        Path file = Files.writeString(dir.resolve("keys.txt"), """
+                camera 0 0 10  0 0 0  0 1 0  60
+                camera 0 0 10  0 0 0  -1 0 0  60
+                """);
+        List<Camera> poses = CameraPath.keyframes(CameraPath.readKeyframes(file), 3);
+
+        Vector first = Cameras.up(poses.get(0));
+        assertEquals(1, first.getY(), 1e-9);
+        Vector middle = Cameras.up(poses.get(1));
+        assertEquals(-Math.sqrt(0.5), middle.getX(), 1e-9);
+        assertEquals(Math.sqrt(0.5), middle.getY(), 1e-9);
+        Vector last = Cameras.up(poses.get(2));
+        assertEquals(-1, last.getX(), 1e-9);
+        assertEquals(0, last.getY(), 1e-9);
+    }
+
+    @Test
+    void turntableKeepsTheRollOfTheSceneCamera() {
+        Camera rolled = new Camera(0, 0, 10, 0, 0, 0, 1, 0, 0, 60);
+        for (Camera pose : CameraPath.turntable(rolled, 4, 360, 0, 1)) {
+            // rolled a quarter turn: up stays horizontal, across the view direction
+            assertEquals(0, Cameras.up(pose).getY(), 1e-9);
+        }
+        Camera half = CameraPath.turntable(rolled, 4, 360, 0, 1).get(2);
+        assertEquals(-10, half.getLookFrom().getZ(), 1e-9);
+        assertEquals(-1, Cameras.up(half).getX(), 1e-9);
+    }
+
+    @Test
+    void degenerateKeyframesAreRejected() throws IOException {
+        Path sameEye = Files.writeString(dir.resolve("eye.txt"), "1 2 3  1 2 3  0 1 0  60\n");
+        IOException e = assertThrows(IOException.class, () -> CameraPath.readKeyframes(sameEye));
+        assertTrue(e.getMessage().contains(":1 "), e.getMessage());
+
+        Path upAlongView = Files.writeString(dir.resolve("up.txt"), "0 0 10  0 0 0  0 0 1  60\n");
+        assertThrows(IOException.class, () -> CameraPath.readKeyframes(upAlongView));
+    }
+}
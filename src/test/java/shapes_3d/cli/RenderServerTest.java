@@ -0,0 +1,145 @@
+package shapes_3d.cli;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.TestScenes;
+import shapes_3d.renderer.RenderService;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderServerTest {
+
+    // renders long enough to hold a slot while the test looks at the others
+    private static final String SLOW = "width=640&height=480&spp=64";
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final List<CompletableFuture<?>> pending = new ArrayList<>();
+    private RenderService service;
+    private RenderServer server;
+
+    @AfterEach
+    void tearDown() {
+        for (CompletableFuture<?> f : pending) f.cancel(true);
+        if (server != null) server.stop(0);
+        if (service != null) service.shutdown();
+    }
+
+    /** Serveur sur un port libre de localhost : un rendu à la fois, une requête en attente. */
+    private void start(long timeoutMillis) throws Exception {
+        RenderOptions opts = new RenderOptions();
+        opts.samplesPerPixel = 1;
+        opts.maxDepth = 2;
+        opts.tileSize = 16;
+        opts.threadCount = 1;
+        opts.lowResFactor = 1.0;
+        opts.progressive = false;
+        service = new RenderService(1);
+        server = new RenderServer(new InetSocketAddress("127.0.0.1", 0), service, 1, 1, timeoutMillis, opts, 6,
+                4096, 4096 * 4096);
+        server.start();
+    }
+
+    private HttpRequest request(String path, String body) {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpRequest.Builder b = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60));
+        return body == null ? b.GET().build() : b.POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8)).build();
+    }
+
+    private HttpResponse<byte[]> post(String query, String scene) throws Exception {
+        return client.send(request("/render?" + query, scene), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> postAsync(String query, String scene) {
+        CompletableFuture<HttpResponse<byte[]>> f = client.sendAsync(request("/render?" + query, scene),
+                HttpResponse.BodyHandlers.ofByteArray());
+        pending.add(f);
+        return f;
+    }
+
+    private String health() throws Exception {
+        return client.send(request("/health", null), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    private static String text(HttpResponse<byte[]> response) {
+        return new String(response.body(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void validSceneIsRenderedAsPng() throws Exception {
+        start(60_000);
+        HttpResponse<byte[]> response = post("width=48&height=32&pngLevel=1", TestScenes.text("spheres"));
+        assertEquals(200, response.statusCode(), text(response));
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(response.body()));
+        assertNotNull(img, "PNG illisible");
+        assertEquals(48, img.getWidth());
+        assertEquals(32, img.getHeight());
+        assertTrue(health().contains("\"completed\":1"), health());
+    }
+
+    @Test
+    void badSceneOrOverridesAreRejected() throws Exception {
+        start(60_000);
+        String scene = TestScenes.text("spheres");
+        assertEquals(400, post("", scene.replace("size 640 480", "size abc 480")).statusCode());
+        for (String query : new String[] {"width=abc", "width=0", "spp=0", "camera=1,2,3",
+                "camera=0,2,8,0,0.5,0,0,1,0,x", "width=5000&height=5000"}) {
+            HttpResponse<byte[]> response = post(query, scene);
+            assertEquals(400, response.statusCode(), query + " : " + text(response));
+        }
+    }
+
+    @Test
+    void oversizedBodyIsRejected() throws Exception {
+        start(60_000);
+        String scene = TestScenes.text("spheres") + "#".repeat(8192);
+        assertEquals(413, post("", scene).statusCode());
+    }
+
+    @Test
+    void requestsBeyondConcurrencyAndQueueAreRefused() throws Exception {
+        start(5_000);
+        String scene = TestScenes.text("spheres");
+        postAsync(SLOW, scene);
+        postAsync(SLOW, scene);
+        // one running, one waiting: the next request has nowhere to go
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!health().contains("\"running\":1,\"queued\":1")) {
+            assertTrue(System.nanoTime() < deadline, health());
+            Thread.sleep(10);
+        }
+        HttpResponse<byte[]> refused = post("width=8&height=8", scene);
+        assertEquals(429, refused.statusCode());
+        assertTrue(refused.headers().firstValue("Retry-After").isPresent());
+        assertTrue(health().contains("\"rejected\":1"), health());
+    }
+
+    @Test
+    void renderPastTheTimeoutIsCancelled() throws Exception {
+        start(300);
+        String scene = TestScenes.text("spheres");
+        HttpResponse<byte[]> response = post(SLOW, scene);
+        assertEquals(504, response.statusCode(), text(response));
+        assertTrue(health().contains("\"timedOut\":1"), health());
+
+        // the cancelled render gave its slot back
+        assertEquals(200, post("width=8&height=8", scene).statusCode());
+    }
+}
@@ -0,0 +1,289 @@
+package shapes_3d.distributed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.RenderOptions;
+import shapes_3d.TestScenes;
+import shapes_3d.renderer.RenderPriority;
+import shapes_3d.renderer.RenderService;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoordinatorTest {
+
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 64;
+
+    @TempDir
+    Path dir;
+
+    private final List<AutoCloseable> running = new ArrayList<>();
+    private final ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (AutoCloseable c : running) c.close();
+    }
+
+    /**
+     * Worker minimal qui parle le protocole sans rendre : il répond une image
+     * unie à chaque unité (couleurs prises tour à tour), ou meurt au milieu de
+     * la première.
+     */
+    private static final class ScriptedWorker implements AutoCloseable {
+
+        private final ServerSocket server = new ServerSocket(0, 4, InetAddress.getLoopbackAddress());
+        private final boolean dies;
+        private final int[] colours;
+        final List<Integer> samples = new CopyOnWriteArrayList<>();
+        final CountDownLatch rendering = new CountDownLatch(1);
+
+        ScriptedWorker(boolean dies, int... colours) throws IOException {
+            this.dies = dies;
+            this.colours = colours;
+            Thread t = new Thread(this::serve, "scripted-" + server.getLocalPort());
+            t.setDaemon(true);
+            t.start();
+        }
+
+        InetSocketAddress address() {
+            return new InetSocketAddress(server.getInetAddress(), server.getLocalPort());
+        }
+
+        private void serve() {
+            try (Socket socket = server.accept();
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+                in.readInt();
+                in.readInt();
+                out.writeInt(Protocol.MAGIC);
+                out.writeInt(Protocol.VERSION);
+                out.writeInt(1);
+                out.flush();
+                while (true) {
+                    byte op = in.readByte();
+                    if (op == Protocol.SCENE) {
+                        in.readUTF();
+                        Protocol.readText(in, 1 << 20);
+                    } else if (op == Protocol.RENDER) {
+                        int id = in.readInt();
+                        in.readUTF();
+                        int w = in.readInt();
+                        int h = in.readInt();
+                        samples.add(in.readInt());
+                        in.readInt();
+                        in.readInt();
+                        rendering.countDown();
+                        if (dies) {
+                            // a sign of life, then the process is gone
+                            out.writeByte(Protocol.HEARTBEAT);
+                            out.flush();
+                            return;
+                        }
+                        int[] argb = new int[w * h];
+                        Arrays.fill(argb, colours[(samples.size() - 1) % colours.length]);
+                        out.writeByte(Protocol.RESULT);
+                        out.writeInt(id);
+                        out.writeInt(w);
+                        out.writeInt(h);
+                        Protocol.writePixels(out, argb);
+                        out.flush();
+                    } else {
+                        return;
+                    }
+                }
+            } catch (IOException ignored) {
+                // closed by the test
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+
+    private ScriptedWorker scripted(boolean dies, int... colours) throws IOException {
+        ScriptedWorker w = new ScriptedWorker(dies, colours);
+        running.add(w);
+        return w;
+    }
+
+    private Coordinator coordinator(int spp, int slices, List<InetSocketAddress> workers) throws Exception {
+        return new Coordinator(TestScenes.text("spheres"), WIDTH, HEIGHT, spp, 2, 16, slices, workers,
+                0, 0, new PrintStream(log, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return log.toString(StandardCharsets.UTF_8);
+    }
+
+    private static BufferedImage renderLocally(RenderService service, Scene scene, int spp) throws Exception {
+        RenderOptions o = new RenderOptions();
+        o.samplesPerPixel = spp;
+        o.maxDepth = 2;
+        o.tileSize = 16;
+        o.threadCount = 1;
+        o.lowResFactor = 1.0;
+        o.progressive = false;
+        return service.submit(scene, scene.getCamera(), WIDTH, HEIGHT, o, RenderPriority.BATCH, null)
+                .get(60, TimeUnit.SECONDS);
+    }
+
+    /** Écart moyen par canal entre deux images. */
+    private static double distance(BufferedImage a, BufferedImage b) {
+        long sum = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift <= 16; shift += 8) {
+                    sum += Math.abs(((p >> shift) & 0xFF) - ((q >> shift) & 0xFF));
+                }
+            }
+        }
+        return sum / (3.0 * a.getWidth() * a.getHeight());
+    }
+
+    private static BufferedImage mean(List<BufferedImage> images) {
+        BufferedImage out = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        int n = images.size();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int r = 0, g = 0, b = 0;
+                for (BufferedImage img : images) {
+                    int p = img.getRGB(x, y);
+                    r += (p >> 16) & 0xFF;
+                    g += (p >> 8) & 0xFF;
+                    b += p & 0xFF;
+                }
+                out.setRGB(x, y, (r + n / 2) / n << 16 | (g + n / 2) / n << 8 | (b + n / 2) / n);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    void sampleSlicesAreIndependent() throws Exception {
+        // what the coordinator relies on: two renders of the same view draw different samples,
+        // so the mean of four 1-spp slices lands closer to a 4-spp render than any single slice
+        Scene scene = TestScenes.load(dir, "spheres");
+        RenderService service = new RenderService(1);
+        try {
+            List<BufferedImage> slices = new ArrayList<>();
+            for (int i = 0; i < 4; i++) slices.add(renderLocally(service, scene, 1));
+            BufferedImage reference = renderLocally(service, scene, 4);
+
+            assertTrue(distance(slices.get(0), slices.get(1)) > 0, "deux rendus identiques");
+            double single = distance(slices.get(0), reference);
+            double averaged = distance(mean(slices), reference);
+            assertTrue(averaged < single * 0.9, "moyenne " + averaged + " contre une tranche " + single);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void unitOfAWorkerLostMidRenderIsReissued() throws Exception {
+        ScriptedWorker victim = scripted(true, 0);
+        RenderWorker worker = new RenderWorker("127.0.0.1", 0, 1);
+        running.add(worker::close);
+        Coordinator coordinator = coordinator(8, 8, List.of(victim.address(),
+                new InetSocketAddress("127.0.0.1", worker.getPort())));
+
+        // the real worker only accepts once the victim holds a unit
+        Thread serving = new Thread(() -> {
+            try {
+                victim.rendering.await();
+                worker.serve();
+            } catch (InterruptedException ignored) {
+            }
+        }, "worker");
+        serving.setDaemon(true);
+        serving.start();
+
+        BufferedImage img = coordinator.render();
+        assertEquals(WIDTH, img.getWidth());
+        assertEquals(HEIGHT, img.getHeight());
+        assertEquals(List.of(1), victim.samples);
+
+        String out = output();
+        assertTrue(out.contains("perdu") && out.contains("réémise"), out);
+        for (int id = 0; id < 8; id++) assertTrue(out.contains("OK     unité " + id + " "), out);
+        assertFalse(out.contains("ATTENTION"), out);
+
+        // the surviving worker's slices average like a local render at the full spp
+        Scene scene = TestScenes.load(dir, "spheres");
+        RenderService service = new RenderService(1);
+        try {
+            BufferedImage reference = renderLocally(service, scene, 8);
+            double single = distance(renderLocally(service, scene, 1), reference);
+            assertTrue(distance(img, reference) < single, "rendu réparti plus loin de la référence qu'une tranche");
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void identicalSlicesAreReported() throws Exception {
+        ScriptedWorker a = scripted(false, 0x336699);
+        ScriptedWorker b = scripted(false, 0x336699);
+        BufferedImage img = coordinator(4, 4, List.of(a.address(), b.address())).render();
+
+        assertEquals(0x336699, img.getRGB(5, 5) & 0xFFFFFF);
+        // stragglers may be rendered twice
+        assertTrue(a.samples.size() + b.samples.size() >= 4);
+        assertTrue(output().contains("ATTENTION"), output());
+    }
+
+    @Test
+    void slicesAreAveragedInLinearLight() throws Exception {
+        // one black and one white 1-spp slice: half the light, not the 8-bit midpoint 0x80
+        ScriptedWorker a = scripted(false, 0x000000, 0xFFFFFF);
+        BufferedImage img = coordinator(2, 2, List.of(a.address())).render();
+
+        assertEquals(List.of(1, 1), a.samples);
+        assertEquals(0xBCBCBC, img.getRGB(5, 5) & 0xFFFFFF);
+        assertEquals(188, Coordinator.toSrgb(0.5f));
+    }
+
+    @Test
+    void singleSampleIsOneUnit() throws Exception {
+        ScriptedWorker a = scripted(false, 0x808080);
+        ScriptedWorker b = scripted(false, 0x808080);
+        coordinator(1, 8, List.of(a.address(), b.address())).render();
+
+        List<Integer> asked = new ArrayList<>(a.samples);
+        asked.addAll(b.samples);
+        assertFalse(asked.isEmpty());
+        assertTrue(asked.stream().allMatch(s -> s == 1), asked.toString());
+        assertEquals(1, output().split("OK     unité", -1).length - 1, output());
+        assertTrue(output().contains("1 unité(s) pour 2 worker(s)"), output());
+        assertFalse(output().contains("ATTENTION"), output());
+    }
+}
@@ -0,0 +1,142 @@
+package shapes_3d.parsing;
+
+import org.junit.jupiter.api.Test;
+import shapes_3d.TestScenes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SceneEditTest {
+
+    private static final String CAMERA = "camera 0 2 8 0 0.5 0 0 1 0 45";
+
+    private static String scene() throws Exception {
+        return TestScenes.text("spheres");
+    }
+
+    @Test
+    void identicalTextIsUnchanged() throws Exception {
+        SceneEdit edit = SceneEdit.between(scene(), scene());
+        assertFalse(edit.isChanged());
+        assertFalse(edit.isStructural());
+    }
+
+    @Test
+    void unknownAppliedTextIsStructural() throws Exception {
+        assertTrue(SceneEdit.between(null, scene()).isStructural());
+    }
+
+    @Test
+    void cameraEditIsReadWithoutParsing() throws Exception {
+        String text = scene();
+        SceneEdit edit = SceneEdit.between(text, text.replace(CAMERA, "camera 0 2 8 0 0.5 0 0 1 0 60"));
+        assertTrue(edit.isChanged());
+        assertFalse(edit.isStructural());
+        assertEquals(60, edit.getCamera().getFov());
+        assertFalse(edit.hasSize());
+    }
+
+    @Test
+    void sizeEditIsReadWithoutParsing() throws Exception {
+        String text = scene();
+        SceneEdit edit = SceneEdit.between(text, text.replace("size 640 480", "size 1280 720"));
+        assertFalse(edit.isStructural());
+        assertNull(edit.getCamera());
+        assertTrue(edit.hasSize());
+        assertEquals(1280, edit.getWidth());
+        assertEquals(720, edit.getHeight());
+    }
+
+    @Test
+    void crlfLineEndingsAreHandled() throws Exception {
+        String text = scene().replace("\n", "\r\n");
+        SceneEdit edit = SceneEdit.between(text, text.replace(CAMERA, "camera 0 2 9 0 0.5 0 0 1 0 50"));
+        assertFalse(edit.isStructural());
+        assertEquals(50, edit.getCamera().getFov());
+
+        SceneEdit geometry = SceneEdit.between(text, text.replace("sphere 0 1 0 1", "sphere 0 1 0 2"));
+        assertTrue(geometry.isStructural());
+    }
+
+    @Test
+    void editOnTheLastLineWithoutTrailingNewline() throws Exception {
+        String text = scene().strip() + "\n" + CAMERA.replace("camera", "# camera");
+        assertFalse(text.endsWith("\n"));
+
+        SceneEdit comment = SceneEdit.between(text, text.replace("# camera", "# old camera"));
+        assertTrue(comment.isChanged());
+        assertFalse(comment.isStructural());
+
+        String base = scene().replace(CAMERA + "\n", "").strip() + "\n" + CAMERA;
+        SceneEdit edit = SceneEdit.between(base, base.replace(" 45", " 70"));
+        assertFalse(edit.isStructural());
+        assertEquals(70, edit.getCamera().getFov());
+
+        SceneEdit geometry = SceneEdit.between(text, text + "\nsphere 0 0 0 1");
+        assertTrue(geometry.isStructural());
+    }
+
+    @Test
+    void duplicateDirectivesAreLeftToTheParser() throws Exception {
+        String text = scene();
+        String twoCameras = text.replace(CAMERA, CAMERA + "\ncamera 0 2 8 0 0.5 0 0 1 0 45");
+        assertTrue(SceneEdit.between(text, twoCameras).isStructural());
+        assertTrue(SceneEdit.between(twoCameras, twoCameras.replace(" 45\n", " 60\n")).isStructural());
+
+        String twoSizes = text.replace("size 640 480", "size 640 480\nsize 320 240");
+        assertTrue(SceneEdit.between(text, twoSizes).isStructural());
+    }
+
+    @Test
+    void removedDirectiveIsStructural() throws Exception {
+        String text = scene();
+        assertTrue(SceneEdit.between(text, text.replace(CAMERA + "\n", "")).isStructural());
+        assertTrue(SceneEdit.between(text, text.replace("size 640 480\n", "")).isStructural());
+    }
+
+    @Test
+    void commentOnlyEditIsNotStructural() throws Exception {
+        String text = scene();
+        SceneEdit edit = SceneEdit.between(text, text.replace("# Scène de benchmark", "# Autre titre"));
+        assertTrue(edit.isChanged());
+        assertFalse(edit.isStructural());
+        assertNull(edit.getCamera());
+        assertFalse(edit.hasSize());
+
+        assertFalse(SceneEdit.between(text, text.replace("\n\nambient", "\n# lumières\n\nambient")).isStructural());
+    }
+
+    @Test
+    void distantEditsAreComparedAsOneBlock() throws Exception {
+        // the unchanged geometry between two edits is part of the compared block
+        String text = scene();
+        assertTrue(SceneEdit.between(text, text.replace("# Scène de benchmark", "# Autre titre") + "# fin\n")
+                .isStructural());
+    }
+
+    @Test
+    void geometryEditIsStructural() throws Exception {
+        String text = scene();
+        assertTrue(SceneEdit.between(text, text.replace("sphere 0 1 0 1", "sphere 0 1 0 1.5")).isStructural());
+        assertTrue(SceneEdit.between(text, text.replace("shininess 50", "shininess 60")).isStructural());
+        // a camera edit mixed with geometry still needs the parser
+        assertTrue(SceneEdit.between(text, text.replace(CAMERA, "camera 0 2 8 0 0.5 0 0 1 0 60")
+                .replace("sphere 0 1 0 1", "sphere 0 1 0 2")).isStructural());
+    }
+
+    @Test
+    void outputEditIsStructural() throws Exception {
+        String text = scene();
+        assertTrue(SceneEdit.between(text, text.replace("output spheres.png", "output other.png")).isStructural());
+    }
+
+    @Test
+    void malformedViewDirectiveIsLeftToTheParser() throws Exception {
+        String text = scene();
+        assertTrue(SceneEdit.between(text, text.replace(CAMERA, "camera 0 2 8")).isStructural());
+        assertTrue(SceneEdit.between(text, text.replace("size 640 480", "size 640.5 480")).isStructural());
+        assertTrue(SceneEdit.between(text, text.replace("size 640 480", "size abc 480")).isStructural());
+    }
+}
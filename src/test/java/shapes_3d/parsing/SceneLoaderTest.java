@@ -0,0 +1,49 @@
+package shapes_3d.parsing;
+
+import org.junit.jupiter.api.Test;
+import ray_tracer.parsing.Camera;
+import shapes_3d.TestScenes;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SceneLoaderTest {
+
+    @Test
+    void readerAndTextShareTheCache() throws Exception {
+        SceneLoader loader = new SceneLoader(4);
+        String text = TestScenes.text("spheres");
+        ParsedScene fromReader = loader.parseReader(new StringReader(text));
+        assertFalse(fromReader.isFromCache());
+        assertEquals(SceneLoader.hash(text), fromReader.getContentHash());
+
+        ParsedScene fromText = loader.parseText(text);
+        assertTrue(fromText.isFromCache());
+        assertSame(fromReader.getScene(), fromText.getScene());
+        assertEquals(1, loader.getHits());
+    }
+
+    @Test
+    void cacheHitLeavesTheSharedSceneAlone() throws Exception {
+        SceneLoader loader = new SceneLoader(4);
+        String text = TestScenes.text("spheres");
+        ParsedScene first = loader.parseText(text);
+        Camera original = first.getCamera();
+        assertNotNull(original);
+        assertSame(original, first.getScene().getCamera());
+
+        // the GUI moves the camera of the scene on screen
+        Camera moved = new Camera(1, 2, 3, 0, 0, 0, 0, 1, 0, 60);
+        first.getScene().setCamera(moved);
+
+        ParsedScene again = loader.parseText(text);
+        assertTrue(again.isFromCache());
+        assertSame(moved, again.getScene().getCamera());
+        assertSame(original, again.getCamera());
+    }
+}
@@ -0,0 +1,149 @@
+package shapes_3d.parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ray_tracer.parsing.SceneFileParser;
+import shapes_3d.TestScenes;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SceneParseServiceTest {
+
+    private static final int VARIANTS = 24;
+    private static final int THREADS = 8;
+
+    @TempDir
+    Path dir;
+
+    // same variants as SceneParseBenchmark: shifted line numbers, extra lights, a bad directive
+    private static String variant(String base, int i) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < i; k++) sb.append("# variante ").append(i).append('\n');
+        sb.append(base).append('\n');
+        for (int k = 0; k < i % 4; k++) sb.append("point ").append(k).append(" 6 3 0.5 0.5 0.5\n");
+        if (i % 5 == 0) sb.append("directive_inconnue_").append(i).append(' ').append(i).append('\n');
+        return sb.toString();
+    }
+
+    private List<Path> variants() throws Exception {
+        String base = TestScenes.text("spheres");
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < VARIANTS; i++) files.add(TestScenes.write(dir, "v" + i, variant(base, i)));
+        return files;
+    }
+
+    /** Warnings de chaque variante analysée seule, l'une après l'autre. */
+    private static List<List<String>> reference(List<Path> files) throws Exception {
+        List<List<String>> expected = new ArrayList<>();
+        for (Path f : files) expected.add(SceneLoader.parseFileUncached(f).getWarnings());
+        return expected;
+    }
+
+    private static void assertSameDiagnostics(List<List<String>> expected, int i, ParsedScene got) {
+        assertEquals(expected.get(i), got.getWarnings(), "variante " + i);
+        assertNotNull(got.getScene());
+        assertEquals(SceneLoader.isIsolatedParsing(), got.getDiagnostics().isIsolated());
+    }
+
+    @Test
+    void concurrentParsesKeepTheirOwnWarnings() throws Exception {
+        List<Path> files = variants();
+        List<List<String>> expected = reference(files);
+        // the variants must actually differ, or a leak would go unnoticed
+        assertTrue(expected.stream().distinct().count() > VARIANTS / 2, expected.toString());
+        List<?> appWarnings = SceneFileParser.getWarnings();
+        List<String> appWarningsBefore = appWarnings == null ? null : List.copyOf(toStrings(appWarnings));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> runs = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t;
+                runs.add(pool.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < 4; round++) {
+                        for (int k = 0; k < VARIANTS; k++) {
+                            int i = (k + offset * 5) % VARIANTS;
+                            assertSameDiagnostics(expected, i, SceneLoader.parseFileUncached(files.get(i)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> r : runs) r.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (SceneLoader.isIsolatedParsing()) {
+            // isolated copies of the parser never touch the application's one
+            assertSame(appWarnings, SceneFileParser.getWarnings());
+            if (appWarnings != null) assertEquals(appWarningsBefore, toStrings(appWarnings));
+        }
+    }
+
+    @Test
+    void serviceResultsMatchSequentialParses() throws Exception {
+        List<Path> files = variants();
+        List<List<String>> expected = reference(files);
+        try (SceneParseService service = new SceneParseService(THREADS)) {
+            for (int round = 0; round < 3; round++) {
+                List<CompletableFuture<ParsedScene>> futures = service.submitAll(files);
+                for (int i = 0; i < futures.size(); i++) {
+                    assertSameDiagnostics(expected, i, futures.get(i).get(60, TimeUnit.SECONDS));
+                }
+            }
+        }
+    }
+
+    @Test
+    void failureCarriesItsOwnDiagnostics() throws Exception {
+        List<Path> files = variants();
+        Path missing = dir.resolve("absente.scene");
+        try (SceneParseService service = new SceneParseService(THREADS)) {
+            CompletableFuture<ParsedScene> failed = service.submit(missing);
+            List<CompletableFuture<ParsedScene>> others = service.submitAll(files);
+            CompletionException e = assertThrows(CompletionException.class, failed::join);
+            SceneParseException spe = assertInstanceOf(SceneParseException.class, e.getCause());
+            assertTrue(spe.getDiagnostics().hasError());
+            assertTrue(spe.getDiagnostics().getWarnings().isEmpty(), spe.getDiagnostics().getWarnings().toString());
+            for (CompletableFuture<ParsedScene> f : others) {
+                assertFalse(f.get(60, TimeUnit.SECONDS).getDiagnostics().hasError());
+            }
+        }
+    }
+
+    @Test
+    void isolatedParsingIsActive() throws Exception {
+        SceneLoader.parseFileUncached(variants().get(1));
+        // -Dshapes3d.parserLock=true turns isolation off on purpose
+        if (!Boolean.getBoolean("shapes3d.parserLock")) {
+            assertTrue(SceneLoader.isIsolatedParsing(), "SceneFileParser cannot be isolated: parses are serialized");
+        }
+    }
+
+    private static List<String> toStrings(List<?> list) {
+        List<String> out = new ArrayList<>();
+        for (Object o : list) out.add(String.valueOf(o));
+        return out;
+    }
+}
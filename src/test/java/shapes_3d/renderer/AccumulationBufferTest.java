@@ -0,0 +1,77 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class AccumulationBufferTest {
+
+    private static BufferedImage filled(int w, int h, int rgb) {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) img.setRGB(x, y, rgb);
+        }
+        return img;
+    }
+
+    private static void assertFilled(BufferedImage img, int w, int h, int rgb) {
+        assertEquals(w, img.getWidth());
+        assertEquals(h, img.getHeight());
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) assertEquals(rgb, img.getRGB(x, y) & 0xFFFFFF, "pixel " + x + "," + y);
+        }
+    }
+
+    @Test
+    void resolveWeightsPassesBySamplesIntoTheSameImage() {
+        AccumulationBuffer buffer = new AccumulationBuffer(40, 30);
+        buffer.add(filled(40, 30, 0x000000), 1);
+        BufferedImage first = buffer.resolve();
+        assertFilled(first, 40, 30, 0x000000);
+
+        // 1 sample at 0 then 3 samples at 200: mean 150
+        buffer.add(filled(40, 30, 0xC8C8C8), 3);
+        BufferedImage second = buffer.resolve();
+        assertSame(first, second);
+        assertFilled(second, 40, 30, 0x969696);
+        assertEquals(4, buffer.getSamples());
+
+        // a reset forgets the previous camera
+        buffer.reset();
+        buffer.add(filled(40, 30, 0x102030), 2);
+        assertFilled(buffer.resolve(), 40, 30, 0x102030);
+    }
+
+    @Test
+    void blendMixesTileWithMeanWithoutTouchingIt() {
+        AccumulationBuffer buffer = new AccumulationBuffer(50, 40);
+        BufferedImage tile = filled(32, 32, 0xC8C8C8);
+        assertSame(tile, buffer.blend(tile, 0, 0, 1));
+
+        buffer.add(filled(50, 40, 0x000000), 1);
+        assertFilled(buffer.blend(tile, 0, 0, 3), 32, 32, 0x969696);
+        // an edge tile is clipped to the image
+        assertFilled(buffer.blend(tile, 32, 32, 1), 18, 8, 0x646464);
+        assertFilled(buffer.resolve(), 50, 40, 0x000000);
+    }
+
+    @Test
+    void blendedTilesAreReusedPerThread() throws Exception {
+        AccumulationBuffer buffer = new AccumulationBuffer(64, 64);
+        buffer.add(filled(64, 64, 0x000000), 1);
+        BufferedImage tile = filled(32, 32, 0xC8C8C8);
+
+        BufferedImage first = buffer.blend(tile, 0, 0, 1);
+        BufferedImage second = buffer.blend(tile, 32, 32, 1);
+        assertSame(first, second);
+
+        BufferedImage other = CompletableFuture.supplyAsync(() -> buffer.blend(tile, 0, 32, 1)).get();
+        assertNotSame(first, other);
+        assertFilled(other, 32, 32, 0x646464);
+    }
+}
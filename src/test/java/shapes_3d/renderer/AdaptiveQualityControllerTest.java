@@ -0,0 +1,130 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+import ray_tracer.renderer.RenderOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveQualityControllerTest {
+
+    private static final long TARGET_MILLIS = 100;
+    private static final long SLOW = 1_000_000_000L;
+    private static final long FAST = 1_000_000L;
+
+    private final AdaptiveQualityController controller = new AdaptiveQualityController(TARGET_MILLIS, 4);
+
+    /** Un aperçu : réglages appliqués à une profondeur configurée, puis durée simulée. */
+    private RenderOptions pass(int configuredDepth, long elapsedNanos) {
+        RenderOptions opts = new RenderOptions();
+        opts.maxDepth = configuredDepth;
+        controller.applyTo(opts, 640, 480);
+        controller.record(elapsedNanos, true);
+        return opts;
+    }
+
+    private String state() {
+        return controller.getScale() + "/" + controller.getSamplesPerPixel() + "/" + controller.getDepthReduction();
+    }
+
+    /** Paramètre modifié entre deux états, dans le sens demandé, ou null. */
+    private static String step(double scale, int spp, int depth, AdaptiveQualityController c, boolean up) {
+        int sign = up ? 1 : -1;
+        if (Math.signum(c.getScale() - scale) == sign) return "scale";
+        if (Integer.signum(c.getSamplesPerPixel() - spp) == sign) return "spp";
+        if (Integer.signum(depth - c.getDepthReduction()) == sign) return "depth";
+        return null;
+    }
+
+    /** Parcourt jusqu'à stabilité et renvoie l'ordre des paramètres modifiés, sans répétition. */
+    private List<String> run(int configuredDepth, long elapsedNanos, boolean up) {
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            double scale = controller.getScale();
+            int spp = controller.getSamplesPerPixel();
+            int depth = controller.getDepthReduction();
+            pass(configuredDepth, elapsedNanos);
+            String s = step(scale, spp, depth, controller, up);
+            if (s != null && (order.isEmpty() || !order.get(order.size() - 1).equals(s))) order.add(s);
+        }
+        return order;
+    }
+
+    @Test
+    void slowPassesNeverGoBelowTheMinimumOrTheConfiguredDepth() {
+        for (int i = 0; i < 100; i++) pass(5, SLOW);
+
+        assertEquals(0.1, controller.getScale(), 1e-9);
+        assertEquals(1, controller.getSamplesPerPixel());
+        assertEquals(3, controller.getDepthReduction());
+        assertEquals(2, pass(5, SLOW).maxDepth);
+
+        // a shallower scene can only lose what it has
+        RenderOptions opts = pass(3, SLOW);
+        assertEquals(1, controller.getDepthReduction());
+        assertEquals(2, opts.maxDepth);
+        assertEquals(1, pass(1, SLOW).maxDepth);
+        assertEquals(0, controller.getDepthReduction());
+    }
+
+    @Test
+    void depthReductionsBeyondTheConfiguredDepthAreNotCounted() {
+        for (int i = 0; i < 100; i++) pass(3, SLOW);
+        assertEquals(1, controller.getDepthReduction());
+
+        // the first step up gives the depth back, with nothing left to undo
+        while (controller.getDepthReduction() > 0) {
+            assertEquals(0.1, controller.getScale(), 1e-9);
+            pass(3, FAST);
+        }
+        assertEquals(0.1, controller.getScale(), 1e-9);
+        pass(3, FAST);
+        assertTrue(controller.getScale() > 0.1, state());
+    }
+
+    @Test
+    void qualityComesBackInTheReverseOrderItWasDropped() {
+        assertEquals(List.of("scale", "spp"), run(6, FAST, true));
+        assertEquals(1.0, controller.getScale(), 1e-9);
+        assertEquals(4, controller.getSamplesPerPixel());
+
+        assertEquals(List.of("scale", "spp", "depth"), run(6, SLOW, false));
+        assertEquals(4, controller.getDepthReduction());
+
+        assertEquals(List.of("depth", "spp", "scale"), run(6, FAST, true), state());
+        assertEquals(1.0, controller.getScale(), 1e-9);
+        assertEquals(4, controller.getSamplesPerPixel());
+        assertEquals(0, controller.getDepthReduction());
+    }
+
+    @Test
+    void passesReplacedBeforeTheTargetStillCountAsTooSlow() {
+        RenderOptions opts = new RenderOptions();
+        opts.maxDepth = 5;
+        controller.applyTo(opts, 640, 480);
+
+        controller.record(FAST, false);
+        assertTrue(controller.getScale() < 0.4, state());
+        assertEquals(TARGET_MILLIS, controller.getLastLatencyMillis(), 1e-9);
+
+        // even after a run of fast completed previews
+        for (int i = 0; i < 3; i++) pass(5, FAST);
+        double scale = controller.getScale();
+        controller.record(FAST, false);
+        assertTrue(controller.getScale() < scale, state());
+    }
+
+    @Test
+    void cancelledPassesLongerThanTheTargetAreRecordedAsMeasured() {
+        RenderOptions opts = new RenderOptions();
+        opts.maxDepth = 5;
+        controller.applyTo(opts, 640, 480);
+
+        controller.record(SLOW, false);
+        assertTrue(controller.getScale() < 0.4, state());
+        assertEquals(SLOW / 1e6, controller.getLastLatencyMillis(), 1e-9);
+    }
+}
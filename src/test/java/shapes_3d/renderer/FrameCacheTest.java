@@ -0,0 +1,120 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+import ray_tracer.parsing.Camera;
+import ray_tracer.renderer.RenderOptions;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class FrameCacheTest {
+
+    private static final String SCENE = "0123abcd";
+    private static final Camera CAMERA = new Camera(0, 2, 8, 0, 0.5, 0, 0, 1, 0, 45);
+
+    private static RenderOptions options() {
+        RenderOptions o = new RenderOptions();
+        o.samplesPerPixel = 4;
+        o.maxDepth = 3;
+        o.tileSize = 32;
+        o.threadCount = 2;
+        o.lowResFactor = 1.0;
+        o.progressive = false;
+        return o;
+    }
+
+    private static RenderOptions options(Consumer<RenderOptions> change) {
+        RenderOptions o = options();
+        change.accept(o);
+        return o;
+    }
+
+    private static FrameCache.Key key(Camera cam, int width, int height, RenderOptions opts) {
+        return FrameCache.key(SCENE, cam, width, height, opts);
+    }
+
+    /** Image de 10x10 pixels : 400 octets pour le cache. */
+    private static BufferedImage image() {
+        return new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Test
+    void leastRecentlyUsedImagesLeaveFirstWithinTheByteBudget() {
+        FrameCache cache = new FrameCache(1000);
+        FrameCache.Key a = key(CAMERA, 10, 10, options(o -> o.samplesPerPixel = 1));
+        FrameCache.Key b = key(CAMERA, 10, 10, options(o -> o.samplesPerPixel = 2));
+        FrameCache.Key c = key(CAMERA, 10, 10, options(o -> o.samplesPerPixel = 3));
+        BufferedImage imgA = image();
+        cache.put(a, imgA);
+        cache.put(b, image());
+        assertEquals(800, cache.getBytes());
+
+        // a used last: b is the one to go when c needs room
+        assertSame(imgA, cache.get(a));
+        cache.put(c, image());
+        assertEquals(800, cache.getBytes());
+        assertSame(imgA, cache.get(a));
+        assertNull(cache.get(b));
+
+        // replacing an image does not count it twice
+        cache.put(c, image());
+        assertEquals(800, cache.getBytes());
+
+        // larger than the whole budget: not kept, nothing evicted
+        cache.put(b, new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB));
+        assertNull(cache.get(b));
+        assertEquals(800, cache.getBytes());
+
+        cache.clear();
+        assertEquals(0, cache.getBytes());
+        assertNull(cache.get(a));
+    }
+
+    @Test
+    void cameraDifferencesBelowTheQuantizationHit() {
+        FrameCache cache = new FrameCache(1 << 20);
+        BufferedImage img = image();
+        cache.put(key(CAMERA, 10, 10, options()), img);
+
+        Camera same = new Camera(1e-8, 2, 8 - 1e-8, 0, 0.5, 0, 0, 1, 0, 45 + 1e-8);
+        assertSame(img, cache.get(key(same, 10, 10, options())));
+        // threads and tiles do not change the image
+        assertSame(img, cache.get(key(CAMERA, 10, 10, options(o -> {
+            o.threadCount = 8;
+            o.tileSize = 64;
+        }))));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void anyParameterOfTheImageMisses() {
+        FrameCache cache = new FrameCache(1 << 20);
+        FrameCache.Key base = key(CAMERA, 10, 10, options());
+        cache.put(base, image());
+
+        FrameCache.Key[] others = {
+                key(CAMERA, 12, 10, options()),
+                key(CAMERA, 10, 12, options()),
+                key(CAMERA, 10, 10, options(o -> o.samplesPerPixel = 8)),
+                key(CAMERA, 10, 10, options(o -> o.maxDepth = 4)),
+                key(CAMERA, 10, 10, options(o -> o.progressive = true)),
+                key(CAMERA, 10, 10, options(o -> o.lowResFactor = 0.5)),
+                key(new Camera(0, 2, 8.001, 0, 0.5, 0, 0, 1, 0, 45), 10, 10, options()),
+                // same position, rolled
+                key(new Camera(0, 2, 8, 0, 0.5, 0, 1, 0, 0, 45), 10, 10, options()),
+                key(new Camera(0, 2, 8, 0, 0.5, 0, 0, 1, 0, 50), 10, 10, options()),
+                FrameCache.key("other", CAMERA, 10, 10, options()),
+        };
+        for (FrameCache.Key k : others) {
+            assertNotEquals(base, k);
+            assertNull(cache.get(k));
+        }
+        assertEquals(0, cache.getHits());
+        assertEquals(others.length, cache.getMisses());
+    }
+}
@@ -0,0 +1,79 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityWorkerPoolTest {
+
+    private final PriorityWorkerPool pool = new PriorityWorkerPool(1);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdown(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void aViewTerminatesOnlyOnceItsTasksHaveRun() throws Exception {
+        ExecutorService view = pool.view(RenderPriority.FINAL, null);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        view.execute(() -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // queued behind the first one on the single thread
+        view.execute(() -> { });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        view.shutdown();
+        assertTrue(view.isShutdown());
+        assertFalse(view.isTerminated());
+        assertFalse(view.awaitTermination(50, TimeUnit.MILLISECONDS));
+        assertThrows(RejectedExecutionException.class, () -> view.execute(() -> { }));
+
+        release.countDown();
+        assertTrue(view.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(view.isTerminated());
+    }
+
+    @Test
+    void anIdleViewTerminatesAsSoonAsItIsShutDown() throws Exception {
+        ExecutorService view = pool.view(RenderPriority.INTERACTIVE, null);
+        assertFalse(view.isTerminated());
+        view.shutdownNow();
+        assertTrue(view.isTerminated());
+        assertTrue(view.awaitTermination(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void tasksDroppedByThePoolShutdownDoNotHoldTheirView() throws Exception {
+        ExecutorService view = pool.view(RenderPriority.BATCH, null);
+        CountDownLatch running = new CountDownLatch(1);
+        view.execute(() -> {
+            running.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        view.execute(() -> { });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        pool.shutdown(2, TimeUnit.SECONDS);
+        assertTrue(view.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
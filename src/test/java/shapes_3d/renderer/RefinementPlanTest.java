@@ -0,0 +1,54 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RefinementPlanTest {
+
+    private static RefinementPlan plan(double previewScale) {
+        return new RefinementPlan(0, List.of(
+                new RefinementPlan.Pass(previewScale, 1),
+                new RefinementPlan.Pass(1.0, 2)));
+    }
+
+    @Test
+    void fullSizePassesAreCountedUpToTheMaximum() {
+        RefinementPlan plan = plan(1.0).withAccumulation(3, 12);
+        assertTrue(plan.isAccumulated(0));
+        assertEquals(1, plan.samplesThrough(0));
+        assertEquals(3, plan.samplesThrough(1));
+        // 3 listed samples, then passes of 3 until 12
+        assertEquals(5, plan.size());
+        assertEquals(12, plan.samplesThrough(plan.size() - 1));
+
+        RefinementPlan reduced = plan(0.4).withAccumulation(2, 12);
+        assertFalse(reduced.isAccumulated(0));
+        assertEquals(0, reduced.samplesThrough(0));
+        assertEquals(12, reduced.samplesThrough(reduced.size() - 1));
+    }
+
+    @Test
+    void tunedPreviewIsNeitherAccumulatedNorCounted() {
+        // the controller may render the preview at full size: its samples stay out of the mean
+        AdaptiveQualityController controller = new AdaptiveQualityController(100, 4);
+        RefinementPlan plan = plan(1.0).withAccumulation(2, 12).withPreviewController(controller);
+        assertFalse(plan.isAccumulated(0));
+        assertTrue(plan.isAccumulated(1));
+        assertEquals(0, plan.samplesThrough(0));
+        assertEquals(2, plan.samplesThrough(1));
+        assertEquals(12, plan.samplesThrough(plan.size() - 1));
+    }
+
+    @Test
+    void planWithoutAccumulationCountsEachPassAlone() {
+        RefinementPlan plan = plan(1.0);
+        assertFalse(plan.isAccumulated(1));
+        assertEquals(1, plan.samplesThrough(0));
+        assertEquals(2, plan.samplesThrough(1));
+    }
+}
@@ -0,0 +1,49 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+import ray_tracer.parsing.Camera;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionWindowTest {
+
+    @Test
+    void centredRegionGetsTheSmallestWindow() {
+        // 4:3 windows at least 40 px each way, with the parity of the frame
+        RegionWindow w = RegionWindow.enclosing(640, 480, 300, 220, 40, 40);
+        assertEquals(56, w.width);
+        assertEquals(42, w.height);
+        assertEquals(292, w.x);
+        assertEquals(219, w.y);
+        assertTrue(RegionWindow.enclosing(640, 480, 0, 0, 10, 10).isWholeFrame());
+        assertThrows(IllegalArgumentException.class, () -> RegionWindow.enclosing(640, 480, 630, 0, 20, 10));
+    }
+
+    @Test
+    void coprimeFrameSizesHaveNoSmallerWindow() {
+        // 801x601 and 641x480 share no factor: no smaller window keeps the exact aspect ratio
+        assertTrue(RegionWindow.enclosing(801, 601, 390, 290, 20, 20).isWholeFrame());
+        assertTrue(RegionWindow.enclosing(641, 480, 310, 230, 20, 20).isWholeFrame());
+        assertFalse(RegionWindow.enclosing(800, 600, 390, 290, 20, 20).isWholeFrame());
+    }
+
+    @Test
+    void windowCameraKeepsTheRollOfTheSceneCamera() {
+        // a camera rolled by 90 degrees: the window must be rendered with the same up vector
+        Camera base = new Camera(0, 2, 8, 0, 0.5, 0, 1, 0, 0, 60);
+        RegionWindow w = RegionWindow.enclosing(640, 480, 300, 220, 40, 40);
+        Camera cam = w.camera(base);
+
+        assertEquals(1, Cameras.up(cam).getX(), 1e-12);
+        assertEquals(0, Cameras.up(cam).getY(), 1e-12);
+        assertEquals(8, cam.getLookFrom().getZ(), 1e-12);
+        double expected = Math.toDegrees(2 * Math.atan(Math.tan(Math.toRadians(30)) * 42 / 480));
+        assertEquals(expected, cam.getFov(), 1e-9);
+
+        assertSame(base, RegionWindow.enclosing(640, 480, 0, 0, 640, 480).camera(base));
+    }
+}
@@ -0,0 +1,181 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ray_tracer.parsing.Scene;
+import ray_tracer.renderer.ProgressListener;
+import ray_tracer.renderer.RenderOptions;
+import ray_tracer.renderer.RenderUpdate;
+import shapes_3d.TestScenes;
+import shapes_3d.metrics.RenderMetrics;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RenderServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private RenderService service;
+    private RenderMetrics metrics;
+    private Scene scene;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        service = new RenderService(2);
+        metrics = new RenderMetrics();
+        service.setMetrics(metrics);
+        scene = TestScenes.load(dir, "spheres");
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static RenderOptions options(int spp) {
+        RenderOptions o = new RenderOptions();
+        o.samplesPerPixel = spp;
+        o.maxDepth = 2;
+        o.tileSize = 16;
+        o.threadCount = 2;
+        o.lowResFactor = 1.0;
+        o.progressive = false;
+        return o;
+    }
+
+    @Test
+    void submitCompletesWithTheFullImage() throws Exception {
+        AtomicInteger tiles = new AtomicInteger();
+        CompletableFuture<BufferedImage> job = service.submit(scene, scene.getCamera(), 48, 32, options(1),
+                RenderPriority.FINAL, new ProgressListener() {
+                    @Override
+                    public void onUpdate(RenderUpdate update) {
+                        tiles.incrementAndGet();
+                    }
+                });
+        BufferedImage img = job.get(30, TimeUnit.SECONDS);
+        assertEquals(48, img.getWidth());
+        assertEquals(32, img.getHeight());
+        assertTrue(tiles.get() > 0, "aucune tuile livrée");
+        assertEquals(1, metrics.getJobsCompleted());
+    }
+
+    @Test
+    void cancelStopsTheJobAndLeavesTheServiceUsable() throws Exception {
+        CompletableFuture<BufferedImage> big = service.submit(scene, scene.getCamera(), 640, 480, options(64),
+                RenderPriority.BATCH, null);
+        assertTrue(big.cancel(false));
+        assertTrue(big.isCancelled());
+        assertEquals(1, metrics.getJobsCancelled());
+
+        BufferedImage img = service.submit(scene, scene.getCamera(), 16, 16, options(1), RenderPriority.INTERACTIVE, null)
+                .get(30, TimeUnit.SECONDS);
+        assertEquals(16, img.getWidth());
+    }
+
+    @Test
+    void rendererFailureFailsTheFuture() {
+        // no image of width 0 can be allocated: the renderer fails, synchronously or not
+        CompletableFuture<BufferedImage> job = service.submit(scene, scene.getCamera(), 0, 16, options(1),
+                RenderPriority.FINAL, null);
+        assertThrows(ExecutionException.class, () -> job.get(30, TimeUnit.SECONDS));
+        assertTrue(job.isCompletedExceptionally());
+        assertEquals(1, metrics.getJobsFailed());
+    }
+
+    @Test
+    void shutdownCompletesEveryPendingFuture() throws Exception {
+        CompletableFuture<BufferedImage> a = service.submit(scene, scene.getCamera(), 640, 480, options(64),
+                RenderPriority.BATCH, null);
+        CompletableFuture<BufferedImage> b = service.submit(scene, scene.getCamera(), 640, 480, options(64),
+                RenderPriority.FINAL, null);
+        service.shutdown();
+        assertTrue(a.isDone() && b.isDone(), "un future reste en attente après shutdown()");
+        assertTrue(a.isCancelled() || a.isCompletedExceptionally());
+        assertTrue(b.isCancelled() || b.isCompletedExceptionally());
+    }
+
+    @Test
+    void interactiveTilesOvertakeQueuedBatchWork() throws Exception {
+        RenderService single = new RenderService(1);
+        try {
+            // 300 tiles of 16 px on one worker: the queue stays full long after the first tile
+            AtomicInteger batchTiles = new AtomicInteger();
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<BufferedImage> batch = single.submit(scene, scene.getCamera(), 320, 240, options(2),
+                    RenderPriority.BATCH, new ProgressListener() {
+                        @Override
+                        public void onUpdate(RenderUpdate update) {
+                            batchTiles.incrementAndGet();
+                            started.countDown();
+                        }
+                    });
+            assertTrue(started.await(30, TimeUnit.SECONDS));
+
+            AtomicInteger batchTilesBefore = new AtomicInteger(-1);
+            CompletableFuture<BufferedImage> preview = single.submit(scene, scene.getCamera(), 32, 32, options(1),
+                    RenderPriority.INTERACTIVE, null);
+            preview.whenComplete((img, err) -> batchTilesBefore.set(batchTiles.get()));
+            preview.get(30, TimeUnit.SECONDS);
+
+            assertFalse(batch.isDone(), "le rendu en lot a fini avant l'aperçu");
+            assertTrue(batchTilesBefore.get() < 300 / 2, batchTilesBefore.get() + " tuiles en lot avant l'aperçu");
+            assertEquals(320, batch.get(60, TimeUnit.SECONDS).getWidth());
+            assertEquals(300, batchTiles.get());
+        } finally {
+            single.shutdown();
+        }
+    }
+
+    /** Lance un rendu progressif et attend sa dernière passe ; renvoie les images des passes. */
+    private List<BufferedImage> renderProgressively(RefinementPlan plan) throws Exception {
+        List<BufferedImage> images = new CopyOnWriteArrayList<>();
+        CompletableFuture<BufferedImage> done = new CompletableFuture<>();
+        service.renderProgressive(scene, scene.getCamera(), 48, 32, options(1), plan, new RefinementListener() {
+            @Override
+            public void passCompleted(int passIndex, BufferedImage image, boolean last) {
+                images.add(image);
+                if (last) done.complete(image);
+            }
+
+            @Override
+            public void renderFailed(int passIndex, Throwable error) {
+                done.completeExceptionally(error);
+            }
+        });
+        done.get(30, TimeUnit.SECONDS);
+        return images;
+    }
+
+    @Test
+    void lastAccumulatedImageIsNotRewrittenByTheNextRequest() throws Exception {
+        RefinementPlan plan = new RefinementPlan(0, List.of(new RefinementPlan.Pass(1.0, 1))).withAccumulation(1, 3);
+        List<BufferedImage> first = renderProgressively(plan);
+        assertEquals(plan.size(), first.size());
+        BufferedImage last = first.get(first.size() - 1);
+        assertNotSame(first.get(0), last);
+        int[] before = last.getRGB(0, 0, 48, 32, null, 0, 48);
+
+        List<BufferedImage> second = renderProgressively(plan);
+        assertNotSame(last, second.get(0));
+        assertArrayEquals(before, last.getRGB(0, 0, 48, 32, null, 0, 48));
+    }
+}
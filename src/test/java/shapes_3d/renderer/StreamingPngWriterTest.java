@@ -0,0 +1,112 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingPngWriterTest {
+
+    private static final int[] WIDTHS = {1, 2, 31, 100, 257};
+    private static final int[] HEIGHTS = {1, 17, 300};
+
+    /** Bruit et dégradés mêlés, pour que chaque filtre PNG soit choisi quelque part. */
+    static BufferedImage image(int width, int height, long seed) {
+        Random rnd = new Random(seed);
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int rgb = y % 3 == 0 ? rnd.nextInt(0x1000000)
+                        : ((x * 7) & 0xFF) << 16 | ((y * 5) & 0xFF) << 8 | ((x + y) & 0xFF);
+                img.setRGB(x, y, rgb);
+            }
+        }
+        return img;
+    }
+
+    private static byte[] encode(BufferedImage img, int level) throws Exception {
+        int w = img.getWidth();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] row = new byte[3 * w];
+        try (StreamingPngWriter png = new StreamingPngWriter(bytes, w, img.getHeight(), level)) {
+            for (int y = 0; y < img.getHeight(); y++) {
+                for (int x = 0; x < w; x++) {
+                    int p = img.getRGB(x, y);
+                    row[3 * x] = (byte) (p >> 16);
+                    row[3 * x + 1] = (byte) (p >> 8);
+                    row[3 * x + 2] = (byte) p;
+                }
+                png.writeRow(row, 0);
+            }
+            assertEquals(img.getHeight(), png.getRowsWritten());
+            png.finish();
+        }
+        return bytes.toByteArray();
+    }
+
+    static void assertSamePixels(BufferedImage expected, BufferedImage actual, boolean flipped) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int h = expected.getHeight();
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int want = expected.getRGB(x, flipped ? h - 1 - y : y) & 0xFFFFFF;
+                int got = actual.getRGB(x, y) & 0xFFFFFF;
+                if (want != got) {
+                    assertEquals(Integer.toHexString(want), Integer.toHexString(got), "pixel " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void decodesToTheSamePixelsAtEverySizeAndLevel() throws Exception {
+        for (int level : new int[] {0, 9}) {
+            for (int w : WIDTHS) {
+                for (int h : HEIGHTS) {
+                    BufferedImage src = image(w, h, 31L * w + h);
+                    BufferedImage png = ImageIO.read(new ByteArrayInputStream(encode(src, level)));
+                    assertSamePixels(src, png, false);
+                }
+            }
+        }
+    }
+
+    @Test
+    void uncompressedImageSpansSeveralDataChunks() throws Exception {
+        // 3 * 257 * 300 bytes stored: more than one 64 KiB IDAT chunk
+        BufferedImage src = image(257, 300, 7);
+        byte[] bytes = encode(src, 0);
+        int idat = 0;
+        for (int i = 0; i + 4 <= bytes.length; i++) {
+            if (bytes[i] == 'I' && bytes[i + 1] == 'D' && bytes[i + 2] == 'A' && bytes[i + 3] == 'T') idat++;
+        }
+        assertTrue(idat > 1, idat + " IDAT chunk(s)");
+        assertSamePixels(src, ImageIO.read(new ByteArrayInputStream(bytes)), false);
+    }
+
+    @Test
+    void rowCountIsEnforced() throws Exception {
+        try (StreamingPngWriter png = new StreamingPngWriter(new ByteArrayOutputStream(), 4, 2, 6)) {
+            byte[] row = new byte[12];
+            png.writeRow(row, 0);
+            assertThrows(IllegalStateException.class, png::finish);
+            png.writeRow(row, 0);
+            assertThrows(IllegalStateException.class, () -> png.writeRow(row, 0));
+            png.finish();
+        }
+    }
+
+    @Test
+    void invalidSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new StreamingPngWriter(new ByteArrayOutputStream(), 0, 1, 6));
+        assertThrows(IllegalArgumentException.class, () -> new StreamingPngWriter(new ByteArrayOutputStream(), 1, -1, 6));
+    }
+}
@@ -0,0 +1,159 @@
+package shapes_3d.renderer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TileStreamWriterTest {
+
+    private static final int TILE = 32;
+
+    @TempDir
+    Path dir;
+
+    /** Tuiles de {@code TILE} pixels, celles du bord débordant de l'image comme celles du renderer. */
+    private static List<int[]> tiles(int width, int height) {
+        List<int[]> tiles = new ArrayList<>();
+        for (int y = 0; y < height; y += TILE) {
+            for (int x = 0; x < width; x += TILE) tiles.add(new int[] {x, y});
+        }
+        return tiles;
+    }
+
+    private static BufferedImage tile(BufferedImage src, int x, int y) {
+        BufferedImage t = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_RGB);
+        int w = Math.min(TILE, src.getWidth() - x);
+        int h = Math.min(TILE, src.getHeight() - y);
+        for (int j = 0; j < h; j++) {
+            for (int i = 0; i < w; i++) t.setRGB(i, j, src.getRGB(x + i, y + j));
+        }
+        return t;
+    }
+
+    private void assertNoTemporaryFiles(Path dest) {
+        assertFalse(Files.exists(dest.resolveSibling(dest.getFileName() + ".spool")));
+        assertFalse(Files.exists(dest.resolveSibling(dest.getFileName() + ".part")));
+    }
+
+    private Path write(BufferedImage src, int level, long seed) throws Exception {
+        Path dest = dir.resolve("img-" + src.getWidth() + "x" + src.getHeight() + "-" + level + ".png");
+        List<int[]> order = tiles(src.getWidth(), src.getHeight());
+        Collections.shuffle(order, new Random(seed));
+        try (TileStreamWriter sink = new TileStreamWriter(dest, src.getWidth(), src.getHeight(), level, 0, null, null)) {
+            for (int[] t : order) sink.accept(tile(src, t[0], t[1]), t[0], t[1]);
+            assertEquals(dest, sink.completion().get(30, TimeUnit.SECONDS));
+        }
+        return dest;
+    }
+
+    @Test
+    void shuffledTilesRoundTripFlipped() throws Exception {
+        for (int level : new int[] {0, 9}) {
+            for (int w : new int[] {1, TILE, 45, 100}) {
+                for (int h : new int[] {1, 33, 70}) {
+                    BufferedImage src = StreamingPngWriterTest.image(w, h, 17L * w + h + level);
+                    Path dest = write(src, level, w * 1000L + h);
+                    // renderer rows are bottom-up, PNG rows top-down
+                    StreamingPngWriterTest.assertSamePixels(src, ImageIO.read(dest.toFile()), true);
+                    assertNoTemporaryFiles(dest);
+                }
+            }
+        }
+    }
+
+    @Test
+    void tilesFromSeveralThreads() throws Exception {
+        BufferedImage src = StreamingPngWriterTest.image(200, 150, 3);
+        Path dest = dir.resolve("threads.png");
+        List<int[]> order = tiles(200, 150);
+        Collections.shuffle(order, new Random(5));
+        try (TileStreamWriter sink = new TileStreamWriter(dest, 200, 150, 6, 0, null, null)) {
+            List<CompletableFuture<Void>> posted = new ArrayList<>();
+            for (int k = 0; k < 4; k++) {
+                List<int[]> mine = order.subList(k * order.size() / 4, (k + 1) * order.size() / 4);
+                posted.add(CompletableFuture.runAsync(() -> {
+                    for (int[] t : mine) sink.accept(tile(src, t[0], t[1]), t[0], t[1]);
+                }));
+            }
+            CompletableFuture.allOf(posted.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+            sink.completion().get(30, TimeUnit.SECONDS);
+        }
+        StreamingPngWriterTest.assertSamePixels(src, ImageIO.read(dest.toFile()), true);
+    }
+
+    @Test
+    void completeFillsTheRowsNoTileCovered() throws Exception {
+        BufferedImage src = StreamingPngWriterTest.image(90, 80, 11);
+        Path dest = dir.resolve("partial.png");
+        try (TileStreamWriter sink = new TileStreamWriter(dest, 90, 80, 6, 0, null, null)) {
+            List<int[]> order = tiles(90, 80);
+            Collections.shuffle(order, new Random(2));
+            for (int[] t : order.subList(0, order.size() / 2)) sink.accept(tile(src, t[0], t[1]), t[0], t[1]);
+            assertFalse(sink.completion().isDone());
+            sink.complete(src);
+            sink.completion().get(30, TimeUnit.SECONDS);
+        }
+        StreamingPngWriterTest.assertSamePixels(src, ImageIO.read(dest.toFile()), true);
+        assertNoTemporaryFiles(dest);
+    }
+
+    @Test
+    void closeMidStreamRemovesTemporaryFiles() throws Exception {
+        BufferedImage src = StreamingPngWriterTest.image(64, 64, 1);
+        Path dest = dir.resolve("aborted.png");
+        TileStreamWriter sink = new TileStreamWriter(dest, 64, 64, 6, 0, null, null);
+        // the bottom tiles only: the encoder starts from the top row and waits
+        sink.accept(tile(src, 0, 0), 0, 0);
+        sink.accept(tile(src, 32, 0), 32, 0);
+        assertTrue(Files.exists(dest.resolveSibling("aborted.png.spool")));
+
+        sink.close();
+        assertThrows(CancellationException.class, () -> sink.completion().get(30, TimeUnit.SECONDS));
+        assertNoTemporaryFiles(dest);
+        assertFalse(Files.exists(dest));
+    }
+
+    @Test
+    void previewTilesCoverTheReducedImage() throws Exception {
+        BufferedImage src = StreamingPngWriterTest.image(100, 60, 9);
+        int[] covered = new int[1];
+        BufferedImage[] preview = new BufferedImage[1];
+        try (TileStreamWriter sink = new TileStreamWriter(dir.resolve("preview.png"), 100, 60, 1, 25,
+                (part, x, y) -> {
+                    synchronized (covered) {
+                        covered[0] += part.getWidth() * part.getHeight();
+                        for (int j = 0; j < part.getHeight(); j++) {
+                            for (int i = 0; i < part.getWidth(); i++) {
+                                preview[0].setRGB(x + i, y + j, part.getRGB(i, j));
+                            }
+                        }
+                    }
+                }, null)) {
+            assertEquals(25, sink.getPreviewWidth());
+            assertEquals(15, sink.getPreviewHeight());
+            preview[0] = new BufferedImage(25, 15, BufferedImage.TYPE_INT_RGB);
+            for (int[] t : tiles(100, 60)) sink.accept(tile(src, t[0], t[1]), t[0], t[1]);
+            sink.completion().get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(25 * 15, covered[0]);
+        for (int y = 0; y < 15; y++) {
+            for (int x = 0; x < 25; x++) assertEquals(src.getRGB(4 * x, 4 * y), preview[0].getRGB(x, y));
+        }
+    }
+}